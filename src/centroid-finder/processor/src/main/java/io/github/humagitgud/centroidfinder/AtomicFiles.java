@@ -0,0 +1,39 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Helpers for replacing small sidecar files so readers never observe a partial write.
+ */
+final class AtomicFiles {
+    private AtomicFiles() {}
+
+    /**
+     * Writes the content to a temporary file next to the target and renames it into place.
+     *
+     * @param path the file to replace
+     * @param content the new file content
+     * @throws IOException if the file cannot be written or renamed
+     */
+    static void writeString(Path path, String content) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, content);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the bytes to a temporary file next to the target and renames it into place.
+     *
+     * @param path the file to replace
+     * @param content the new file content
+     * @throws IOException if the file cannot be written or renamed
+     */
+    static void write(Path path, byte[] content) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
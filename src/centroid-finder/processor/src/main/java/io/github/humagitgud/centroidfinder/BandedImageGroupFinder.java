@@ -0,0 +1,82 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+
+/**
+ * Finds connected groups in an image too large to hold in memory.
+ *
+ * The image is read through an ImageReader one band of rows at a time, using a source region.
+ * Each band is binarized and its rows are fed to a {@link StreamingLabeler}, so only one band
+ * and the labels of one row are in memory at once: memory is proportional to width times band
+ * height, whatever the image height.
+ *
+ * Formats that can read a region directly (such as striped or tiled TIFF) read each band once.
+ * Sequential formats such as PNG may decode from the top of the image for every band, trading
+ * time for the same bounded memory.
+ */
+public class BandedImageGroupFinder {
+    private final ImageBinarizer binarizer;
+    private final int bandRows;
+    private final int minGroupSize;
+
+    /**
+     * Constructs a BandedImageGroupFinder.
+     *
+     * @param binarizer converts each band to 0s and 1s
+     * @param bandRows the number of rows read at a time, at least 1
+     * @param minGroupSize the smallest group size to report, at least 1
+     */
+    public BandedImageGroupFinder(ImageBinarizer binarizer, int bandRows, int minGroupSize) {
+        if (bandRows < 1) throw new IllegalArgumentException("bandRows must be at least 1");
+        if (minGroupSize < 1) throw new IllegalArgumentException("minGroupSize must be at least 1");
+        this.binarizer = binarizer;
+        this.bandRows = bandRows;
+        this.minGroupSize = minGroupSize;
+    }
+
+    /**
+     * Finds the connected groups of the first image of a reader, passing each to the sink as
+     * soon as it is complete.
+     *
+     * @param reader a reader whose input has been set
+     * @param sink receives each group, in the order groups are completed
+     * @throws IOException if the image cannot be read
+     */
+    public void findConnectedGroups(ImageReader reader, Consumer<Group> sink) throws IOException {
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        StreamingLabeler labeler = new StreamingLabeler(width, minGroupSize, sink);
+        ImageReadParam param = reader.getDefaultReadParam();
+
+        for (int y0 = 0; y0 < height; y0 += bandRows) {
+            param.setSourceRegion(new Rectangle(0, y0, width, Math.min(bandRows, height - y0)));
+            BufferedImage band = reader.read(0, param);
+            for (int[] row : binarizer.toBinaryArray(band)) {
+                labeler.addRow(row);
+            }
+        }
+        labeler.finish();
+    }
+
+    /**
+     * Finds the connected groups of the first image of a reader.
+     *
+     * @param reader a reader whose input has been set
+     * @return the groups in descending order, as {@link BinaryGroupFinder} returns them
+     * @throws IOException if the image cannot be read
+     */
+    public List<Group> findConnectedGroups(ImageReader reader) throws IOException {
+        List<Group> groups = new ArrayList<>();
+        findConnectedGroups(reader, groups::add);
+        Collections.sort(groups, Collections.reverseOrder());
+        return groups;
+    }
+}
@@ -45,4 +45,20 @@ public class BinarizingImageGroupFinder implements ImageGroupFinder {
         
         return connectedGroups;
     }
+
+    /**
+     * Finds the k largest groups of white pixels in the given image.
+     * 
+     * The image is binarized as in findConnectedGroups and the BinaryGroupFinder is asked
+     * for its k largest groups, so groups outside the top k need not be built at all.
+     *
+     * @param image the input BufferedImage to process
+     * @param k the maximum number of groups to return, at least 1
+     * @return the k largest groups of connected white pixels in descending order
+     */
+    @Override
+    public List<Group> findLargestGroups(BufferedImage image, int k) {
+        int[][] binarizedImage = binarizer.toBinaryArray(image);
+        return groupFinder.findLargestGroups(binarizedImage, k);
+    }
 }
@@ -34,4 +34,22 @@ public interface BinaryGroupFinder {
     * @return the found groups of connected pixels in descending order
     */
    public List<Group> findConnectedGroups(int[][] image);
+
+   /**
+    * Finds the k largest connected pixel groups of 1s, using the same rules as
+    * findConnectedGroups. The result is the first k groups findConnectedGroups would
+    * return, in the same DESCENDING order, or all groups if there are fewer than k.
+    *
+    * Implementations can avoid building and sorting groups that do not make the top k.
+    * The default implementation finds all groups and keeps the first k.
+    *
+    * @param image a rectangular 2D array containing only 1s and 0s
+    * @param k the maximum number of groups to return, at least 1
+    * @return the k largest groups of connected pixels in descending order
+    */
+   public default List<Group> findLargestGroups(int[][] image, int k) {
+      if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+      List<Group> groups = findConnectedGroups(image);
+      return groups.size() <= k ? groups : groups.subList(0, k);
+   }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Identifies the build of the processor that is running, so cached results are not reused
+ * across code changes.
+ *
+ * The id is a hash of the code the classes were loaded from: the {@link VideoHash} of the jar,
+ * which covers its size and modification time, or the contents of every file in a class
+ * directory when running from a build tree. If the code cannot be located, every run gets a
+ * random id, so nothing cached by another run is trusted.
+ */
+final class BuildId {
+    private static String id;
+
+    private BuildId() {}
+
+    /**
+     * Returns the id of the running build, computed once per JVM.
+     *
+     * @return a lowercase hex string that changes whenever the code changes
+     */
+    static synchronized String get() {
+        if (id == null) id = compute();
+        return id;
+    }
+
+    private static String compute() {
+        try {
+            CodeSource source = BuildId.class.getProtectionDomain().getCodeSource();
+            if (source == null) return UUID.randomUUID().toString();
+            Path location = Path.of(source.getLocation().toURI());
+            return Files.isDirectory(location) ? ofDirectory(location) : VideoHash.of(location);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Hashes the relative path and contents of every file in a class directory, in path order.
+     *
+     * @param directory the directory the classes are loaded from
+     * @return the lowercase hex digest
+     * @throws IOException if a file cannot be read
+     */
+    static String ofDirectory(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        StringBuilder hashes = new StringBuilder();
+        for (Path file : files) {
+            hashes.append(directory.relativize(file)).append('=')
+                    .append(VideoHash.ofString(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1)))
+                    .append('\n');
+        }
+        return VideoHash.ofString(hashes.toString());
+    }
+}
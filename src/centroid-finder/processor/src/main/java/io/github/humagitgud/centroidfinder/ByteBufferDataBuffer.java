@@ -0,0 +1,50 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.DataBuffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A DataBuffer that reads pixel data directly from a ByteBuffer, so a BufferedImage can be
+ * backed by a memory-mapped file without copying it onto the heap.
+ * 
+ * Supports TYPE_BYTE (one byte per element) and TYPE_USHORT (two big-endian bytes per element).
+ */
+class ByteBufferDataBuffer extends DataBuffer {
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a DataBuffer over the given buffer.
+     *
+     * @param buffer the pixel data, starting at index 0
+     * @param dataType DataBuffer.TYPE_BYTE or DataBuffer.TYPE_USHORT
+     * @param size the number of elements in the buffer
+     */
+    ByteBufferDataBuffer(ByteBuffer buffer, int dataType, int size) {
+        super(dataType, size);
+        if (dataType != TYPE_BYTE && dataType != TYPE_USHORT) {
+            throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        }
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the underlying buffer.
+     *
+     * @return the buffer holding the pixel data
+     */
+    ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int getElem(int bank, int i) {
+        if (dataType == TYPE_BYTE) return buffer.get(i) & 0xFF;
+        return buffer.getShort(i * 2) & 0xFFFF;
+    }
+
+    @Override
+    public void setElem(int bank, int i, int val) {
+        if (dataType == TYPE_BYTE) buffer.put(i, (byte) val);
+        else buffer.putShort(i * 2, (short) val);
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Records how far a video job has progressed so an interrupted run can be resumed.
+ *
+ * A checkpoint is stored next to the output CSV as "<output>.checkpoint" and contains:
+ * - lastFrame: index of the last frame whose row has been flushed to the output file
+ * - timestamp: video timestamp (in seconds) of that frame
+ * - offset: length of the output file in bytes after that frame's row was written
+ *
+ * Checkpoints are written to a temporary file and renamed into place, so a reader never
+ * sees a half-written checkpoint even if the process is killed while saving one.
+ */
+public record Checkpoint(long lastFrame, double timestamp, long offset) {
+
+    /**
+     * Returns the checkpoint path used for the given output file.
+     *
+     * @param outputPath path to the output CSV file
+     * @return path of the checkpoint file next to the output
+     */
+    public static Path pathFor(String outputPath) {
+        return Path.of(outputPath + ".checkpoint");
+    }
+
+    /**
+     * Reads a checkpoint from disk.
+     *
+     * @param path path to the checkpoint file
+     * @return the checkpoint, or null if no checkpoint file exists
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        long lastFrame = -1;
+        double timestamp = -1;
+        long offset = -1;
+
+        List<String> lines = Files.readAllLines(path);
+        for (String line : lines) {
+            String[] parts = line.split("=", 2);
+            if (parts.length != 2) continue;
+            try {
+                switch (parts[0].trim()) {
+                    case "lastFrame" -> lastFrame = Long.parseLong(parts[1].trim());
+                    case "timestamp" -> timestamp = Double.parseDouble(parts[1].trim());
+                    case "offset" -> offset = Long.parseLong(parts[1].trim());
+                    default -> { }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed checkpoint: " + path, e);
+            }
+        }
+
+        if (lastFrame < 0 || offset < 0) {
+            throw new IOException("Incomplete checkpoint: " + path);
+        }
+        return new Checkpoint(lastFrame, timestamp, offset);
+    }
+
+    /**
+     * Atomically writes this checkpoint to disk, replacing any previous checkpoint.
+     *
+     * @param path path to the checkpoint file
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void write(Path path) throws IOException {
+        String content = "lastFrame=" + lastFrame + "\n"
+                + "timestamp=" + timestamp + "\n"
+                + "offset=" + offset + "\n";
+        AtomicFiles.writeString(path, content);
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * A ColorDistanceFinder that compares colors in the CIELAB color space.
+ *
+ * Colors are converted from sRGB (D65 white point) to CIELAB, where equal distances are
+ * closer to equal perceived differences than they are in RGB. Two formulas are supported:
+ *
+ * - CIE76: the Euclidean distance between the two Lab colors.
+ * - CIEDE2000: the CIE 2000 color difference, which corrects CIE76 for hue, chroma and
+ *   lightness so that, for example, a darker or lighter shade of the same color is
+ *   closer than CIE76 would say.
+ *
+ * A difference of about 1 is just noticeable; black and white are 100 apart.
+ *
+ * The conversion costs far more than an RGB distance, so for whole images this metric
+ * is meant to be used through a {@link ColorLookupTable}.
+ */
+public class CieLabColorDistance implements ColorDistanceFinder {
+
+    /**
+     * The color difference formula to use.
+     */
+    public enum Formula { CIE76, CIEDE2000 }
+
+    // sRGB component value (0-255) to linear light (0-1)
+    private static final double[] LINEAR = new double[256];
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    // D65 reference white
+    private static final double XN = 0.95047;
+    private static final double YN = 1.0;
+    private static final double ZN = 1.08883;
+
+    private static final double POW25_7 = Math.pow(25, 7);
+
+    private final Formula formula;
+
+    /**
+     * Constructs a CieLabColorDistance using the given formula.
+     *
+     * @param formula the color difference formula
+     */
+    public CieLabColorDistance(Formula formula) {
+        this.formula = formula;
+    }
+
+    /**
+     * Returns the CIELAB color difference between two hex RGB colors.
+     *
+     * @param colorA the first color as a 24-bit hex RGB integer
+     * @param colorB the second color as a 24-bit hex RGB integer
+     * @return the color difference, 0 for identical colors
+     */
+    @Override
+    public double distance(int colorA, int colorB) {
+        double[] labA = toLab(colorA);
+        double[] labB = toLab(colorB);
+        return formula == Formula.CIE76 ? deltaE76(labA, labB) : deltaE2000(labA, labB);
+    }
+
+    /**
+     * Converts a hex RGB color to CIELAB.
+     *
+     * @param rgb the color as a 24-bit hex RGB integer
+     * @return the L, a and b components
+     */
+    static double[] toLab(int rgb) {
+        double r = LINEAR[(rgb >> 16) & 0xFF];
+        double g = LINEAR[(rgb >> 8) & 0xFF];
+        double b = LINEAR[rgb & 0xFF];
+
+        double x = (0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / XN;
+        double y = (0.2126729 * r + 0.7151522 * g + 0.0721750 * b) / YN;
+        double z = (0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / ZN;
+
+        double fx = f(x);
+        double fy = f(y);
+        double fz = f(z);
+        return new double[] {116 * fy - 16, 500 * (fx - fy), 200 * (fy - fz)};
+    }
+
+    // the CIELAB companding function
+    private static double f(double t) {
+        double delta = 6.0 / 29;
+        return t > delta * delta * delta ? Math.cbrt(t) : t / (3 * delta * delta) + 4.0 / 29;
+    }
+
+    /**
+     * Returns the CIE76 difference between two Lab colors.
+     *
+     * @param lab1 the first color's L, a and b components
+     * @param lab2 the second color's L, a and b components
+     * @return the Euclidean distance in Lab space
+     */
+    static double deltaE76(double[] lab1, double[] lab2) {
+        double dl = lab1[0] - lab2[0];
+        double da = lab1[1] - lab2[1];
+        double db = lab1[2] - lab2[2];
+        return Math.sqrt(dl * dl + da * da + db * db);
+    }
+
+    /**
+     * Returns the CIEDE2000 difference between two Lab colors, with the parametric
+     * weighting factors kL, kC and kH all 1.
+     *
+     * @param lab1 the first color's L, a and b components
+     * @param lab2 the second color's L, a and b components
+     * @return the CIEDE2000 color difference
+     */
+    static double deltaE2000(double[] lab1, double[] lab2) {
+        double l1 = lab1[0], a1 = lab1[1], b1 = lab1[2];
+        double l2 = lab2[0], a2 = lab2[1], b2 = lab2[2];
+
+        // adjust a* so that neutral colors are treated more like each other
+        double cBar = (Math.hypot(a1, b1) + Math.hypot(a2, b2)) / 2;
+        double cBar7 = Math.pow(cBar, 7);
+        double g = 0.5 * (1 - Math.sqrt(cBar7 / (cBar7 + POW25_7)));
+        double a1p = (1 + g) * a1;
+        double a2p = (1 + g) * a2;
+
+        double c1p = Math.hypot(a1p, b1);
+        double c2p = Math.hypot(a2p, b2);
+        double h1p = hueAngle(b1, a1p);
+        double h2p = hueAngle(b2, a2p);
+
+        // differences in lightness, chroma and hue
+        double dLp = l2 - l1;
+        double dCp = c2p - c1p;
+        double dhp = 0;
+        if (c1p * c2p != 0) {
+            dhp = h2p - h1p;
+            if (dhp > 180) dhp -= 360;
+            else if (dhp < -180) dhp += 360;
+        }
+        double dHp = 2 * Math.sqrt(c1p * c2p) * Math.sin(Math.toRadians(dhp / 2));
+
+        // means
+        double lBarP = (l1 + l2) / 2;
+        double cBarP = (c1p + c2p) / 2;
+        double hBarP = h1p + h2p;
+        if (c1p * c2p != 0) {
+            if (Math.abs(h1p - h2p) <= 180) hBarP = (h1p + h2p) / 2;
+            else if (h1p + h2p < 360) hBarP = (h1p + h2p + 360) / 2;
+            else hBarP = (h1p + h2p - 360) / 2;
+        }
+
+        double t = 1 - 0.17 * Math.cos(Math.toRadians(hBarP - 30))
+                + 0.24 * Math.cos(Math.toRadians(2 * hBarP))
+                + 0.32 * Math.cos(Math.toRadians(3 * hBarP + 6))
+                - 0.20 * Math.cos(Math.toRadians(4 * hBarP - 63));
+        double dTheta = 30 * Math.exp(-Math.pow((hBarP - 275) / 25, 2));
+        double cBarP7 = Math.pow(cBarP, 7);
+        double rc = 2 * Math.sqrt(cBarP7 / (cBarP7 + POW25_7));
+        double lOffset = (lBarP - 50) * (lBarP - 50);
+        double sl = 1 + 0.015 * lOffset / Math.sqrt(20 + lOffset);
+        double sc = 1 + 0.045 * cBarP;
+        double sh = 1 + 0.015 * cBarP * t;
+        double rt = -Math.sin(Math.toRadians(2 * dTheta)) * rc;
+
+        double lTerm = dLp / sl;
+        double cTerm = dCp / sc;
+        double hTerm = dHp / sh;
+        return Math.sqrt(lTerm * lTerm + cTerm * cTerm + hTerm * hTerm + rt * cTerm * hTerm);
+    }
+
+    // hue angle in degrees between 0 and 360, 0 for a neutral color
+    private static double hueAngle(double b, double aPrime) {
+        if (b == 0 && aPrime == 0) return 0;
+        double h = Math.toDegrees(Math.atan2(b, aPrime));
+        return h < 0 ? h + 360 : h;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * A ColorDistanceFinder that remembers a metric's distance from one target color for
+ * every 24-bit color it has been asked about.
+ *
+ * The table covers all 2^24 colors with one byte each (16 MB) and is filled lazily, so
+ * each distinct color in a job is converted only once and every later pixel of that
+ * color is a single array lookup. This makes expensive perceptual metrics cost about
+ * the same per pixel as an RGB distance.
+ *
+ * Distances below 255 are returned rounded down to a whole number. Thresholds are whole
+ * numbers, so "distance < threshold" gives the same answer as with the exact metric.
+ * Distances of 255 or more, and distances between two colors that are not the target,
+ * are computed by the wrapped metric.
+ *
+ * A table serves a single job and is not thread-safe.
+ */
+public class ColorLookupTable implements ColorDistanceFinder {
+    private static final int FAR = 255;
+
+    private final ColorDistanceFinder metric;
+    private final int targetColor;
+    private final byte[] distances = new byte[1 << 24];
+    private final long[] known = new long[(1 << 24) / 64];
+
+    /**
+     * Constructs a ColorLookupTable.
+     *
+     * @param metric the metric to look up distances for
+     * @param targetColor the color all looked up distances are measured from, as 0xRRGGBB
+     */
+    public ColorLookupTable(ColorDistanceFinder metric, int targetColor) {
+        this.metric = metric;
+        this.targetColor = targetColor & 0xFFFFFF;
+    }
+
+    /**
+     * Returns the distance between two colors, from the table when one of them is the target.
+     *
+     * @param colorA the first color as a 24-bit hex RGB integer
+     * @param colorB the second color as a 24-bit hex RGB integer
+     * @return the distance, rounded down if it is below 255 and one color is the target
+     */
+    @Override
+    public double distance(int colorA, int colorB) {
+        int color;
+        if ((colorB & 0xFFFFFF) == targetColor) color = colorA & 0xFFFFFF;
+        else if ((colorA & 0xFFFFFF) == targetColor) color = colorB & 0xFFFFFF;
+        else return metric.distance(colorA, colorB);
+
+        long bit = 1L << color;
+        if ((known[color >>> 6] & bit) == 0) {
+            double d = metric.distance(color, targetColor);
+            distances[color] = (byte) Math.min((int) d, FAR);
+            known[color >>> 6] |= bit;
+        }
+        int d = distances[color] & 0xFF;
+        return d < FAR ? d : metric.distance(color, targetColor);
+    }
+}
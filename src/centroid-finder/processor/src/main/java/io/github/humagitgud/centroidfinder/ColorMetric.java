@@ -0,0 +1,64 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * The color distance metrics that can be selected for a job.
+ *
+ * - euclidean: Euclidean distance in RGB (0-441)
+ * - de76: CIE76 difference in CIELAB (0-100 for gray levels, about 1 is just noticeable)
+ * - de2000: CIEDE2000 difference in CIELAB (same scale as de76, more perceptually uniform)
+ * - hue: HSV hue angle in degrees (0-180), ignoring brightness and saturation
+ *
+ * The perceptual metrics are wrapped in a {@link ColorLookupTable} for the job's target
+ * color, so each distinct pixel color is only converted once.
+ */
+public enum ColorMetric {
+    EUCLIDEAN("euclidean"),
+    DELTA_E76("de76"),
+    DELTA_E2000("de2000"),
+    HUE("hue");
+
+    private final String name;
+
+    ColorMetric(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name used to select this metric on the command line.
+     *
+     * @return the metric's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the metric with the given command line name.
+     *
+     * @param name the metric's name
+     * @return the metric
+     * @throws IllegalArgumentException if no metric has that name
+     */
+    public static ColorMetric fromName(String name) {
+        for (ColorMetric metric : values()) {
+            if (metric.name.equals(name)) return metric;
+        }
+        throw new IllegalArgumentException("Unknown color metric: " + name
+                + " (expected euclidean, de76, de2000 or hue)");
+    }
+
+    /**
+     * Creates a distance finder for measuring distances from one target color.
+     *
+     * @param targetColor the target color as a 24-bit hex RGB integer
+     * @return the distance finder to use for a job with that target color
+     */
+    public ColorDistanceFinder forTarget(int targetColor) {
+        return switch (this) {
+            case EUCLIDEAN -> new EuclideanColorDistance();
+            case DELTA_E76 -> new ColorLookupTable(new CieLabColorDistance(CieLabColorDistance.Formula.CIE76), targetColor);
+            case DELTA_E2000 -> new ColorLookupTable(new CieLabColorDistance(CieLabColorDistance.Formula.CIEDE2000), targetColor);
+            case HUE -> new ColorLookupTable(new HueColorDistance(), targetColor);
+        };
+    }
+}
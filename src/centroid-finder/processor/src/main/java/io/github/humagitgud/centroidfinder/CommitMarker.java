@@ -0,0 +1,88 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Describes how much of an output CSV has been committed and whether the job has finished.
+ *
+ * A commit marker is stored next to the output CSV as "<output>.commit" and contains:
+ * - rows: number of complete rows in the output file
+ * - bytes: length of the output file in bytes covering exactly those rows
+ * - status: RUNNING while the job is writing, DONE when it completed, FAILED if it stopped with an error
+ *
+ * Readers that only consume the first "bytes" bytes of the output never see a partially written row,
+ * so results can be tailed safely while a job is still running.
+ */
+public record CommitMarker(long rows, long bytes, Status status) {
+
+    /**
+     * The state of the job that produces the output file.
+     */
+    public enum Status {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * Returns the commit marker path used for the given output file.
+     *
+     * @param outputPath path to the output CSV file
+     * @return path of the commit marker next to the output
+     */
+    public static Path pathFor(String outputPath) {
+        return Path.of(outputPath + ".commit");
+    }
+
+    /**
+     * Reads a commit marker from disk.
+     *
+     * @param path path to the commit marker
+     * @return the marker, or null if no marker exists
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static CommitMarker read(Path path) throws IOException {
+        if (!Files.exists(path)) return null;
+
+        long rows = -1;
+        long bytes = -1;
+        Status status = null;
+
+        List<String> lines = Files.readAllLines(path);
+        for (String line : lines) {
+            String[] parts = line.split("=", 2);
+            if (parts.length != 2) continue;
+            try {
+                switch (parts[0].trim()) {
+                    case "rows" -> rows = Long.parseLong(parts[1].trim());
+                    case "bytes" -> bytes = Long.parseLong(parts[1].trim());
+                    case "status" -> status = Status.valueOf(parts[1].trim());
+                    default -> { }
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed commit marker: " + path, e);
+            }
+        }
+
+        if (rows < 0 || bytes < 0 || status == null) {
+            throw new IOException("Incomplete commit marker: " + path);
+        }
+        return new CommitMarker(rows, bytes, status);
+    }
+
+    /**
+     * Atomically writes this marker to disk, replacing any previous marker.
+     *
+     * @param path path to the commit marker
+     * @throws IOException if the marker cannot be written
+     */
+    public void write(Path path) throws IOException {
+        String content = "rows=" + rows + "\n"
+                + "bytes=" + bytes + "\n"
+                + "status=" + status + "\n";
+        AtomicFiles.writeString(path, content);
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A CsvWriter that appends rows to the output file in committed chunks.
+ * 
+ * Rows are held in memory until {@link #flush()}, which appends the whole chunk with a single
+ * write, forces it to disk and then publishes a {@link CommitMarker} with the new row count and
+ * byte length. The marker is only ever advanced past complete, durable rows, so a reader that
+ * trusts the marker can tail the file while the job is running.
+ * 
+ * {@link #finish()} publishes a DONE marker. Closing the writer without finishing it publishes
+ * a FAILED marker, which is what happens when processing stops with an exception.
+ */
+public class CommittedCsvWriter extends CsvWriter {
+    private final StringWriter pending;
+    private final FileChannel channel;
+    private final Path markerPath;
+    private final long startRows;
+    private boolean finished;
+
+    /**
+     * Creates a new CommittedCsvWriter for the specified file.
+     * 
+     * @param filePath path to the output CSV file
+     * @param append true to append to the existing file instead of overwriting it
+     * @param startRows number of complete rows already in the file when appending
+     * @throws IOException if an error occurs opening the file or writing the marker
+     */
+    public CommittedCsvWriter(String filePath, boolean append, long startRows) throws IOException {
+        this(new StringWriter(), openChannel(filePath, append), filePath, append ? startRows : 0);
+    }
+
+    private CommittedCsvWriter(StringWriter pending, FileChannel channel, String filePath, long startRows) throws IOException {
+        super(pending, channel.size());
+        this.pending = pending;
+        this.channel = channel;
+        this.markerPath = CommitMarker.pathFor(filePath);
+        this.startRows = startRows;
+        publish(CommitMarker.Status.RUNNING);
+    }
+
+    private static FileChannel openChannel(String filePath, boolean append) throws IOException {
+        if (append) {
+            return FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends all rows written since the last commit to the file, forces them to disk
+     * and advances the commit marker.
+     * 
+     * @throws IOException if the rows or the marker cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        super.flush();
+        StringBuffer buffer = pending.getBuffer();
+        if (buffer.length() > 0) {
+            ByteBuffer chunk = StandardCharsets.US_ASCII.encode(buffer.toString());
+            buffer.setLength(0);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            channel.force(false);
+        }
+        publish(CommitMarker.Status.RUNNING);
+    }
+
+    /**
+     * Commits any remaining rows and marks the output as DONE.
+     * 
+     * @throws IOException if the rows or the marker cannot be written
+     */
+    @Override
+    public void finish() throws IOException {
+        flush();
+        publish(CommitMarker.Status.DONE);
+        finished = true;
+    }
+
+    /**
+     * Closes the output file. If the writer was not finished, the rows written so far are
+     * committed and the output is marked as FAILED.
+     * 
+     * @throws IOException if the file or the marker cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!finished) {
+                flush();
+                publish(CommitMarker.Status.FAILED);
+            }
+        } finally {
+            super.close();
+            channel.close();
+        }
+    }
+
+    private void publish(CommitMarker.Status status) throws IOException {
+        new CommitMarker(startRows + getRowsWritten(), getBytesWritten(), status).write(markerPath);
+    }
+}
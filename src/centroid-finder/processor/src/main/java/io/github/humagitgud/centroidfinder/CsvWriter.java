@@ -1,8 +1,11 @@
 package io.github.humagitgud.centroidfinder;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
 
 /**
  * Utility class for writing centroid tracking data to a CSV file.
@@ -10,9 +13,19 @@ import java.io.PrintWriter;
  * Where timestamp is in seconds since the start of the video,
  * and x,y are the coordinates of the largest centroid.
  * If no centroid is found, coordinates of (-1, -1) are used.
+ * 
+ * When several groups are tracked per frame, each row holds a fixed number of
+ * coordinate pairs: timestamp,x1,y1,x2,y2,... ordered from the largest group down,
+ * padded with (-1, -1) when a frame has fewer groups.
+ * 
+ * Frames whose labeling was aborted (see {@link LabelingAbortedException}) are written
+ * with every coordinate set to -2, so they can be told apart from frames with no match.
  */
 public class CsvWriter implements AutoCloseable {
     private PrintWriter writer;
+    private long bytesWritten;
+    private long rowsWritten;
+    private SeekIndex.Writer seekIndex;
     
     /**
      * Creates a new CsvWriter that writes to the specified file.
@@ -21,7 +34,43 @@ public class CsvWriter implements AutoCloseable {
      * @throws IOException if an error occurs opening the file
      */
     public CsvWriter(String filePath) throws IOException {
-        this.writer = new PrintWriter(new FileWriter(filePath));
+        this(filePath, false);
+    }
+
+    /**
+     * Creates a new CsvWriter that writes to the specified file, optionally appending
+     * to its existing contents.
+     * 
+     * @param filePath path to the output CSV file
+     * @param append true to append to the existing file instead of overwriting it
+     * @throws IOException if an error occurs opening the file
+     */
+    public CsvWriter(String filePath, boolean append) throws IOException {
+        File file = new File(filePath);
+        this.bytesWritten = append && file.exists() ? file.length() : 0;
+        this.writer = new PrintWriter(new FileWriter(file, append));
+    }
+
+    /**
+     * Creates a CsvWriter that writes rows to a stream, such as standard output, instead of a file.
+     * Closing the CsvWriter closes the writer.
+     * 
+     * @param out the destination for rows
+     */
+    public CsvWriter(Writer out) {
+        this(out, 0);
+    }
+
+    /**
+     * Creates a CsvWriter that formats rows into the given writer. Used by subclasses
+     * that control how and when formatted rows reach the output file.
+     * 
+     * @param out the destination for formatted rows
+     * @param startOffset byte offset of the output file before the first row is written
+     */
+    protected CsvWriter(Writer out, long startOffset) {
+        this.bytesWritten = startOffset;
+        this.writer = new PrintWriter(out);
     }
     
     /**
@@ -39,21 +88,109 @@ public class CsvWriter implements AutoCloseable {
             y = coordinate.y();
         }
         
-        writer.printf("%.2f,%d,%d%n", timestamp, x, y);
+        append(timestamp, String.format("%.2f,%d,%d%n", timestamp, x, y));
+    }
+
+    /**
+     * Writes a data row with a fixed number of coordinate pairs to the CSV file.
+     * 
+     * @param timestamp time in seconds since the start of the video
+     * @param coordinates centroids ordered from the largest group down; may be shorter than pairs
+     * @param pairs the number of coordinate pairs in the row
+     */
+    public void writeRow(double timestamp, List<Coordinate> coordinates, int pairs) {
+        StringBuilder row = new StringBuilder(String.format("%.2f", timestamp));
+        for (int i = 0; i < pairs; i++) {
+            if (i < coordinates.size()) {
+                row.append(',').append(coordinates.get(i).x()).append(',').append(coordinates.get(i).y());
+            } else {
+                row.append(",-1,-1");
+            }
+        }
+        append(timestamp, row.append(System.lineSeparator()).toString());
+    }
+
+    /**
+     * Writes a row for a frame whose labeling was aborted.
+     * 
+     * @param timestamp time in seconds since the start of the video
+     * @param pairs the number of coordinate pairs in the row
+     */
+    public void writeAbortedRow(double timestamp, int pairs) {
+        StringBuilder row = new StringBuilder(String.format("%.2f", timestamp));
+        for (int i = 0; i < pairs; i++) {
+            row.append(",-2,-2");
+        }
+        append(timestamp, row.append(System.lineSeparator()).toString());
+    }
+
+    private void append(double timestamp, String row) {
+        if (seekIndex != null) seekIndex.add(timestamp, bytesWritten);
+        writer.print(row);
+        bytesWritten += row.length(); // rows are plain ASCII, one byte per char
+        rowsWritten++;
+    }
+
+    /**
+     * Attaches a seek index that is given the offset of every row written from now on, written
+     * out on each flush and closed with this writer. Rows already in the file must have been
+     * added to it, as {@link SeekIndex#rebuild(String, long)} does.
+     *
+     * @param seekIndex the index of this writer's output
+     */
+    public void setSeekIndex(SeekIndex.Writer seekIndex) {
+        this.seekIndex = seekIndex;
+    }
+
+    /**
+     * Returns the number of rows written through this writer since it was opened.
+     *
+     * @return the number of rows written
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Returns the size of the output file in bytes once all written rows are flushed,
+     * including any content that was already present when appending.
+     *
+     * @return the byte offset just past the last written row
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
     }
     
     /**
      * Flushes any buffered data to the file.
+     * 
+     * @throws IOException if the data cannot be written
      */
-    public void flush() {
+    public void flush() throws IOException {
         writer.flush();
+        if (seekIndex != null) seekIndex.flush();
+    }
+
+    /**
+     * Marks the output as complete after the last row has been written.
+     * 
+     * @throws IOException if the remaining data cannot be written
+     */
+    public void finish() throws IOException {
+        flush();
     }
     
     /**
      * Closes the writer and releases any system resources associated with it.
+     * 
+     * @throws IOException if the writer cannot be closed
      */
     @Override
-    public void close() {
-        writer.close();
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            if (seekIndex != null) seekIndex.close();
+        }
     }
 } 
\ No newline at end of file
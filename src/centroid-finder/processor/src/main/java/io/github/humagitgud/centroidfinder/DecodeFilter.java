@@ -0,0 +1,148 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.Locale;
+
+/**
+ * An FFmpeg filter graph run on decoded frames before detection: an optional crop, an optional
+ * integer downscale and an optional output frame rate, always ending in the BGR pixel format
+ * that frames are converted from, so no further conversion is needed.
+ *
+ * Detection runs on the filtered frames. {@link #toOriginal(Coordinate)} maps centroids back to
+ * the coordinates of the original frames: a pixel of a downscaled frame maps to the center of
+ * its block, offset by the crop origin.
+ */
+public final class DecodeFilter {
+    private final int cropX;
+    private final int cropY;
+    private final int cropWidth;
+    private final int cropHeight;
+    private final int scale;
+    private final double frameRate;
+
+    /**
+     * Constructs a DecodeFilter.
+     *
+     * @param cropX the left edge of the crop in original frame pixels
+     * @param cropY the top edge of the crop in original frame pixels
+     * @param cropWidth the width of the crop, or 0 not to crop
+     * @param cropHeight the height of the crop, or 0 not to crop
+     * @param scale the downscaling factor applied after cropping, at least 1
+     * @param frameRate the output frame rate, or 0 to keep the video's frame rate
+     */
+    public DecodeFilter(int cropX, int cropY, int cropWidth, int cropHeight, int scale, double frameRate) {
+        if (cropX < 0 || cropY < 0 || cropWidth < 0 || cropHeight < 0 || (cropWidth == 0) != (cropHeight == 0)) {
+            throw new IllegalArgumentException("Crop must have a non-negative origin and both a width and a height");
+        }
+        if (cropWidth == 0 && (cropX > 0 || cropY > 0)) {
+            throw new IllegalArgumentException("Crop origin needs a width and a height");
+        }
+        if (scale < 1) throw new IllegalArgumentException("scale must be at least 1");
+        if (!(frameRate >= 0) || Double.isInfinite(frameRate)) {
+            throw new IllegalArgumentException("frameRate must be positive, or 0 to keep the video's");
+        }
+        this.cropX = cropX;
+        this.cropY = cropY;
+        this.cropWidth = cropWidth;
+        this.cropHeight = cropHeight;
+        this.scale = scale;
+        this.frameRate = frameRate;
+    }
+
+    /**
+     * Parses a crop given as "x:y:width:height", as FFmpeg's crop filter takes it in reverse.
+     *
+     * @param crop the crop rectangle
+     * @return the x, y, width and height
+     * @throws IllegalArgumentException if the crop is malformed
+     */
+    public static int[] parseCrop(String crop) {
+        String[] parts = crop.split(":");
+        if (parts.length != 4) throw new IllegalArgumentException("Crop must be x:y:width:height");
+        int[] values = new int[4];
+        try {
+            for (int i = 0; i < 4; i++) values[i] = Integer.parseInt(parts[i].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Crop must be x:y:width:height");
+        }
+        if (values[0] < 0 || values[1] < 0 || values[2] < 1 || values[3] < 1) {
+            throw new IllegalArgumentException("Crop must have a non-negative origin and a positive size");
+        }
+        return values;
+    }
+
+    /**
+     * Returns the filter graph description passed to FFmpeg.
+     *
+     * @return the filters, separated by commas
+     */
+    public String toFilterGraph() {
+        StringBuilder graph = new StringBuilder();
+        if (cropWidth > 0) {
+            graph.append(String.format("crop=%d:%d:%d:%d,", cropWidth, cropHeight, cropX, cropY));
+        }
+        if (scale > 1) {
+            // point sampling keeps the target color exact, where averaging would blend it into its edges
+            graph.append(String.format("scale=trunc(iw/%d):trunc(ih/%d):flags=neighbor,", scale, scale));
+        }
+        if (frameRate > 0) {
+            graph.append(String.format(Locale.ROOT, "fps=%s,", frameRate));
+        }
+        return graph.append("format=bgr24").toString();
+    }
+
+    /**
+     * Returns a description of the filter for cache keys.
+     *
+     * @return the description
+     */
+    public String describe() {
+        return String.format(Locale.ROOT, "crop=%d:%d:%d:%d;scale=%d;fps=%s",
+                cropX, cropY, cropWidth, cropHeight, scale, frameRate);
+    }
+
+    /**
+     * Maps a centroid found on filtered frames back to original frame coordinates.
+     *
+     * @param centroid the centroid on a filtered frame
+     * @return the centroid on the original frame
+     */
+    public Coordinate toOriginal(Coordinate centroid) {
+        return new Coordinate(cropX + centroid.x() * scale + scale / 2, cropY + centroid.y() * scale + scale / 2);
+    }
+
+    /**
+     * Returns the left edge of the crop.
+     *
+     * @return the offset in original frame pixels, 0 without a crop
+     */
+    public int getCropX() {
+        return cropX;
+    }
+
+    /**
+     * Returns the top edge of the crop.
+     *
+     * @return the offset in original frame pixels, 0 without a crop
+     */
+    public int getCropY() {
+        return cropY;
+    }
+
+    /**
+     * Returns the downscale factor of filtered frames.
+     *
+     * @return the scale factor, 1 for full resolution
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns the output frame rate.
+     *
+     * @return the frame rate, or 0 if the video's frame rate is kept
+     */
+    public double getFrameRate() {
+        return frameRate;
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * The detection engines that can binarize and label decoded frames.
+ *
+ * - java: a {@link BinarizingImageGroupFinder} with the job's color metric and a
+ *   {@link DfsBinaryGroupFinder}
+ * - opencv: an {@link OpenCvGroupFinder}, native code with the same results, Euclidean metric only
+ *
+ * Which one is faster depends on the resolution, how much of each frame matches and the
+ * machine, so an {@link EngineCalibrator} can time them on sample frames and pick one.
+ */
+public enum DetectionEngine {
+    JAVA("java"),
+    OPENCV("opencv");
+
+    private final String name;
+
+    DetectionEngine(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name used to select this engine on the command line.
+     *
+     * @return the engine's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the engine with the given command line name.
+     *
+     * @param name the engine's name
+     * @return the engine
+     * @throws IllegalArgumentException if no engine has that name
+     */
+    public static DetectionEngine fromName(String name) {
+        for (DetectionEngine engine : values()) {
+            if (engine.name.equals(name)) return engine;
+        }
+        throw new IllegalArgumentException("Unknown engine: " + name + " (expected java or opencv)");
+    }
+
+    /**
+     * Returns whether this engine can measure distances with the given metric.
+     *
+     * @param metric the job's color metric
+     * @return true if the engine supports the metric
+     */
+    public boolean supports(ColorMetric metric) {
+        return this == JAVA || metric == ColorMetric.EUCLIDEAN;
+    }
+}
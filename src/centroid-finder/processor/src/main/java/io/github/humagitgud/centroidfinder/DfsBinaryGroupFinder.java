@@ -1,10 +1,44 @@
 package io.github.humagitgud.centroidfinder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.PriorityQueue;
 
 public class DfsBinaryGroupFinder implements BinaryGroupFinder {
+    private final int minGroupSize;
+    private final int maxGroups;
+    private final long maxForeground;
+
+    /**
+     * Creates a finder that reports every group, however many pixels it has.
+     */
+    public DfsBinaryGroupFinder() {
+        this(1, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a finder that prunes groups while labeling.
+     *
+     * Groups smaller than minGroupSize are dropped as soon as they are measured and never
+     * become Group records. If an image has more than maxGroups groups of at least
+     * minGroupSize pixels, or more than maxForeground 1-pixels in total, labeling stops
+     * right away and a LabelingAbortedException is thrown.
+     *
+     * @param minGroupSize the smallest group size to report, at least 1
+     * @param maxGroups the most groups an image may have, at least 1
+     * @param maxForeground the most 1-pixels an image may have, at least 1
+     */
+    public DfsBinaryGroupFinder(int minGroupSize, int maxGroups, long maxForeground) {
+        if (minGroupSize < 1) throw new IllegalArgumentException("minGroupSize must be at least 1");
+        if (maxGroups < 1) throw new IllegalArgumentException("maxGroups must be at least 1");
+        if (maxForeground < 1) throw new IllegalArgumentException("maxForeground must be at least 1");
+        this.minGroupSize = minGroupSize;
+        this.maxGroups = maxGroups;
+        this.maxForeground = maxForeground;
+    }
+
    /**
     * Finds connected pixel groups of 1s in an integer array representing a binary image.
     * 
@@ -27,6 +61,12 @@ public class DfsBinaryGroupFinder implements BinaryGroupFinder {
     * coordinates of the pixels in the group divided by the number of pixels in that group.
     * The division should be done as INTEGER DIVISION.
     *
+    * Each group also carries its Moments (bounding box and coordinate sums up to second
+    * order), accumulated while the group is labeled.
+    *
+    * Groups smaller than the finder's minimum group size are left out. If the image
+    * exceeds the finder's group or foreground limits, a LabelingAbortedException is thrown.
+    *
     * The groups are sorted in DESCENDING order according to Group's compareTo method
     * (size first, then x, then y). That is, the largest group will be first, the 
     * smallest group will be last, and ties will be broken first by descending 
@@ -42,15 +82,14 @@ public class DfsBinaryGroupFinder implements BinaryGroupFinder {
             throw new IllegalArgumentException();
         }
 
-        boolean[][] visited = new boolean[image.length][image[0].length];
+        Labeling labeling = new Labeling(image);
         List<Group> groups = new ArrayList<Group>();
 
         for (int r = 0; r < image.length; r++) {
             for (int c = 0; c < image[0].length; c++) {
-                if (image[r][c] == 1 && !visited[r][c]) {
-                    List<int[]> pixelGroup = new ArrayList<>();
-                    DFS(image, r, c, visited, pixelGroup);
-                    Group group = new Group(pixelGroup.size(), centroidFinder(pixelGroup));
+                if (image[r][c] == 1 && !labeling.visited[r][c]) {
+                    if (!measure(image, r, c, labeling)) continue;
+                    Group group = Group.of(labeling.moments());
                     groups.add(group);
                 }
             }
@@ -60,73 +99,176 @@ public class DfsBinaryGroupFinder implements BinaryGroupFinder {
         return groups;
     }
     
-    // performs DFS adding coordinates to pixelGroup list
-    private void DFS(int[][] grid, int row, int col, boolean[][] visited, List<int[]> pixelGroup) {
+   /**
+    * Finds the k largest connected pixel groups of 1s, following the same rules as
+    * findConnectedGroups.
+    *
+    * The current top k are kept in a min-heap of size k. A component's size and centroid
+    * are compared with the smallest kept group before anything is allocated, so components
+    * that do not make the top k never become Group records and are never sorted.
+    *
+    * @param image a rectangular 2D array containing only 1s and 0s
+    * @param k the maximum number of groups to return, at least 1
+    * @return the k largest groups of connected pixels in descending order
+    */
+    @Override
+    public List<Group> findLargestGroups(int[][] image, int k) {
+        if (image == null) throw new NullPointerException();
+        if (image.length == 0 || image[0] == null || image[0].length == 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+
+        Labeling labeling = new Labeling(image);
+        PriorityQueue<Group> smallestFirst = new PriorityQueue<>(k + 1);
+
+        for (int r = 0; r < image.length; r++) {
+            for (int c = 0; c < image[0].length; c++) {
+                if (image[r][c] == 1 && !labeling.visited[r][c]) {
+                    if (!measure(image, r, c, labeling)) continue;
+
+                    int size = labeling.size;
+                    int centroidX = (int) (labeling.sumX / size);
+                    int centroidY = (int) (labeling.sumY / size);
+
+                    // only build a Group if it beats the smallest one kept so far
+                    if (smallestFirst.size() == k && !beats(size, centroidX, centroidY, smallestFirst.peek())) {
+                        continue;
+                    }
+                    smallestFirst.add(Group.of(labeling.moments()));
+                    if (smallestFirst.size() > k) smallestFirst.poll();
+                }
+            }
+        }
+
+        List<Group> groups = new ArrayList<>(smallestFirst);
+        Collections.sort(groups, Collections.reverseOrder());
+        return groups;
+    }
+
+    // true if a group with this size and centroid would sort after the given group (Group.compareTo order)
+    private static boolean beats(int size, int x, int y, Group other) {
+        if (size != other.size()) return size > other.size();
+        if (x != other.centroid().x()) return x > other.centroid().x();
+        return y > other.centroid().y();
+    }
+
+    // labels the group starting at (row, col); returns false if it is too small to report
+    private boolean measure(int[][] grid, int row, int col, Labeling labeling) {
+        labeling.start(col, row);
+        DFS(grid, row, col, labeling);
+
+        if (labeling.size < minGroupSize) return false;
+        if (++labeling.groups > maxGroups) {
+            throw new LabelingAbortedException("more than " + maxGroups + " groups");
+        }
+        return true;
+    }
+
+    // performs DFS adding each pixel to the running counters; uses an explicit stack
+    // so groups spanning millions of pixels do not overflow the call stack
+    private void DFS(int[][] grid, int row, int col, Labeling labeling) {
         // throw errors if invalid input
         if (grid == null) throw new NullPointerException();
         if (grid.length == 0) throw new IllegalArgumentException();
-        
+
+        boolean[][] visited = labeling.visited;
+        int rows = grid.length;
+        int cols = grid[0].length;
+
         // base cases: if visited skip, if cell is 0 skip
-        if (visited[row][col]) return;
-        if (grid[row][col] == 0) return;
+        if (visited[row][col] || grid[row][col] == 0) return;
 
-        // mark cell as visited
+        // mark cell as visited when it is pushed, so each cell is pushed once
         visited[row][col] = true;
-        
-        // add coordinate to list
-        pixelGroup.add(new int[]{row, col});
+        labeling.push(row, col);
+
+        while (labeling.stackSize > 0) {
+            int cell = labeling.stack[--labeling.stackSize];
+            int r = cell / cols;
+            int c = cell % cols;
 
-        // using helper method get possible moves in the grid
-        List<int[]> moves = possibleMoves(grid, new int[]{row, col});
+            // add coordinate to the counters, row = y and col = x
+            labeling.add(c, r);
+            if (++labeling.foreground > maxForeground) {
+                throw new LabelingAbortedException("more than " + maxForeground + " foreground pixels");
+            }
 
-        // perform DFS recursively move[0] = newRow, move[1] = newCol from the returned moves
-        for (int[] move : moves) {
-            DFS(grid, move[0], move[1], visited, pixelGroup);
+            // explore up, down, left and right
+            if (r > 0 && grid[r - 1][c] != 0 && !visited[r - 1][c]) {
+                visited[r - 1][c] = true;
+                labeling.push(r - 1, c);
+            }
+            if (r < rows - 1 && grid[r + 1][c] != 0 && !visited[r + 1][c]) {
+                visited[r + 1][c] = true;
+                labeling.push(r + 1, c);
+            }
+            if (c > 0 && grid[r][c - 1] != 0 && !visited[r][c - 1]) {
+                visited[r][c - 1] = true;
+                labeling.push(r, c - 1);
+            }
+            if (c < cols - 1 && grid[r][c + 1] != 0 && !visited[r][c + 1]) {
+                visited[r][c + 1] = true;
+                labeling.push(r, c + 1);
+            }
         }
     }
 
-    // possible moves explorer method
-    private List<int[]> possibleMoves(int[][] grid, int[] current) {
-        int curRow = current[0];
-        int curCol = current[1];
+    // running counters for one image; each group's moments are accumulated pixel by pixel,
+    // its pixels are never stored
+    private static final class Labeling {
+        final boolean[][] visited;
+        long foreground;
+        int groups;
+        int size;
+        long sumX;
+        long sumY;
+        long sumXX;
+        long sumYY;
+        long sumXY;
+        int minX;
+        int minY;
+        int maxX;
+        int maxY;
 
-        List<int[]> moves = new ArrayList<>();
+        final int cols;
+        int[] stack = new int[64];
+        int stackSize;
 
-        int[][] directions = new int[][] {
-            {-1, 0},
-            {1, 0},
-            {0, -1},
-            {0, 1}
-        };
+        Labeling(int[][] image) {
+            visited = new boolean[image.length][image[0].length];
+            cols = image[0].length;
+        }
 
-        for (int[] dir : directions) {
-            int newRow = curRow + dir[0];
-            int newCol = curCol + dir[1];
+        void push(int row, int col) {
+            if (stackSize == stack.length) stack = Arrays.copyOf(stack, stackSize * 2);
+            stack[stackSize++] = row * cols + col;
+        }
 
-            if (newRow >= 0 && newRow < grid.length &&
-                newCol >= 0 && newCol < grid[0].length &&
-                grid[newRow][newCol] != 0) {
-                    moves.add(new int[]{newRow, newCol});
-                }
+        // resets the group counters for a group containing (x, y)
+        void start(int x, int y) {
+            size = 0;
+            sumX = sumY = sumXX = sumYY = sumXY = 0;
+            minX = maxX = x;
+            minY = maxY = y;
         }
-        
-        return moves;
-    }
-    
-    // finds centroid
-    private Coordinate centroidFinder(List<int[]> pixelGroup) {
-        int x = 0;
-        int y = 0;
-
-        for (int[] pixel : pixelGroup) {
-            y += pixel[0]; // row = y
-            x += pixel[1]; // col = x
+
+        void add(int x, int y) {
+            size++;
+            sumX += x;
+            sumY += y;
+            sumXX += (long) x * x;
+            sumYY += (long) y * y;
+            sumXY += (long) x * y;
+            if (x < minX) minX = x;
+            if (x > maxX) maxX = x;
+            if (y < minY) minY = y;
+            if (y > maxY) maxY = y;
         }
 
-        int centroidX = x / pixelGroup.size();
-        int centroidY = y / pixelGroup.size();
-        
-        return new Coordinate(centroidX, centroidY);
+        Moments moments() {
+            return new Moments(size, sumX, sumY, sumXX, sumYY, sumXY, minX, minY, maxX, maxY);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Helpers for quantized per-pixel distance maps.
+ * 
+ * A distance map stores, for every pixel of a frame, its color distance to the target color
+ * rounded down to an integer and capped at 255, one byte per pixel in row-major order.
+ * Because thresholds are integers, "floor(distance) < threshold" selects exactly the same pixels
+ * as "distance < threshold" for every threshold up to {@link #MAX_THRESHOLD}, so a map can be
+ * binarized for any such threshold without looking at the frame again.
+ */
+public final class DistanceMap {
+    /** The largest threshold for which a distance map gives the same result as the frame. */
+    public static final int MAX_THRESHOLD = 255;
+
+    private DistanceMap() {}
+
+    /**
+     * Computes the distance map of an image.
+     *
+     * @param image the frame to measure
+     * @param distanceFinder the metric used to compare colors
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @return one byte per pixel holding min(floor(distance), 255)
+     */
+    public static byte[] compute(BufferedImage image, ColorDistanceFinder distanceFinder, int targetColor) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] map = new byte[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int pixelColor = image.getRGB(x, y) & 0xFFFFFF;
+                double distance = distanceFinder.distance(pixelColor, targetColor);
+                map[y * width + x] = (byte) Math.min((int) distance, MAX_THRESHOLD);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Binarizes a distance map. A pixel is white (1) if its stored distance is less than the threshold.
+     *
+     * @param map the distance map in row-major order
+     * @param width the frame width
+     * @param height the frame height
+     * @param threshold the distance threshold, at most {@link #MAX_THRESHOLD}
+     * @return a 2D binary array where 1 represents white and 0 represents black
+     */
+    public static int[][] threshold(byte[] map, int width, int height, int threshold) {
+        int[][] binarized = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                if ((map[row + x] & 0xFF) < threshold) binarized[y][x] = 1;
+            }
+        }
+        return binarized;
+    }
+}
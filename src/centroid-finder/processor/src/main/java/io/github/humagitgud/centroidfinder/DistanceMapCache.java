@@ -0,0 +1,298 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A directory of recorded distance maps (see {@link DistanceMap}), one file per video and target color.
+ * 
+ * A later run with the same video and target color but a different threshold reads the maps
+ * instead of decoding the video and computing color distances again.
+ * 
+ * Each "<videoHash>-<key>.dmap" file starts with a header (magic, video hash, width, height,
+ * frame rate, frame count) followed by one deflate-compressed block per frame, each prefixed
+ * with its compressed length. The video hash in the header is checked when the file is opened.
+ * Files are written under a temporary name and renamed once every frame has been recorded.
+ */
+public class DistanceMapCache {
+    private static final int MAGIC = 0x4346444D; // "CFDM"
+    private static final int HASH_LENGTH = 64;
+
+    private final Path directory;
+
+    /**
+     * Creates a DistanceMapCache stored in the given directory.
+     *
+     * @param directory the cache directory, created if it does not exist
+     * @throws IOException if the directory cannot be created
+     */
+    public DistanceMapCache(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Opens the recorded maps for a video.
+     *
+     * @param videoHash the content hash of the video (see {@link VideoHash})
+     * @param key identifies the target color and metric the maps were computed with
+     * @return a reader over the maps, or null if none were recorded for this video and key
+     * @throws IOException if the file cannot be read
+     */
+    public Reader open(String videoHash, String key) throws IOException {
+        Path path = entryPath(videoHash, key);
+        if (!Files.exists(path)) return null;
+
+        Reader reader = new Reader(path);
+        if (!reader.videoHash.equals(videoHash)) {
+            reader.close();
+            return null;
+        }
+        return reader;
+    }
+
+    /**
+     * Starts recording maps for a video. The maps become visible to readers after
+     * {@link Writer#commit()}.
+     *
+     * @param videoHash the content hash of the video (see {@link VideoHash})
+     * @param key identifies the target color and metric the maps are computed with
+     * @param frameRate the frame rate of the video
+     * @return a writer for the video's maps
+     * @throws IOException if the file cannot be created
+     */
+    public Writer create(String videoHash, String key, double frameRate) throws IOException {
+        return new Writer(entryPath(videoHash, key), videoHash, frameRate);
+    }
+
+    private Path entryPath(String videoHash, String key) {
+        return directory.resolve(videoHash + "-" + key + ".dmap");
+    }
+
+    /**
+     * Reads recorded distance maps frame by frame.
+     */
+    public static class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater();
+        private final String videoHash;
+        private final int width;
+        private final int height;
+        private final double frameRate;
+        private final int frameCount;
+        private byte[] compressed = new byte[0];
+        private byte[] map;
+        private int nextFrame;
+
+        private Reader(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            try {
+                if (in.readInt() != MAGIC) throw new IOException("Invalid distance map file: " + path);
+                this.videoHash = new String(in.readNBytes(HASH_LENGTH), StandardCharsets.US_ASCII);
+                this.width = in.readInt();
+                this.height = in.readInt();
+                this.frameRate = in.readDouble();
+                this.frameCount = in.readInt();
+            } catch (EOFException e) {
+                in.close();
+                throw new IOException("Truncated distance map file: " + path, e);
+            }
+        }
+
+        /**
+         * Returns the width of the recorded frames.
+         *
+         * @return the frame width in pixels
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * Returns the height of the recorded frames.
+         *
+         * @return the frame height in pixels
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * Returns the frame rate of the recorded video.
+         *
+         * @return the frame rate in frames per second
+         */
+        public double getFrameRate() {
+            return frameRate;
+        }
+
+        /**
+         * Skips forward so the next call to {@link #next()} reads the given frame.
+         *
+         * @param frameNumber zero-based index of the next frame to read
+         * @throws IOException if the file cannot be read
+         */
+        public void skipTo(int frameNumber) throws IOException {
+            while (nextFrame < frameNumber && nextFrame < frameCount) {
+                in.skipNBytes(in.readInt());
+                nextFrame++;
+            }
+        }
+
+        /**
+         * Reads the next frame's map.
+         *
+         * @return true if a map was read, false after the last frame
+         * @throws IOException if the file cannot be read or is corrupt
+         */
+        public boolean next() throws IOException {
+            if (nextFrame >= frameCount) return false;
+
+            int length = in.readInt();
+            if (compressed.length < length) compressed = new byte[length];
+            in.readFully(compressed, 0, length);
+
+            map = new byte[width * height];
+            inflater.reset();
+            inflater.setInput(compressed, 0, length);
+            try {
+                if (inflater.inflate(map) != map.length) {
+                    throw new IOException("Corrupt distance map at frame " + nextFrame);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt distance map at frame " + nextFrame, e);
+            }
+            nextFrame++;
+            return true;
+        }
+
+        /**
+         * Returns the map read by the last call to {@link #next()}.
+         *
+         * @return one byte per pixel in row-major order
+         */
+        public byte[] getMap() {
+            return map;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+    }
+
+    /**
+     * Records distance maps frame by frame into a temporary file. Closing an uncommitted
+     * writer discards the recording.
+     */
+    public static class Writer implements AutoCloseable {
+        private final Path path;
+        private final Path temp;
+        private final String videoHash;
+        private final double frameRate;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private DataOutputStream out;
+        private byte[] compressed = new byte[0];
+        private int width = -1;
+        private int height = -1;
+        private int frameCount;
+
+        private Writer(Path path, String videoHash, double frameRate) throws IOException {
+            this.path = path;
+            this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+            this.videoHash = videoHash;
+            this.frameRate = frameRate;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+        }
+
+        /**
+         * Appends the map of the next frame.
+         *
+         * @param map one byte per pixel in row-major order
+         * @param width the frame width
+         * @param height the frame height
+         * @throws IOException if the map cannot be written
+         */
+        public void append(byte[] map, int width, int height) throws IOException {
+            if (out == null) return;
+            if (this.width < 0) {
+                this.width = width;
+                this.height = height;
+                writeHeader();
+            } else if (width != this.width || height != this.height) {
+                throw new IOException("Frame size changed from " + this.width + "x" + this.height);
+            }
+
+            if (compressed.length < map.length + 64) compressed = new byte[map.length + map.length / 8 + 64];
+            deflater.reset();
+            deflater.setInput(map);
+            deflater.finish();
+            int length = deflater.deflate(compressed);
+            if (!deflater.finished()) throw new IOException("Distance map did not fit the compression buffer");
+            out.writeInt(length);
+            out.write(compressed, 0, length);
+            frameCount++;
+        }
+
+        /**
+         * Finishes the file and makes it visible to readers.
+         *
+         * @throws IOException if the file cannot be written or moved into place
+         */
+        public void commit() throws IOException {
+            if (out == null) return;
+            if (width < 0) writeHeader();
+            out.close();
+            out = null;
+
+            // the frame count is only known at the end, patch it into the header
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.seek(Integer.BYTES + HASH_LENGTH + 2 * Integer.BYTES + Double.BYTES);
+                file.writeInt(frameCount);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /**
+         * Discards the recording, for example when a frame could not be decoded.
+         * Later appends and the commit are ignored.
+         *
+         * @throws IOException if the temporary file cannot be deleted
+         */
+        public void abandon() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            deflater.end();
+            abandon();
+        }
+
+        private void writeHeader() throws IOException {
+            out.writeInt(MAGIC);
+            out.write(videoHash.getBytes(StandardCharsets.US_ASCII), 0, HASH_LENGTH);
+            out.writeInt(Math.max(width, 0));
+            out.writeInt(Math.max(height, 0));
+            out.writeDouble(frameRate);
+            out.writeInt(0);
+        }
+    }
+}
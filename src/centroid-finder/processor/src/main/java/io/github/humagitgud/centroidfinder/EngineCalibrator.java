@@ -0,0 +1,135 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times several ImageGroupFinders on the same sample frames and picks the fastest one that
+ * agrees with the first.
+ *
+ * The first candidate is the reference. Every other candidate must return exactly the same
+ * groups on every sample frame (or abort the same frames) to be eligible, so choosing the winner
+ * never changes the output. Each candidate is run once to warm up (JIT compilation, native
+ * buffers, lookup tables) and then timed over several rounds; its best round counts.
+ */
+public class EngineCalibrator {
+
+    /**
+     * The measurement of one candidate.
+     *
+     * @param name the candidate's name
+     * @param nanos the best time of one pass over all sample frames, in nanoseconds
+     * @param agrees whether the candidate returned the same groups as the reference on every frame
+     */
+    public record Timing(String name, long nanos, boolean agrees) {}
+
+    /**
+     * The outcome of a calibration.
+     *
+     * @param winner the name of the fastest agreeing candidate
+     * @param timings the measurements of every candidate, in candidate order
+     */
+    public record Result(String winner, List<Timing> timings) {}
+
+    private final int rounds;
+
+    /**
+     * Constructs an EngineCalibrator.
+     *
+     * @param rounds the number of timed passes over the sample frames, at least 1
+     */
+    public EngineCalibrator(int rounds) {
+        if (rounds < 1) throw new IllegalArgumentException("rounds must be at least 1");
+        this.rounds = rounds;
+    }
+
+    /**
+     * Times every candidate on the sample frames.
+     *
+     * @param candidates the candidates by name, in order; the first is the reference
+     * @param frames the sample frames
+     * @return the winner and every candidate's timing
+     */
+    public Result calibrate(Map<String, ? extends ImageGroupFinder> candidates, List<BufferedImage> frames) {
+        if (candidates.isEmpty()) throw new IllegalArgumentException("No candidates to calibrate");
+
+        List<Timing> timings = new ArrayList<>();
+        List<List<Group>> reference = null;
+        Timing winner = null;
+        for (Map.Entry<String, ? extends ImageGroupFinder> candidate : candidates.entrySet()) {
+            ImageGroupFinder finder = candidate.getValue();
+            List<List<Group>> results = run(finder, frames);
+            if (reference == null) reference = results;
+
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                run(finder, frames);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+
+            Timing timing = new Timing(candidate.getKey(), best, results.equals(reference));
+            timings.add(timing);
+            if (timing.agrees() && (winner == null || timing.nanos() < winner.nanos())) {
+                winner = timing;
+            }
+        }
+        return new Result(winner.name(), timings);
+    }
+
+    /**
+     * Decodes sample frames spread evenly over a video.
+     *
+     * @param inputPath path to the input video file
+     * @param count the number of frames to sample, at least 1
+     * @return the decoded frames, fewer than count if the video is shorter
+     * @throws IOException if the video cannot be decoded
+     */
+    public static List<BufferedImage> sampleFrames(String inputPath, int count) throws IOException {
+        return sampleFrames(inputPath, count, null);
+    }
+
+    /**
+     * Decodes sample frames spread evenly over a video, through a decode filter.
+     *
+     * @param inputPath path to the input video file
+     * @param count the number of frames to sample, at least 1
+     * @param decodeFilter the filter applied to decoded frames, or null for none
+     * @return the filtered frames, fewer than count if the video is shorter
+     * @throws IOException if the video cannot be decoded
+     */
+    public static List<BufferedImage> sampleFrames(String inputPath, int count, DecodeFilter decodeFilter) throws IOException {
+        if (count < 1) throw new IllegalArgumentException("count must be at least 1");
+        List<BufferedImage> frames = new ArrayList<>();
+        try (GrabberFrameSource source = new GrabberFrameSource(inputPath, decodeFilter)) {
+            int stride = Math.max(1, source.getLengthInFrames() / count);
+            for (int i = 0; i < count; i++) {
+                if (i > 0 && stride > 1) source.seekToFrame(i * stride);
+                if (!source.grab()) break;
+                // the converter reuses its image, so keep a copy
+                BufferedImage image = source.getImage();
+                if (image != null) {
+                    frames.add(new BufferedImage(image.getColorModel(), image.copyData(null),
+                            image.isAlphaPremultiplied(), null));
+                }
+            }
+        }
+        return frames;
+    }
+
+    // the groups of every frame, or null for frames whose labeling was aborted
+    private static List<List<Group>> run(ImageGroupFinder finder, List<BufferedImage> frames) {
+        List<List<Group>> results = new ArrayList<>();
+        for (BufferedImage frame : frames) {
+            try {
+                results.add(finder.findConnectedGroups(frame));
+            } catch (LabelingAbortedException e) {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Detection engine recommendations from earlier calibrations, kept in a small text file.
+ *
+ * Each line is "<setup>=<engine>", where the setup describes what the engine's speed depends
+ * on (see {@link VideoProcessor#calibrateEngine(int, EngineProfile)}), so a camera only needs
+ * to be calibrated once per machine. Lines naming an unknown engine are ignored. The file is
+ * replaced atomically when a recommendation is added.
+ */
+public class EngineProfile {
+    private final Path path;
+    private final Map<String, DetectionEngine> recommendations = new TreeMap<>();
+
+    private EngineProfile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads a profile, or starts an empty one if the file does not exist.
+     *
+     * @param path path to the profile file
+     * @return the profile
+     * @throws IOException if the file exists but cannot be read
+     */
+    public static EngineProfile read(Path path) throws IOException {
+        EngineProfile profile = new EngineProfile(path);
+        if (!Files.exists(path)) return profile;
+
+        for (String line : Files.readAllLines(path)) {
+            int separator = line.lastIndexOf('=');
+            if (separator < 0) continue;
+            try {
+                profile.recommendations.put(line.substring(0, separator).trim(),
+                        DetectionEngine.fromName(line.substring(separator + 1).trim()));
+            } catch (IllegalArgumentException e) {
+                // written by a version with other engines
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Returns the engine recommended for a setup.
+     *
+     * @param setup the setup description
+     * @return the recommended engine, or null if the setup has not been calibrated
+     */
+    public DetectionEngine get(String setup) {
+        return recommendations.get(setup);
+    }
+
+    /**
+     * Records the engine recommended for a setup, replacing any earlier recommendation.
+     *
+     * @param setup the setup description
+     * @param engine the recommended engine
+     */
+    public void put(String setup, DetectionEngine engine) {
+        recommendations.put(setup, engine);
+    }
+
+    /**
+     * Atomically writes the profile to its file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void write() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, DetectionEngine> entry : recommendations.entrySet()) {
+            content.append(entry.getKey()).append('=').append(entry.getValue().getName()).append('\n');
+        }
+        AtomicFiles.writeString(path, content.toString());
+    }
+}
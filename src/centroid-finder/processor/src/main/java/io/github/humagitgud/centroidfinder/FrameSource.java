@@ -0,0 +1,61 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * A sequential source of video frames for the VideoProcessor.
+ * 
+ * Frames are read by calling {@link #grab()} to advance to the next frame and then
+ * {@link #getImage()} to access it, similar to how FFmpegFrameGrabber is used.
+ */
+interface FrameSource extends AutoCloseable {
+
+    /**
+     * Returns the frame rate of the video in frames per second.
+     *
+     * @return the frame rate
+     */
+    double getFrameRate();
+
+    /**
+     * Positions the source so that the next call to {@link #grab()} returns the given frame.
+     *
+     * @param frameNumber zero-based index of the next frame to read
+     * @throws IOException if the source cannot seek to the frame
+     */
+    void seekToFrame(int frameNumber) throws IOException;
+
+    /**
+     * Advances to the next frame.
+     *
+     * @return true if a frame was read, false at the end of the video
+     * @throws IOException if the frame cannot be read
+     */
+    boolean grab() throws IOException;
+
+    /**
+     * Returns the image of the current frame.
+     *
+     * @return the current frame, or null if it could not be converted to an image
+     */
+    BufferedImage getImage();
+
+    /**
+     * Returns the planes of the current frame, for sources that decode to YUV without
+     * converting to RGB.
+     *
+     * @return the current frame's YUV planes, or null if this source only provides images
+     */
+    default YuvFrame getYuvFrame() {
+        return null;
+    }
+
+    /**
+     * Releases the resources held by this source.
+     *
+     * @throws IOException if the source cannot be closed
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,374 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A persistent store of decoded video frames, so later runs on the same video can skip decoding.
+ * 
+ * Each stored video lives in its own directory named "<videoHash>-<variant>" containing:
+ * - frames.raw: every frame's raw pixels back to back
+ * - index.bin: a fixed-size header (width, height, bytes per pixel, scale, frame rate, frame count)
+ *   followed by one 8-byte file offset per frame
+ * 
+ * Frames can be stored at full resolution or downscaled by an integer factor (keeping the top-left
+ * pixel of each block), and either as 24-bit BGR or as 16-bit RGB565. Detection always runs on the
+ * stored representation, both while recording and when reading back, so every run over the same
+ * store variant produces the same output. Centroids found on downscaled frames are mapped back to
+ * original coordinates by the VideoProcessor.
+ * 
+ * Stored videos are read through memory-mapped files (see {@link StoredFrameSource}). The store
+ * has a disk budget; after a video is added, whole videos are evicted least recently used first
+ * until the store fits again. A video that alone exceeds the budget is not stored.
+ */
+public class FrameStore {
+    static final int MAGIC = 0x43464653; // "CFFS"
+    static final int HEADER_BYTES = 6 * Integer.BYTES + Double.BYTES + Integer.BYTES;
+    static final String FRAMES_FILE = "frames.raw";
+    static final String INDEX_FILE = "index.bin";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int scale;
+    private final boolean reducedColor;
+
+    /**
+     * Creates a FrameStore in the given directory.
+     *
+     * @param directory the store directory, created if it does not exist
+     * @param maxBytes the disk budget for all stored videos in bytes
+     * @param scale the integer downscale factor applied to stored frames (1 keeps full resolution)
+     * @param reducedColor true to store 16-bit RGB565 pixels instead of 24-bit BGR
+     * @throws IOException if the directory cannot be created
+     */
+    public FrameStore(Path directory, long maxBytes, int scale, boolean reducedColor) throws IOException {
+        if (scale < 1) throw new IllegalArgumentException("Scale must be at least 1");
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.scale = scale;
+        this.reducedColor = reducedColor;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Returns the downscale factor of stored frames.
+     *
+     * @return the scale factor, 1 for full resolution
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Returns a short name for the frame representation, used in directory names and cache keys.
+     *
+     * @return the variant name, for example "s1-bgr24" or "s2-rgb565"
+     */
+    public String getVariant() {
+        return "s" + scale + (reducedColor ? "-rgb565" : "-bgr24");
+    }
+
+    /**
+     * Returns whether stored frames lose information compared to the decoded frames.
+     *
+     * @return true if frames are downscaled or color reduced
+     */
+    public boolean isLossy() {
+        return scale > 1 || reducedColor;
+    }
+
+    /**
+     * Returns whether a video is stored, without opening it or refreshing its LRU position.
+     *
+     * @param videoHash the content hash of the video (see {@link VideoHash})
+     * @return true if the video is stored and complete
+     */
+    public boolean contains(String videoHash) {
+        return Files.exists(entryPath(videoHash).resolve(INDEX_FILE));
+    }
+
+    /**
+     * Opens a stored video for reading.
+     *
+     * @param videoHash the content hash of the video (see {@link VideoHash})
+     * @return a frame source reading from the store, or null if the video is not stored
+     * @throws IOException if the stored video cannot be opened
+     */
+    public StoredFrameSource open(String videoHash) throws IOException {
+        Path entry = entryPath(videoHash);
+        if (!Files.exists(entry.resolve(INDEX_FILE))) return null;
+
+        // refresh the entry's position in the LRU order
+        Files.setLastModifiedTime(entry.resolve(INDEX_FILE), FileTime.fromMillis(System.currentTimeMillis()));
+        return new StoredFrameSource(entry.resolve(FRAMES_FILE), entry.resolve(INDEX_FILE));
+    }
+
+    /**
+     * Starts recording a video into the store. Frames passed to the recorder must come from
+     * {@link #convert(BufferedImage)}; the video becomes visible to readers only after
+     * {@link Recorder#commit()}.
+     *
+     * @param videoHash the content hash of the video (see {@link VideoHash})
+     * @param frameRate the frame rate of the video
+     * @return a recorder for the video's frames
+     * @throws IOException if the recording cannot be started
+     */
+    public Recorder record(String videoHash, double frameRate) throws IOException {
+        return new Recorder(entryPath(videoHash), frameRate);
+    }
+
+    /**
+     * Converts a decoded frame into the stored representation.
+     *
+     * @param frame the decoded frame
+     * @return a new image in the stored representation, backed by a heap buffer
+     */
+    public BufferedImage convert(BufferedImage frame) {
+        int width = (frame.getWidth() + scale - 1) / scale;
+        int height = (frame.getHeight() + scale - 1) / scale;
+        ByteBuffer data = ByteBuffer.allocate(width * height * bytesPerPixel(reducedColor));
+
+        // read bytes straight from 3-byte BGR frames, as produced by the grabber
+        byte[] bgr = null;
+        int stride = 0;
+        if (frame.getType() == BufferedImage.TYPE_3BYTE_BGR
+                && frame.getRaster().getDataBuffer() instanceof DataBufferByte bytes
+                && frame.getRaster().getSampleModel() instanceof ComponentSampleModel model) {
+            bgr = bytes.getData();
+            stride = model.getScanlineStride();
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb;
+                if (bgr != null) {
+                    int i = y * scale * stride + x * scale * 3;
+                    rgb = (bgr[i + 2] & 0xFF) << 16 | (bgr[i + 1] & 0xFF) << 8 | (bgr[i] & 0xFF);
+                } else {
+                    rgb = frame.getRGB(x * scale, y * scale) & 0xFFFFFF;
+                }
+
+                if (reducedColor) {
+                    int r = (rgb >> 19) & 0x1F;
+                    int g = (rgb >> 10) & 0x3F;
+                    int b = (rgb >> 3) & 0x1F;
+                    data.putShort((short) (r << 11 | g << 5 | b));
+                } else {
+                    data.put((byte) rgb).put((byte) (rgb >> 8)).put((byte) (rgb >> 16));
+                }
+            }
+        }
+        return wrap(data.clear(), width, height, reducedColor);
+    }
+
+    /**
+     * Wraps raw stored pixels as a BufferedImage without copying them.
+     *
+     * @param data the pixel data of one frame, starting at index 0
+     * @param width the frame width
+     * @param height the frame height
+     * @param reducedColor true if the pixels are RGB565, false if they are BGR
+     * @return an image backed by the given buffer
+     */
+    static BufferedImage wrap(ByteBuffer data, int width, int height, boolean reducedColor) {
+        SampleModel sampleModel;
+        ColorModel colorModel;
+        DataBuffer dataBuffer;
+        if (reducedColor) {
+            int[] masks = {0xF800, 0x07E0, 0x001F};
+            dataBuffer = new ByteBufferDataBuffer(data, DataBuffer.TYPE_USHORT, width * height);
+            sampleModel = new SinglePixelPackedSampleModel(DataBuffer.TYPE_USHORT, width, height, masks);
+            colorModel = new DirectColorModel(16, masks[0], masks[1], masks[2]);
+        } else {
+            dataBuffer = new ByteBufferDataBuffer(data, DataBuffer.TYPE_BYTE, width * height * 3);
+            sampleModel = new PixelInterleavedSampleModel(DataBuffer.TYPE_BYTE, width, height, 3, width * 3, new int[] {2, 1, 0});
+            colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), new int[] {8, 8, 8},
+                    false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE);
+        }
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    static int bytesPerPixel(boolean reducedColor) {
+        return reducedColor ? 2 : 3;
+    }
+
+    private Path entryPath(String videoHash) {
+        return directory.resolve(videoHash + "-" + getVariant());
+    }
+
+    // deletes least recently used videos until the store fits in maxBytes
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(directory)) {
+            dirs.filter(p -> Files.exists(p.resolve(INDEX_FILE))).forEach(entries::add);
+        }
+
+        long total = 0;
+        for (Path entry : entries) {
+            total += entrySize(entry);
+        }
+        if (total <= maxBytes) return;
+
+        entries.sort(Comparator.comparing(FrameStore::lastUsed));
+        for (Path entry : entries) {
+            if (total <= maxBytes) break;
+            total -= entrySize(entry);
+            deleteEntry(entry);
+        }
+    }
+
+    private static long entrySize(Path entry) throws IOException {
+        return Files.size(entry.resolve(FRAMES_FILE)) + Files.size(entry.resolve(INDEX_FILE));
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry.resolve(INDEX_FILE));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteEntry(Path entry) throws IOException {
+        // remove the index first so readers stop treating the entry as complete
+        Files.deleteIfExists(entry.resolve(INDEX_FILE));
+        Files.deleteIfExists(entry.resolve(FRAMES_FILE));
+        Files.deleteIfExists(entry);
+    }
+
+    /**
+     * Writes the frames of one video into the store.
+     * 
+     * Frames are appended to a temporary directory which is renamed into place on commit.
+     * If the video grows beyond the store's disk budget, or a frame is missing, the recording
+     * is abandoned and nothing is stored. Closing an uncommitted recorder discards it.
+     */
+    public class Recorder implements AutoCloseable {
+        private final Path entry;
+        private final Path temp;
+        private final double frameRate;
+        private FileChannel channel;
+        private int width = -1;
+        private int height = -1;
+        private int frameCount;
+        private long bytesWritten;
+
+        private Recorder(Path entry, double frameRate) throws IOException {
+            this.entry = entry;
+            this.frameRate = frameRate;
+            this.temp = Files.createTempDirectory(directory, entry.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp.resolve(FRAMES_FILE), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Appends a frame produced by {@link FrameStore#convert(BufferedImage)}.
+         *
+         * @param frame the converted frame, or null if the frame could not be decoded
+         * @throws IOException if the frame cannot be written
+         */
+        public void append(BufferedImage frame) throws IOException {
+            if (channel == null) return;
+            if (frame == null || !(frame.getRaster().getDataBuffer() instanceof ByteBufferDataBuffer data)) {
+                abandon("frame could not be stored");
+                return;
+            }
+            if (width < 0) {
+                width = frame.getWidth();
+                height = frame.getHeight();
+            }
+
+            ByteBuffer pixels = data.getBuffer().duplicate().clear();
+            if (bytesWritten + pixels.remaining() > maxBytes) {
+                abandon("video exceeds the frame store budget");
+                return;
+            }
+            bytesWritten += pixels.remaining();
+            while (pixels.hasRemaining()) {
+                channel.write(pixels);
+            }
+            frameCount++;
+        }
+
+        /**
+         * Writes the index and makes the stored video visible to readers.
+         *
+         * @throws IOException if the index cannot be written or the video cannot be moved into place
+         */
+        public void commit() throws IOException {
+            if (channel == null) return;
+            channel.close();
+            channel = null;
+
+            long frameSize = (long) width * height * bytesPerPixel(reducedColor);
+            ByteBuffer index = ByteBuffer.allocate(HEADER_BYTES + frameCount * Long.BYTES);
+            index.putInt(MAGIC).putInt(width).putInt(height).putInt(bytesPerPixel(reducedColor))
+                    .putInt(scale).putInt(reducedColor ? 1 : 0).putDouble(frameRate).putInt(frameCount);
+            for (int i = 0; i < frameCount; i++) {
+                index.putLong(i * frameSize);
+            }
+            Files.write(temp.resolve(INDEX_FILE), index.array());
+
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // another run stored the same video first
+                deleteTemp();
+                return;
+            }
+            System.out.println("Stored " + frameCount + " frames in frame store: " + entry);
+            evict();
+        }
+
+        /**
+         * Discards the recording unless it was committed.
+         *
+         * @throws IOException if the temporary files cannot be deleted
+         */
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+                deleteTemp();
+            }
+        }
+
+        private void abandon(String reason) throws IOException {
+            System.out.println("Not storing frames: " + reason);
+            close();
+        }
+
+        private void deleteTemp() throws IOException {
+            Files.deleteIfExists(temp.resolve(INDEX_FILE));
+            Files.deleteIfExists(temp.resolve(FRAMES_FILE));
+            Files.deleteIfExists(temp);
+        }
+    }
+}
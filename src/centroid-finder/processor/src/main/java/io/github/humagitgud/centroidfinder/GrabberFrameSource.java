@@ -0,0 +1,295 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import org.bytedeco.ffmpeg.avutil.AVFrame;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameFilter;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+
+/**
+ * A FrameSource that decodes a video file with FFmpegFrameGrabber.
+ *
+ * In YUV mode frames are not converted to RGB at all: the decoder's YUV 4:2:0 planes are
+ * exposed through {@link #getYuvFrame()} and {@link #getImage()} returns null.
+ *
+ * With a {@link DecodeFilter}, every decoded frame goes through an FFmpegFrameFilter before it
+ * is converted, so frames are cropped, downscaled and resampled in native code. Frame numbers,
+ * the frame rate and seeking are then those of the filtered frames.
+ */
+class GrabberFrameSource implements FrameSource {
+    private final FFmpegFrameGrabber grabber;
+    private final Java2DFrameConverter converter = new Java2DFrameConverter();
+    private final boolean yuv;
+    private final FFmpegFrameFilter filter;
+    private final double filterRate;
+    private BufferedImage image;
+    private Frame frame;
+    private Frame packed;
+    private boolean filterDrained;
+
+    /**
+     * Opens the video file and starts decoding to images.
+     *
+     * @param inputPath path to the input video file
+     * @throws IOException if the video cannot be opened
+     */
+    GrabberFrameSource(String inputPath) throws IOException {
+        this(inputPath, false);
+    }
+
+    /**
+     * Opens the video file and starts decoding.
+     *
+     * @param inputPath path to the input video file
+     * @param yuv true to provide YUV 4:2:0 planes instead of images
+     * @throws IOException if the video cannot be opened
+     */
+    GrabberFrameSource(String inputPath, boolean yuv) throws IOException {
+        this(new FFmpegFrameGrabber(inputPath), yuv, null);
+    }
+
+    /**
+     * Opens the video file and starts decoding to images through a filter graph.
+     *
+     * @param inputPath path to the input video file
+     * @param decodeFilter the filter applied to every decoded frame, or null for none
+     * @throws IOException if the video cannot be opened or the filter cannot be started
+     */
+    GrabberFrameSource(String inputPath, DecodeFilter decodeFilter) throws IOException {
+        this(new FFmpegFrameGrabber(inputPath), false, decodeFilter);
+    }
+
+    private GrabberFrameSource(FFmpegFrameGrabber grabber, boolean yuv, DecodeFilter decodeFilter) throws IOException {
+        this.grabber = grabber;
+        this.yuv = yuv;
+        if (yuv || decodeFilter != null) {
+            // yuv420p is what H.264 decodes to, so no colorspace conversion runs; a filter
+            // converts to BGR itself, after cropping and downscaling
+            grabber.setPixelFormat(avutil.AV_PIX_FMT_YUV420P);
+        }
+        grabber.start();
+        if (decodeFilter == null) {
+            this.filter = null;
+            this.filterRate = 0;
+            return;
+        }
+        this.filterRate = decodeFilter.getFrameRate();
+        this.filter = new FFmpegFrameFilter(decodeFilter.toFilterGraph(), grabber.getImageWidth(), grabber.getImageHeight());
+        filter.setPixelFormat(grabber.getPixelFormat());
+        filter.setFrameRate(grabber.getFrameRate());
+        filter.setAspectRatio(grabber.getAspectRatio());
+        try {
+            filter.start();
+        } catch (FFmpegFrameFilter.Exception e) {
+            grabber.close();
+            throw new IOException("Cannot start filter " + decodeFilter.toFilterGraph(), e);
+        }
+    }
+
+    /**
+     * Opens a live stream, such as a named pipe or a local stream URL, with demuxer buffering
+     * turned off so frames are delivered as soon as they are decoded.
+     *
+     * @param inputPath path or URL of the stream
+     * @return the source, decoding to images
+     * @throws IOException if the stream cannot be opened
+     */
+    static GrabberFrameSource live(String inputPath) throws IOException {
+        FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputPath);
+        grabber.setOption("fflags", "nobuffer");
+        grabber.setOption("flags", "low_delay");
+        return new GrabberFrameSource(grabber, false, null);
+    }
+
+    @Override
+    public double getFrameRate() {
+        return filterRate > 0 ? filterRate : grabber.getFrameRate();
+    }
+
+    /**
+     * Opens a video and decodes only its keyframes; the decoder skips every other frame.
+     *
+     * @param inputPath path to the input video file
+     * @return the source, decoding keyframes to images
+     * @throws IOException if the video cannot be opened
+     */
+    static GrabberFrameSource keyframes(String inputPath) throws IOException {
+        FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputPath);
+        grabber.setVideoOption("skip_frame", "nokey");
+        return new GrabberFrameSource(grabber, false, null);
+    }
+
+    /**
+     * Returns the number of the current frame, from its timestamp.
+     *
+     * @return the zero-based frame number of the last grabbed frame
+     */
+    long getFrameNumber() {
+        return grabber.getFrameNumber();
+    }
+
+    /**
+     * Returns the width of the video's frames as decoded, before any filter.
+     *
+     * @return the width in pixels
+     */
+    int getVideoWidth() {
+        return grabber.getImageWidth();
+    }
+
+    /**
+     * Returns the height of the video's frames as decoded, before any filter.
+     *
+     * @return the height in pixels
+     */
+    int getVideoHeight() {
+        return grabber.getImageHeight();
+    }
+
+    /**
+     * Returns the number of frames in the video, as estimated from the container.
+     *
+     * @return the estimated frame count
+     */
+    int getLengthInFrames() {
+        int length = grabber.getLengthInFrames();
+        return filterRate > 0 ? (int) Math.round(length * filterRate / grabber.getFrameRate()) : length;
+    }
+
+    /**
+     * Seeks to the keyframe before the target and decodes forward to it.
+     */
+    @Override
+    public void seekToFrame(int frameNumber) throws IOException {
+        if (filter == null) {
+            grabber.setVideoFrameNumber(frameNumber);
+            return;
+        }
+        // frame numbers count filtered frames, which differ from decoded ones at another frame rate
+        grabber.setVideoFrameNumber(filterRate > 0
+                ? (int) Math.round(frameNumber * grabber.getFrameRate() / filterRate) : frameNumber);
+        try {
+            // the fps filter must not see timestamps going backwards
+            filter.stop();
+            filter.start();
+            filterDrained = false;
+        } catch (FFmpegFrameFilter.Exception e) {
+            throw new IOException("Cannot restart filter after seeking", e);
+        }
+    }
+
+    @Override
+    public boolean grab() throws IOException {
+        frame = filter == null ? grabber.grabImage() : grabFiltered();
+        if (frame == null) return false;
+        image = yuv ? null : converter.convert(frame);
+        return true;
+    }
+
+    // pushes decoded frames through the filter until it puts one out; an fps filter may drop or repeat frames
+    private Frame grabFiltered() throws IOException {
+        while (true) {
+            Frame filtered = filter.pull();
+            if (filtered != null) return filtered;
+            if (filterDrained) return null;
+            Frame decoded = grabber.grabImage();
+            if (decoded == null) {
+                // the fps filter holds back its last frames until it is told the stream has ended
+                filter.push(null);
+                filterDrained = true;
+                continue;
+            }
+            filter.push(pack(decoded), avutil.AV_PIX_FMT_YUV420P);
+        }
+    }
+
+    // copies the planes of a decoded frame into one buffer without row padding, the layout the filter reads
+    private Frame pack(Frame decoded) {
+        YuvFrame planes = yuvFrame(decoded);
+        if (planes == null) return decoded;
+        int width = planes.width();
+        int height = planes.height();
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int size = width * height + 2 * chromaWidth * chromaHeight;
+        if (packed == null || packed.imageWidth != width || packed.imageHeight != height) {
+            packed = new Frame();
+            packed.imageWidth = width;
+            packed.imageHeight = height;
+            packed.imageDepth = Frame.DEPTH_UBYTE;
+            packed.imageChannels = 1;
+            packed.imageStride = width;
+            packed.image = new Buffer[] {ByteBuffer.allocateDirect(size)};
+        }
+        ByteBuffer buffer = (ByteBuffer) packed.image[0];
+        buffer.clear();
+        copyPlane(planes.y(), planes.yStride(), width, height, buffer);
+        copyPlane(planes.u(), planes.uStride(), chromaWidth, chromaHeight, buffer);
+        copyPlane(planes.v(), planes.vStride(), chromaWidth, chromaHeight, buffer);
+        buffer.flip();
+        packed.timestamp = decoded.timestamp;
+        return packed;
+    }
+
+    private static void copyPlane(ByteBuffer plane, int stride, int width, int rows, ByteBuffer target) {
+        for (int row = 0; row < rows; row++) {
+            target.put(plane.slice(row * stride, width));
+        }
+    }
+
+    @Override
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public YuvFrame getYuvFrame() {
+        return yuv && frame != null ? yuvFrame(frame) : null;
+    }
+
+    // the planes of a frame decoded to yuv420p, or null if it has no image
+    private static YuvFrame yuvFrame(Frame frame) {
+        if (frame.image == null) return null;
+        int width = frame.imageWidth;
+        int height = frame.imageHeight;
+        int chromaHeight = (height + 1) / 2;
+
+        // Decoded directly: read each plane of the decoder's picture, wherever it is allocated
+        if (frame.opaque instanceof AVFrame picture && picture.format() == avutil.AV_PIX_FMT_YUV420P
+                && picture.width() == width && picture.height() == height) {
+            return new YuvFrame(width, height,
+                    plane(picture, 0, height), picture.linesize(0),
+                    plane(picture, 1, chromaHeight), picture.linesize(1),
+                    plane(picture, 2, chromaHeight), picture.linesize(2));
+        }
+
+        // Converted by the grabber: the planes follow each other in one buffer
+        ByteBuffer buffer = ((ByteBuffer) frame.image[0]).duplicate();
+        buffer.clear();
+        int stride = frame.imageStride;
+        int chromaStride = stride / 2;
+        int uOffset = stride * height;
+        int vOffset = uOffset + chromaStride * chromaHeight;
+        return new YuvFrame(width, height,
+                buffer, stride,
+                buffer.slice(uOffset, chromaStride * chromaHeight), chromaStride,
+                buffer.slice(vOffset, chromaStride * chromaHeight), chromaStride);
+    }
+
+    private static ByteBuffer plane(AVFrame picture, int index, int rows) {
+        return picture.data(index).capacity((long) picture.linesize(index) * rows).asByteBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (filter != null) filter.close();
+        converter.close();
+        grabber.close();
+    }
+}
@@ -12,11 +12,52 @@ package io.github.humagitgud.centroidfinder;
  * This means the x coordinate of the centroid is the sum of all x values divided by the
  * number of pixels in the group, and similarly for the y coordinate.
  * 
+ * A group found by a group finder also carries its {@link Moments}: bounding box and
+ * first and second order sums, from which orientation and elongation can be derived.
+ * Groups built from only a size and centroid have null moments. Moments are not part
+ * of a group's identity: equality, hashing and ordering use only size and centroid.
+ * 
  * Groups are naturally comparable. The comparison is done first by the group's size,
  * then by the x coordinate of the centroid, and finally by the y coordinate.
  * In a method that returns groups, they should be sorted in this natural order.
  */
-public record Group(int size, Coordinate centroid) implements Comparable<Group> {
+public record Group(int size, Coordinate centroid, Moments moments) implements Comparable<Group> {
+
+    /**
+     * Creates a group with a size and centroid but no moments.
+     *
+     * @param size the number of pixels in the group
+     * @param centroid the centroid of the group
+     */
+    public Group(int size, Coordinate centroid) {
+        this(size, centroid, null);
+    }
+
+    /**
+     * Creates a group from the moments accumulated while labeling it.
+     *
+     * @param moments the group's moments
+     * @return a group with the size and centroid given by the moments
+     */
+    public static Group of(Moments moments) {
+        return new Group((int) moments.count(), moments.centroid(), moments);
+    }
+
+    /**
+     * Compares groups by size and centroid only, consistent with compareTo.
+     *
+     * @param o the object to compare with
+     * @return true if o is a group with the same size and centroid
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Group other && size == other.size && centroid.equals(other.centroid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + centroid.hashCode();
+    }
 
     /**
      * Compares this group with the specified group for order.
@@ -0,0 +1,63 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * A ColorDistanceFinder that compares colors by hue only.
+ *
+ * Each color is converted to HSV and the distance is the angle between the two hues in
+ * degrees, from 0 to 180. Brightness and saturation are ignored, so a target seen in
+ * shadow or under brighter lighting stays close to itself as long as its hue holds.
+ *
+ * Colors that are too gray or too dark to have a reliable hue (saturation below 20% or
+ * value below 15%) are treated as achromatic. Two achromatic colors are 0 apart; an
+ * achromatic and a chromatic color are 255 apart, further than any two hues.
+ */
+public class HueColorDistance implements ColorDistanceFinder {
+    /**
+     * The distance between an achromatic and a chromatic color.
+     */
+    public static final double ACHROMATIC_DISTANCE = 255;
+
+    private static final double MIN_SATURATION = 0.20;
+    private static final double MIN_VALUE = 0.15;
+
+    /**
+     * Returns the hue distance between two hex RGB colors.
+     *
+     * @param colorA the first color as a 24-bit hex RGB integer
+     * @param colorB the second color as a 24-bit hex RGB integer
+     * @return the hue angle between the colors in degrees, or 255 if exactly one of them is achromatic
+     */
+    @Override
+    public double distance(int colorA, int colorB) {
+        double hueA = hue(colorA);
+        double hueB = hue(colorB);
+        if (hueA < 0 || hueB < 0) {
+            return hueA < 0 && hueB < 0 ? 0 : ACHROMATIC_DISTANCE;
+        }
+        double difference = Math.abs(hueA - hueB);
+        return difference > 180 ? 360 - difference : difference;
+    }
+
+    /**
+     * Returns the HSV hue of a color.
+     *
+     * @param rgb the color as a 24-bit hex RGB integer
+     * @return the hue in degrees between 0 and 360, or -1 if the color is achromatic
+     */
+    static double hue(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        double chroma = max - min;
+
+        if (max < MIN_VALUE * 255 || chroma < MIN_SATURATION * max) return -1;
+
+        double hue;
+        if (max == r) hue = 60 * ((g - b) / chroma);
+        else if (max == g) hue = 60 * ((b - r) / chroma + 2);
+        else hue = 60 * ((r - g) / chroma + 4);
+        return hue < 0 ? hue + 360 : hue;
+    }
+}
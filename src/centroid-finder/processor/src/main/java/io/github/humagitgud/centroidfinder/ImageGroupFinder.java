@@ -12,4 +12,19 @@ public interface ImageGroupFinder {
      * @return connected groups in an image sorted in descending order
      */
     public List<Group> findConnectedGroups(BufferedImage image);
+
+    /**
+     * Finds the k largest connected groups in an image.
+     * 
+     * The result is the first k groups findConnectedGroups would return, in the same
+     * DESCENDING order. The default implementation finds all groups and keeps the first k.
+     * @param image
+     * @param k the maximum number of groups to return, at least 1
+     * @return the k largest connected groups in an image sorted in descending order
+     */
+    public default List<Group> findLargestGroups(BufferedImage image, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        List<Group> groups = findConnectedGroups(image);
+        return groups.size() <= k ? groups : groups.subList(0, k);
+    }
 }
@@ -3,8 +3,12 @@ package io.github.humagitgud.centroidfinder;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.List;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * The Image Summary Application.
@@ -14,11 +18,22 @@ import javax.imageio.ImageIO;
  * 2. A target hex color in the format RRGGBB (for example, "FF0000" for red).
  * 3. An integer threshold for binarization.
  * 
+ * With "--band-rows n" the image is instead read and labeled n rows at a time, so images too
+ * large to load (such as gigapixel orthomosaics) can be summarized in memory proportional to
+ * their width (see {@link BandedImageGroupFinder}). The binarized image is not written in that mode.
+ * 
+ * With "--zones file" only the zones of a mask PNG or zone file are analyzed (see {@link Zones});
+ * it cannot be combined with "--band-rows".
+ * 
+ * Optionally, "--metric name" selects the color distance metric: euclidean (RGB, default),
+ * de76 or de2000 (CIELAB difference), or hue (HSV hue angle in degrees). The threshold is
+ * in the metric's units.
+ * 
  * The application performs the following steps:
  * 
  * 1. Loads the input image.
  * 2. Parses the target color from the hex string into a 24-bit integer.
- * 3. Binarizes the image by comparing each pixel's Euclidean color distance to the target color.
+ * 3. Binarizes the image by comparing each pixel's color distance to the target color.
  *    A pixel is marked white (1) if its distance is less than the threshold; otherwise, it is marked black (0).
  * 4. Converts the binary array back to a BufferedImage and writes the binarized image to disk as "binarized.png".
  * 5. Finds connected groups of white pixels in the binary image.
@@ -28,15 +43,54 @@ import javax.imageio.ImageIO;
  *    Coordinates follow the convention: (x:0, y:0) is the top-left, with x increasing to the right and y increasing downward.
  * 
  * Usage:
- *   java ImageSummaryApp <input_image> <hex_target_color> <threshold>
+ *   java ImageSummaryApp <input_image> <hex_target_color> <threshold> [--metric name] [--band-rows n] [--zones file]
  */
 public class ImageSummaryApp {
     public static void main(String[] args) {
         if (args.length < 3) {
-            System.out.println("Usage: java ImageSummaryApp <input_image> <hex_target_color> <threshold>");
+            System.out.println("Usage: java ImageSummaryApp <input_image> <hex_target_color> <threshold> [--metric name] [--band-rows n] [--zones file]");
             return;
         }
         
+        // Parse options
+        ColorMetric metric = ColorMetric.EUCLIDEAN;
+        int bandRows = 0;
+        String zonesPath = null;
+        try {
+            for (int i = 3; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--metric" -> metric = ColorMetric.fromName(optionValue(args, ++i));
+                    case "--band-rows" -> bandRows = Integer.parseInt(optionValue(args, ++i));
+                    case "--zones" -> zonesPath = optionValue(args, ++i);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Band rows must be an integer.");
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.out.println("Usage: java ImageSummaryApp <input_image> <hex_target_color> <threshold> [--metric name] [--band-rows n] [--zones file]");
+            return;
+        }
+        if (bandRows < 0) {
+            System.err.println("Band rows must not be negative.");
+            return;
+        }
+        if (bandRows > 0 && zonesPath != null) {
+            System.err.println("Zones cannot be combined with band rows.");
+            return;
+        }
+        Zones zones = null;
+        if (zonesPath != null) {
+            try {
+                zones = Zones.read(Path.of(zonesPath));
+            } catch (Exception e) {
+                System.err.println("Error loading zones: " + zonesPath + ": " + e.getMessage());
+                return;
+            }
+        }
+        
         String inputImagePath = args[0];
         String hexTargetColor = args[1];
         int threshold = 0;
@@ -47,15 +101,6 @@ public class ImageSummaryApp {
             return;
         }
         
-        BufferedImage inputImage = null;
-        try {
-            inputImage = ImageIO.read(new File(inputImagePath));
-        } catch (Exception e) {
-            System.err.println("Error loading image: " + inputImagePath);
-            e.printStackTrace();
-            return;
-        }
-        
         // Parse the target color from a hex string (format RRGGBB) into a 24-bit integer (0xRRGGBB)
         int targetColor = 0;
         try {
@@ -65,9 +110,39 @@ public class ImageSummaryApp {
             return;
         }
         
-        // Create the DistanceImageBinarizer with a EuclideanColorDistance instance.
-        ColorDistanceFinder distanceFinder = new EuclideanColorDistance();
-        ImageBinarizer binarizer = new DistanceImageBinarizer(distanceFinder, targetColor, threshold);
+        // Create the DistanceImageBinarizer with the selected color metric.
+        ColorDistanceFinder distanceFinder = metric.forTarget(targetColor);
+        ImageBinarizer binarizer = zones == null
+                ? new DistanceImageBinarizer(distanceFinder, targetColor, threshold)
+                : new ZonedImageBinarizer(distanceFinder, targetColor, threshold, zones);
+        
+        List<Group> groups = bandRows > 0
+                ? findGroupsInBands(inputImagePath, binarizer, bandRows)
+                : findGroupsInImage(inputImagePath, binarizer);
+        if (groups == null) return;
+        
+        // Write the groups information to a CSV file "groups.csv".
+        try (PrintWriter writer = new PrintWriter("groups.csv")) {
+            for (Group group : groups) {
+                writer.println(group.toCsvRow());
+            }
+            System.out.println("Groups summary saved as groups.csv");
+        } catch (Exception e) {
+            System.err.println("Error writing groups.csv");
+            e.printStackTrace();
+        }
+    }
+
+    // loads the whole image, writes binarized.png and finds its groups; null if the image cannot be loaded
+    private static List<Group> findGroupsInImage(String inputImagePath, ImageBinarizer binarizer) {
+        BufferedImage inputImage = null;
+        try {
+            inputImage = ImageIO.read(new File(inputImagePath));
+        } catch (Exception e) {
+            System.err.println("Error loading image: " + inputImagePath);
+            e.printStackTrace();
+            return null;
+        }
         
         // Binarize the input image.
         int[][] binaryArray = binarizer.toBinaryArray(inputImage);
@@ -88,17 +163,37 @@ public class ImageSummaryApp {
         // Find connected groups in the input image.
         // The BinarizingImageGroupFinder is expected to internally binarize the image,
         // then locate connected groups of white pixels.
-        List<Group> groups = groupFinder.findConnectedGroups(inputImage);
-        
-        // Write the groups information to a CSV file "groups.csv".
-        try (PrintWriter writer = new PrintWriter("groups.csv")) {
-            for (Group group : groups) {
-                writer.println(group.toCsvRow());
+        return groupFinder.findConnectedGroups(inputImage);
+    }
+
+    // reads the image a band of rows at a time and finds its groups; null if the image cannot be read
+    private static List<Group> findGroupsInBands(String inputImagePath, ImageBinarizer binarizer, int bandRows) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(inputImagePath))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                System.err.println("Error loading image: " + inputImagePath);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true);
+                System.out.println("Reading image in bands of " + bandRows + " rows; binarized.png is not written");
+                return new BandedImageGroupFinder(binarizer, bandRows, 1).findConnectedGroups(reader);
+            } finally {
+                reader.dispose();
             }
-            System.out.println("Groups summary saved as groups.csv");
         } catch (Exception e) {
-            System.err.println("Error writing groups.csv");
+            System.err.println("Error loading image: " + inputImagePath);
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    // returns the value following an option, failing if the option is the last argument
+    private static String optionValue(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for option " + args[i - 1]);
         }
+        return args[i];
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the parts of a video worth processing at full frame rate by decoding only its keyframes.
+ *
+ * Keyframes can be decoded on their own, so the decoder skips every other frame and a scan
+ * costs a fraction of a full decode. Each keyframe is checked for the target. The interval from
+ * one keyframe to the next is kept for full-rate processing if the target is present at either
+ * end, and the interval after the last keyframe is always kept. Everything else is assumed to be
+ * free of the target.
+ *
+ * The scan is a heuristic: a target that appears and disappears entirely between two keyframes
+ * without it is missed. It suits long recordings where the target is absent most of the time
+ * and visible for longer than a keyframe interval when it is there.
+ */
+public class KeyframeScanner {
+
+    /**
+     * A range of frames to process at full frame rate.
+     *
+     * @param start the first frame of the span
+     * @param end the frame the span stops before, or Long.MAX_VALUE for the end of the video
+     */
+    public record Span(long start, long end) {}
+
+    private final ImageGroupFinder groupFinder;
+
+    /**
+     * Constructs a KeyframeScanner.
+     *
+     * @param groupFinder finds the target in each keyframe
+     */
+    public KeyframeScanner(ImageGroupFinder groupFinder) {
+        this.groupFinder = groupFinder;
+    }
+
+    /**
+     * Scans the keyframes of a video.
+     *
+     * @param inputPath path to the input video file
+     * @return the spans to process at full frame rate, in order and not overlapping
+     * @throws IOException if the video cannot be decoded
+     */
+    public List<Span> scan(String inputPath) throws IOException {
+        List<Long> keyframes = new ArrayList<>();
+        List<Boolean> present = new ArrayList<>();
+        try (GrabberFrameSource source = GrabberFrameSource.keyframes(inputPath)) {
+            while (source.grab()) {
+                if (source.getImage() == null) continue;
+                keyframes.add(source.getFrameNumber());
+                present.add(isPresent(source));
+            }
+        }
+        return spans(keyframes, present);
+    }
+
+    private boolean isPresent(GrabberFrameSource source) {
+        try {
+            return !groupFinder.findLargestGroups(source.getImage(), 1).isEmpty();
+        } catch (LabelingAbortedException e) {
+            // too much matched to label: certainly worth a closer look
+            return true;
+        }
+    }
+
+    /**
+     * Builds the spans to refine from the keyframes of a video.
+     *
+     * @param keyframes the frame numbers of the keyframes, in order
+     * @param present whether the target was found in each keyframe
+     * @return the spans to process at full frame rate, with adjacent spans merged
+     */
+    static List<Span> spans(List<Long> keyframes, List<Boolean> present) {
+        List<Span> spans = new ArrayList<>();
+        if (keyframes.isEmpty()) {
+            spans.add(new Span(0, Long.MAX_VALUE));
+            return spans;
+        }
+        if (keyframes.get(0) > 0) {
+            // frames before the first keyframe cannot be judged
+            spans.add(new Span(0, keyframes.get(0)));
+        }
+        for (int i = 0; i < keyframes.size(); i++) {
+            boolean last = i == keyframes.size() - 1;
+            if (!last && !present.get(i) && !present.get(i + 1)) continue;
+
+            long start = keyframes.get(i);
+            long end = last ? Long.MAX_VALUE : keyframes.get(i + 1);
+            Span previous = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+            if (previous != null && previous.end() == start) {
+                spans.set(spans.size() - 1, new Span(previous.start(), end));
+            } else {
+                spans.add(new Span(start, end));
+            }
+        }
+        return spans;
+    }
+}
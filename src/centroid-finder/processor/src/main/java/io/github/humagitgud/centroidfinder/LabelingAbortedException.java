@@ -0,0 +1,20 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * Thrown when labeling an image is stopped early because the image has more groups or
+ * more foreground pixels than a finder was configured to accept.
+ *
+ * This usually means the threshold is too permissive for the footage, so the frame is
+ * mostly noise and its groups would not be meaningful.
+ */
+public class LabelingAbortedException extends RuntimeException {
+
+    /**
+     * Creates a new exception.
+     *
+     * @param reason the limit that was exceeded
+     */
+    public LabelingAbortedException(String reason) {
+        super("Labeling aborted: " + reason);
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Hands the newest frame of a live source to a consumer that may be slower than the source.
+ *
+ * A decoder thread reads frames as fast as the source delivers them and keeps only the newest
+ * one. A frame that is replaced before the consumer takes it is dropped, and so is a frame that
+ * is already older than the maximum latency when the consumer gets to it. The consumer therefore
+ * always works on a recent frame, and the time from capture to a result is bounded by the
+ * maximum latency plus the time to process one frame, however long the consumer falls behind.
+ */
+class LiveFrameSource implements AutoCloseable {
+
+    /**
+     * A frame taken from the source.
+     *
+     * @param image the frame's image
+     * @param frameNumber the zero-based number of the frame in the stream
+     * @param capturedMillis the wall-clock time the frame was decoded, in milliseconds since the epoch
+     */
+    record Frame(BufferedImage image, long frameNumber, long capturedMillis) {}
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+
+    private final FrameSource source;
+    private final long maxLatencyMillis;
+    private final Thread decoder;
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private Frame latest;
+    private boolean ended;
+    private IOException failure;
+    private long framesDecoded;
+    private long framesDropped;
+
+    /**
+     * Starts decoding frames from the source on a background thread.
+     *
+     * @param source the live source; closed when this is closed
+     * @param maxLatencyMillis frames older than this when taken are dropped, at least 1
+     */
+    LiveFrameSource(FrameSource source, long maxLatencyMillis) {
+        if (maxLatencyMillis < 1) throw new IllegalArgumentException("maxLatencyMillis must be at least 1");
+        this.source = source;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.decoder = new Thread(this::decode, "live-decoder");
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    /**
+     * Waits for the newest frame that is recent enough, dropping stale ones.
+     *
+     * @return the frame, or null once the stream has ended
+     * @throws IOException if the source failed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    Frame take() throws IOException, InterruptedException {
+        synchronized (lock) {
+            while (true) {
+                while (latest == null && !ended) lock.wait();
+                if (latest == null) {
+                    if (failure != null) throw failure;
+                    return null;
+                }
+                Frame frame = latest;
+                latest = null;
+                if (System.currentTimeMillis() - frame.capturedMillis() <= maxLatencyMillis) return frame;
+                framesDropped++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames read from the source so far.
+     *
+     * @return the decoded frame count
+     */
+    long getFramesDecoded() {
+        synchronized (lock) {
+            return framesDecoded;
+        }
+    }
+
+    /**
+     * Returns the number of frames dropped so far, because a newer frame arrived first or
+     * because they were too old by the time they could be processed.
+     *
+     * @return the dropped frame count
+     */
+    long getFramesDropped() {
+        synchronized (lock) {
+            return framesDropped;
+        }
+    }
+
+    private void decode() {
+        try {
+            long frameNumber = 0;
+            while (!Thread.currentThread().isInterrupted() && source.grab()) {
+                BufferedImage image = source.getImage();
+                long captured = System.currentTimeMillis();
+                if (image != null) {
+                    // the source may reuse its image for the next frame
+                    image = new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+                }
+                synchronized (lock) {
+                    framesDecoded++;
+                    if (image == null) {
+                        framesDropped++;
+                    } else {
+                        if (latest != null) framesDropped++;
+                        latest = new Frame(image, frameNumber, captured);
+                        lock.notifyAll();
+                    }
+                }
+                frameNumber++;
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                failure = e;
+            }
+        } finally {
+            synchronized (lock) {
+                ended = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Stops decoding and closes the source. If the decoder is still blocked reading the stream
+     * after a short wait, the source is left open rather than closed under it; the decoder is a
+     * daemon thread and does not keep the process alive.
+     *
+     * @throws IOException if the source cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        decoder.interrupt();
+        try {
+            decoder.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!decoder.isAlive()) source.close();
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.humagitgud.centroidfinder;
+
+/**
+ * Shape statistics of a group of pixels, accumulated while the group is labeled.
+ *
+ * Holds the pixel count, the sums of x, y, x*x, y*y and x*y over the group's pixels, and
+ * its bounding box (inclusive). Sums are kept as longs so they do not overflow even for a
+ * group covering a whole 4K frame.
+ *
+ * From these the centroid, the covariance of the pixel coordinates, and the orientation and
+ * elongation of the group's best-fitting ellipse can be derived without revisiting pixels.
+ */
+public record Moments(long count, long sumX, long sumY, long sumXX, long sumYY, long sumXY,
+                      int minX, int minY, int maxX, int maxY) {
+
+    /**
+     * Returns the moments of a single pixel.
+     *
+     * @param x the pixel's x coordinate
+     * @param y the pixel's y coordinate
+     * @return moments of a group containing only that pixel
+     */
+    public static Moments ofPixel(int x, int y) {
+        return new Moments(1, x, y, (long) x * x, (long) y * y, (long) x * y, x, y, x, y);
+    }
+
+    /**
+     * Returns the centroid using integer division, as Group does.
+     *
+     * @return the centroid of the group
+     */
+    public Coordinate centroid() {
+        return new Coordinate((int) (sumX / count), (int) (sumY / count));
+    }
+
+    /**
+     * Returns the exact mean x coordinate of the group's pixels.
+     *
+     * @return the mean x coordinate
+     */
+    public double meanX() {
+        return (double) sumX / count;
+    }
+
+    /**
+     * Returns the exact mean y coordinate of the group's pixels.
+     *
+     * @return the mean y coordinate
+     */
+    public double meanY() {
+        return (double) sumY / count;
+    }
+
+    /**
+     * Returns the width of the bounding box in pixels.
+     *
+     * @return maxX - minX + 1
+     */
+    public int width() {
+        return maxX - minX + 1;
+    }
+
+    /**
+     * Returns the height of the bounding box in pixels.
+     *
+     * @return maxY - minY + 1
+     */
+    public int height() {
+        return maxY - minY + 1;
+    }
+
+    /**
+     * Returns the variance of the pixels' x coordinates (the central moment mu20 / count).
+     *
+     * @return the x variance
+     */
+    public double varianceX() {
+        double mean = meanX();
+        return (double) sumXX / count - mean * mean;
+    }
+
+    /**
+     * Returns the variance of the pixels' y coordinates (the central moment mu02 / count).
+     *
+     * @return the y variance
+     */
+    public double varianceY() {
+        double mean = meanY();
+        return (double) sumYY / count - mean * mean;
+    }
+
+    /**
+     * Returns the covariance of the pixels' x and y coordinates (the central moment mu11 / count).
+     *
+     * @return the xy covariance
+     */
+    public double covariance() {
+        return (double) sumXY / count - meanX() * meanY();
+    }
+
+    /**
+     * Returns the angle of the group's major axis, measured from the x axis towards the
+     * y axis (downward, since y increases downward).
+     *
+     * @return the orientation in radians, between -pi/2 and pi/2; 0 for a group with no preferred direction
+     */
+    public double orientation() {
+        return 0.5 * Math.atan2(2 * covariance(), varianceX() - varianceY());
+    }
+
+    /**
+     * Returns how stretched the group is: the ratio of the major to the minor axis of the
+     * ellipse with the same second moments. A disc or square gives 1, a long thin group gives
+     * a large value, and a straight line of pixels gives positive infinity.
+     *
+     * @return the elongation, at least 1
+     */
+    public double elongation() {
+        double a = varianceX();
+        double b = varianceY();
+        double c = covariance();
+        double root = Math.sqrt((a - b) * (a - b) + 4 * c * c);
+        double major = (a + b + root) / 2;
+        double minor = (a + b - root) / 2;
+        if (major <= 1e-12) return 1; // a single pixel
+        if (minor <= 1e-12) return Double.POSITIVE_INFINITY;
+        return Math.sqrt(major / minor);
+    }
+}
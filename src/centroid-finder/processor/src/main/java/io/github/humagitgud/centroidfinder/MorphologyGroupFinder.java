@@ -0,0 +1,131 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.List;
+
+/**
+ * A BinaryGroupFinder that cleans up a binary image with a 3x3 morphological operation
+ * before passing it to another BinaryGroupFinder.
+ *
+ * Sensor noise leaves many speckle groups that slow labeling down and can outgrow the real
+ * target. Opening removes them (and thin lines) before labeling, so there are fewer and
+ * cleaner groups to label. The operation runs on a {@link PackedMask}, 64 pixels per word.
+ *
+ * The packed masks and the filtered image are kept between calls and reused while images have
+ * the same size, so filtering a frame allocates nothing. The filtered image passed to the
+ * wrapped finder is overwritten by the next call. A MorphologyGroupFinder is not thread-safe.
+ */
+public class MorphologyGroupFinder implements BinaryGroupFinder {
+
+    /**
+     * The morphological operation applied before labeling.
+     */
+    public enum Operation {
+        ERODE("erode"),
+        DILATE("dilate"),
+        OPEN("open"),
+        CLOSE("close");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns the name used to select this operation on the command line.
+         *
+         * @return the operation's name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the operation with the given command line name.
+         *
+         * @param name the operation's name
+         * @return the operation
+         * @throws IllegalArgumentException if no operation has that name
+         */
+        public static Operation fromName(String name) {
+            for (Operation operation : values()) {
+                if (operation.name.equals(name)) return operation;
+            }
+            throw new IllegalArgumentException("Unknown morphology operation: " + name
+                    + " (expected erode, dilate, open or close)");
+        }
+
+        // applies the operation to the mask itself, with scratch as working space
+        void applyInPlace(PackedMask mask, PackedMask scratch) {
+            switch (this) {
+                case ERODE -> mask.erodeInPlace(scratch);
+                case DILATE -> mask.dilateInPlace(scratch);
+                case OPEN -> {
+                    mask.erodeInPlace(scratch);
+                    mask.dilateInPlace(scratch);
+                }
+                case CLOSE -> {
+                    mask.dilateInPlace(scratch);
+                    mask.erodeInPlace(scratch);
+                }
+            }
+        }
+    }
+
+    private final Operation operation;
+    private final BinaryGroupFinder groupFinder;
+    private PackedMask mask;
+    private PackedMask scratch;
+    private int[][] filtered;
+
+    /**
+     * Constructs a MorphologyGroupFinder.
+     *
+     * @param operation the operation applied to each image before labeling
+     * @param groupFinder the finder that labels the filtered image
+     */
+    public MorphologyGroupFinder(Operation operation, BinaryGroupFinder groupFinder) {
+        this.operation = operation;
+        this.groupFinder = groupFinder;
+    }
+
+    /**
+     * Finds connected groups of 1s in the image after applying the operation.
+     *
+     * @param image a rectangular 2D array containing only 1s and 0s
+     * @return the groups of the filtered image in descending order
+     */
+    @Override
+    public List<Group> findConnectedGroups(int[][] image) {
+        return groupFinder.findConnectedGroups(filter(image));
+    }
+
+    /**
+     * Finds the k largest groups of 1s in the image after applying the operation.
+     *
+     * @param image a rectangular 2D array containing only 1s and 0s
+     * @param k the maximum number of groups to return, at least 1
+     * @return the k largest groups of the filtered image in descending order
+     */
+    @Override
+    public List<Group> findLargestGroups(int[][] image, int k) {
+        return groupFinder.findLargestGroups(filter(image), k);
+    }
+
+    private int[][] filter(int[][] image) {
+        if (image == null) throw new NullPointerException();
+        if (image.length == 0 || image[0] == null || image[0].length == 0) {
+            throw new IllegalArgumentException();
+        }
+        if (mask == null || !mask.hasSize(image[0].length, image.length)) {
+            mask = PackedMask.of(image);
+            scratch = mask.emptyCopy();
+            filtered = new int[image.length][image[0].length];
+        } else {
+            mask.pack(image);
+        }
+        operation.applyInPlace(mask, scratch);
+        mask.unpack(filtered);
+        return filtered;
+    }
+}
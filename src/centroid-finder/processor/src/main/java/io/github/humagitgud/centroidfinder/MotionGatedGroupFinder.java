@@ -0,0 +1,187 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * An ImageGroupFinder for sequences of frames from a fixed camera that only redoes the work
+ * for parts of the frame that changed since the previous frame.
+ * 
+ * The frame is divided into square blocks. Each block is compared with the pixels the maintained
+ * binary mask was last computed from:
+ * - If no block changed, the previous frame's groups are returned without binarizing or labeling.
+ * - Otherwise only the changed blocks are re-binarized and patched into the mask, and the mask is
+ *   labeled again with the BinaryGroupFinder.
+ * 
+ * With a tolerance of 0 a block counts as changed if any pixel differs, so the result is exactly
+ * the same as binarizing and labeling every frame in full. A positive tolerance ignores per-channel
+ * differences up to that amount (e.g. sensor noise), trading exactness for more reuse.
+ * 
+ * Binarization matches DistanceImageBinarizer: a pixel is white (1) if its distance to the target
+ * color is less than the threshold.
+ */
+public class MotionGatedGroupFinder implements ImageGroupFinder {
+    private static final int BLOCK_SIZE = 16;
+    // the k of cached groups that came from findConnectedGroups
+    private static final int ALL_GROUPS = 0;
+
+    private final ColorDistanceFinder distanceFinder;
+    private final int targetColor;
+    private final int threshold;
+    private final BinaryGroupFinder groupFinder;
+    private final int tolerance;
+
+    private int width = -1;
+    private int height = -1;
+    private int[] pixels;
+    private int[] reference;
+    private int[][] mask;
+    private List<Group> groups;
+    private int groupsK;
+
+    private long framesReused;
+    private long blocksUpdated;
+    private long blocksTotal;
+
+    /**
+     * Constructs a MotionGatedGroupFinder.
+     *
+     * @param distanceFinder the metric used to compare pixel colors with the target color
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @param threshold the distance threshold used to decide whether a pixel is white or black
+     * @param groupFinder the BinaryGroupFinder used to label the maintained mask
+     * @param tolerance the largest per-channel difference still treated as unchanged (0 for exact results)
+     */
+    public MotionGatedGroupFinder(ColorDistanceFinder distanceFinder, int targetColor, int threshold,
+                                  BinaryGroupFinder groupFinder, int tolerance) {
+        this.distanceFinder = distanceFinder;
+        this.targetColor = targetColor;
+        this.threshold = threshold;
+        this.groupFinder = groupFinder;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Finds connected groups of white pixels in the given frame, reusing the work done for the
+     * previous frame where the image did not change.
+     *
+     * @param image the next frame of the sequence
+     * @return the groups of the frame in descending order
+     */
+    @Override
+    public List<Group> findConnectedGroups(BufferedImage image) {
+        return find(image, ALL_GROUPS);
+    }
+
+    /**
+     * Finds the k largest groups of white pixels in the given frame with the BinaryGroupFinder's
+     * own top-k search, reusing the previous frame's groups if the image did not change and the
+     * same k was asked for.
+     *
+     * @param image the next frame of the sequence
+     * @param k the maximum number of groups to return, at least 1
+     * @return the k largest groups of the frame in descending order
+     */
+    @Override
+    public List<Group> findLargestGroups(BufferedImage image, int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+        return find(image, k);
+    }
+
+    // updates the mask and labels it unless the cached groups for the same k still hold
+    private List<Group> find(BufferedImage image, int k) {
+        boolean changed = updateMask(image);
+        if (changed || groups == null || groupsK != k) {
+            // an aborted labeling leaves no groups to reuse, so the next frame labels again
+            groups = null;
+            groups = k == ALL_GROUPS ? groupFinder.findConnectedGroups(mask) : groupFinder.findLargestGroups(mask, k);
+            groupsK = k;
+        } else {
+            framesReused++;
+        }
+        return groups;
+    }
+
+    // re-binarizes the blocks that changed since the mask was computed, returning whether any did
+    private boolean updateMask(BufferedImage image) {
+        boolean sizeChanged = image.getWidth() != width || image.getHeight() != height;
+        if (sizeChanged) {
+            width = image.getWidth();
+            height = image.getHeight();
+            pixels = new int[width * height];
+            reference = new int[width * height];
+            mask = new int[height][width];
+        }
+        image.getRGB(0, 0, width, height, pixels, 0, width);
+
+        int blocksX = (width + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int blocksY = (height + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        boolean anyChanged = false;
+
+        for (int by = 0; by < blocksY; by++) {
+            for (int bx = 0; bx < blocksX; bx++) {
+                int x0 = bx * BLOCK_SIZE;
+                int y0 = by * BLOCK_SIZE;
+                int x1 = Math.min(x0 + BLOCK_SIZE, width);
+                int y1 = Math.min(y0 + BLOCK_SIZE, height);
+                if (sizeChanged || blockChanged(x0, y0, x1, y1)) {
+                    updateBlock(x0, y0, x1, y1);
+                    blocksUpdated++;
+                    anyChanged = true;
+                }
+                blocksTotal++;
+            }
+        }
+        return anyChanged;
+    }
+
+    /**
+     * Returns how many frames reused the previous frame's groups.
+     *
+     * @return the number of frames with no changed block
+     */
+    public long getFramesReused() {
+        return framesReused;
+    }
+
+    /**
+     * Returns the fraction of blocks that had to be re-binarized across all frames so far.
+     *
+     * @return a value between 0 and 1, or 0 if no frame has been processed
+     */
+    public double getUpdatedBlockRatio() {
+        return blocksTotal == 0 ? 0 : (double) blocksUpdated / blocksTotal;
+    }
+
+    // compares a block of the current frame with the pixels the mask was computed from
+    private boolean blockChanged(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int i = row + x0; i < row + x1; i++) {
+                int a = pixels[i];
+                int b = reference[i];
+                if (a == b) continue;
+                if (tolerance == 0) return true;
+                if (Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) > tolerance
+                        || Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) > tolerance
+                        || Math.abs((a & 0xFF) - (b & 0xFF)) > tolerance) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // re-binarizes a block into the mask and remembers the pixels it was computed from
+    private void updateBlock(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) {
+                int pixelColor = pixels[row + x] & 0xFFFFFF;
+                reference[row + x] = pixels[row + x];
+                double distance = distanceFinder.distance(pixelColor, targetColor);
+                mask[y][x] = distance < threshold ? 1 : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+
+/**
+ * A grid of cells over the video frame counting how often, and for how long, the largest group's
+ * centroid was in each cell: the occupancy heatmap of the tracked object, accumulated while
+ * frames are processed instead of from the CSV afterwards.
+ *
+ * Cells are square, cellSize original frame pixels wide; the last column and row may extend
+ * past the frame. Frames without a centroid, or whose labeling was aborted, are not counted.
+ *
+ * The grid is written as a compact binary file: a header (magic, frame width, frame height,
+ * cell size, columns, rows, total frames, total seconds) followed by the frame count of every
+ * cell as an int and then the dwell time of every cell in seconds as a float, both in row-major
+ * order. It can also be written as a PNG heatmap at frame resolution, one block per cell, with
+ * dwell time shown on a black-red-yellow-white scale (square root of the share of the longest
+ * dwell, so short visits stay visible).
+ */
+public class OccupancyGrid {
+    private static final int MAGIC = 0x43464F47; // "CFOG"
+
+    private final int width;
+    private final int height;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] frames;
+    private final double[] seconds;
+    private long totalFrames;
+    private double totalSeconds;
+
+    /**
+     * Creates an empty grid covering a frame.
+     *
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @param cellSize the width and height of a cell in pixels, at least 1
+     */
+    public OccupancyGrid(int width, int height, int cellSize) {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Frame size must be positive");
+        if (cellSize < 1) throw new IllegalArgumentException("cellSize must be at least 1");
+        this.width = width;
+        this.height = height;
+        this.cellSize = cellSize;
+        this.columns = (width + cellSize - 1) / cellSize;
+        this.rows = (height + cellSize - 1) / cellSize;
+        this.frames = new int[columns * rows];
+        this.seconds = new double[columns * rows];
+    }
+
+    /**
+     * Counts one frame with the centroid at a position.
+     *
+     * @param position the centroid in frame pixels; positions outside the frame are ignored
+     * @param dwell the time the frame stands for, in seconds
+     */
+    public void add(Coordinate position, double dwell) {
+        if (position.x() < 0 || position.y() < 0 || position.x() >= width || position.y() >= height) return;
+        int cell = (position.y() / cellSize) * columns + position.x() / cellSize;
+        frames[cell]++;
+        seconds[cell] += dwell;
+        totalFrames++;
+        totalSeconds += dwell;
+    }
+
+    /**
+     * Counts the rows of an existing output CSV (see {@link CsvWriter}), such as the part written
+     * before a resumed run or a restored cached result. The first coordinate pair of each row is
+     * that of the largest group.
+     *
+     * @param csv the output file
+     * @param dwell the time each row stands for, in seconds
+     * @throws IOException if the file cannot be read or a row is malformed
+     */
+    public void addRows(Path csv, double dwell) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", 4);
+                if (fields.length < 3) throw new IOException("Malformed row in " + csv + ": " + line);
+                try {
+                    add(new Coordinate(Integer.parseInt(fields[1]), Integer.parseInt(fields[2])), dwell);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed row in " + csv + ": " + line, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of frames counted in a cell.
+     *
+     * @param column the cell column
+     * @param row the cell row
+     * @return the frame count
+     */
+    public int getFrames(int column, int row) {
+        return frames[row * columns + column];
+    }
+
+    /**
+     * Returns the time the centroid spent in a cell.
+     *
+     * @param column the cell column
+     * @param row the cell row
+     * @return the dwell time in seconds
+     */
+    public double getSeconds(int column, int row) {
+        return seconds[row * columns + column];
+    }
+
+    /**
+     * Returns the number of frames counted in all cells.
+     *
+     * @return the frame count
+     */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * Returns the number of cell columns.
+     *
+     * @return the columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of cell rows.
+     *
+     * @return the rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the width and height of a cell.
+     *
+     * @return the cell size in frame pixels
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Writes the grid in its binary format, replacing the file in one step.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(40 + frames.length * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(cellSize);
+            out.writeInt(columns);
+            out.writeInt(rows);
+            out.writeLong(totalFrames);
+            out.writeDouble(totalSeconds);
+            for (int count : frames) out.writeInt(count);
+            for (double dwell : seconds) out.writeFloat((float) dwell);
+        }
+        AtomicFiles.write(path, bytes.toByteArray());
+    }
+
+    /**
+     * Reads a grid written by {@link #write(Path)}. Dwell times are read back at float precision.
+     *
+     * @param path the file to read
+     * @return the grid
+     * @throws IOException if the file cannot be read or is not a grid
+     */
+    public static OccupancyGrid read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Invalid occupancy grid file: " + path);
+            OccupancyGrid grid = new OccupancyGrid(in.readInt(), in.readInt(), in.readInt());
+            if (in.readInt() != grid.columns || in.readInt() != grid.rows) {
+                throw new IOException("Invalid occupancy grid size in " + path);
+            }
+            grid.totalFrames = in.readLong();
+            grid.totalSeconds = in.readDouble();
+            for (int i = 0; i < grid.frames.length; i++) grid.frames[i] = in.readInt();
+            for (int i = 0; i < grid.seconds.length; i++) grid.seconds[i] = in.readFloat();
+            return grid;
+        } catch (EOFException e) {
+            throw new IOException("Truncated occupancy grid file: " + path, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid occupancy grid header in " + path, e);
+        }
+    }
+
+    /**
+     * Renders the grid as a heatmap at frame resolution.
+     *
+     * @return the heatmap image
+     */
+    public BufferedImage toImage() {
+        double longest = 0;
+        for (double dwell : seconds) longest = Math.max(longest, dwell);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] line = new int[width];
+        for (int y = 0; y < height; y++) {
+            int row = y / cellSize;
+            for (int x = 0; x < width; x++) {
+                double dwell = seconds[row * columns + x / cellSize];
+                line[x] = dwell > 0 ? heat(Math.sqrt(dwell / longest)) : 0;
+            }
+            image.setRGB(0, y, width, 1, line, 0, width);
+        }
+        return image;
+    }
+
+    /**
+     * Writes the heatmap (see {@link #toImage()}) as a PNG, replacing the file in one step.
+     *
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeImage(Path path) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(toImage(), "png", bytes);
+        AtomicFiles.write(path, bytes.toByteArray());
+    }
+
+    // black through red and yellow to white as the level goes from 0 to 1
+    private static int heat(double level) {
+        int value = (int) Math.round(Math.min(1, Math.max(0, level)) * 765);
+        int r = Math.min(255, value);
+        int g = Math.min(255, Math.max(0, value - 255));
+        int b = Math.max(0, value - 510);
+        return (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,267 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Scalar;
+import org.bytedeco.opencv.opencv_core.Size;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * An ImageGroupFinder that binarizes and labels frames with OpenCV's native code.
+ *
+ * Each frame is copied into a native BGR Mat in one bulk copy. The Euclidean distance to the
+ * target color is then computed natively: absdiff, square, and a sum over channels with
+ * transform. Pixels are compared with the squared threshold. Component sizes and centroids
+ * come from a single connectedComponentsWithStats call with 4-connectivity.
+ *
+ * Sums of squared 8-bit differences are exact in float arithmetic, and OpenCV's centroids
+ * are exact means, so the groups are the same as those of a BinarizingImageGroupFinder with
+ * EuclideanColorDistance and DfsBinaryGroupFinder. The same optional morphology operation
+ * (with background outside the frame), analyzed {@link Zones} and labeling limits are
+ * applied. OpenCV does not report second order sums, so groups carry no {@link Moments} unless
+ * they are asked for with {@link #setMoments(boolean)}, which costs a pass over the label image.
+ *
+ * The native buffers are reused between frames of the same size, so an instance serves one
+ * job and is not thread-safe.
+ */
+public class OpenCvGroupFinder implements ImageGroupFinder {
+    private static final int SUMS = 5;
+
+    private final int targetColor;
+    private final int threshold;
+    private final MorphologyGroupFinder.Operation morphology;
+    private final int minGroupSize;
+    private final int maxGroups;
+    private final long maxForeground;
+    private final Zones zones;
+
+    private int width = -1;
+    private int height = -1;
+    private Mat bgr;
+    private Mat target;
+    private Mat difference;
+    private Mat squares;
+    private Mat sum;
+    private Mat limit;
+    private Mat mask;
+    private ZoneMask zoneMask;
+    private Mat zoneMat;
+    private final Mat ones = new Mat(1, 3, CV_32F, new Scalar(1, 1, 1, 0));
+    private final Mat kernel = getStructuringElement(MORPH_RECT, new Size(3, 3));
+    private final Mat labels = new Mat();
+    private final Mat stats = new Mat();
+    private final Mat centroids = new Mat();
+    private boolean moments;
+    private int[] labelRow = new int[0];
+    private long[] sums = new long[0];
+
+    /**
+     * Constructs an OpenCvGroupFinder without morphology or labeling limits.
+     *
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @param threshold pixels closer to the target color than this are white
+     */
+    public OpenCvGroupFinder(int targetColor, int threshold) {
+        this(targetColor, threshold, null, 1, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Constructs an OpenCvGroupFinder.
+     *
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @param threshold pixels closer to the target color than this are white
+     * @param morphology operation applied to the binarized frame before labeling, or null for none
+     * @param minGroupSize the smallest group size to report, at least 1
+     * @param maxGroups the most groups a frame may have, at least 1
+     * @param maxForeground the most foreground pixels a frame may have, at least 1
+     * @param zones the analyzed regions of each frame, or null to analyze whole frames
+     */
+    public OpenCvGroupFinder(int targetColor, int threshold, MorphologyGroupFinder.Operation morphology,
+                             int minGroupSize, int maxGroups, long maxForeground, Zones zones) {
+        if (minGroupSize < 1) throw new IllegalArgumentException("minGroupSize must be at least 1");
+        if (maxGroups < 1) throw new IllegalArgumentException("maxGroups must be at least 1");
+        if (maxForeground < 1) throw new IllegalArgumentException("maxForeground must be at least 1");
+        this.targetColor = targetColor;
+        this.threshold = threshold;
+        this.morphology = morphology;
+        this.minGroupSize = minGroupSize;
+        this.maxGroups = maxGroups;
+        this.maxForeground = maxForeground;
+        this.zones = zones;
+    }
+
+    /**
+     * Sets whether groups carry their {@link Moments}, such as for drawing bounding boxes. The
+     * first and second order sums are accumulated from the label image in one pass in Java,
+     * which makes labeling slower.
+     *
+     * @param moments true to compute the moments of every group
+     */
+    public void setMoments(boolean moments) {
+        this.moments = moments;
+    }
+
+    /**
+     * Finds connected groups of pixels close to the target color.
+     *
+     * @param image the input frame
+     * @return the groups in descending order
+     * @throws LabelingAbortedException if the frame exceeds the group or foreground limits
+     */
+    @Override
+    public List<Group> findConnectedGroups(BufferedImage image) {
+        prepare(image.getWidth(), image.getHeight());
+        copyToBgr(image);
+
+        // squared Euclidean distance, summed over channels, compared with the squared threshold
+        absdiff(bgr, target, difference);
+        difference.convertTo(squares, CV_32F);
+        multiply(squares, squares, squares);
+        transform(squares, sum, ones);
+        compare(sum, limit, mask, CMP_LT);
+        if (zones != null) {
+            bitwise_and(mask, zoneMat(), mask);
+        }
+
+        if (morphology != null) {
+            morphologyEx(mask, mask, morphologyOp(), kernel, new Point(-1, -1), 1, BORDER_CONSTANT, new Scalar(0));
+        }
+        if (countNonZero(mask) > maxForeground) {
+            throw new LabelingAbortedException("more than " + maxForeground + " foreground pixels");
+        }
+
+        int count = connectedComponentsWithStats(mask, labels, stats, centroids, 4, CV_32S);
+        if (moments) sumLabels(count);
+        List<Group> groups = new ArrayList<>();
+        try (IntIndexer sizes = stats.createIndexer(); DoubleIndexer means = centroids.createIndexer()) {
+            // label 0 is the background
+            for (int label = 1; label < count; label++) {
+                int size = sizes.get(label, CC_STAT_AREA);
+                if (size < minGroupSize) continue;
+                if (groups.size() == maxGroups) {
+                    throw new LabelingAbortedException("more than " + maxGroups + " groups");
+                }
+                if (moments) {
+                    int left = sizes.get(label, CC_STAT_LEFT);
+                    int top = sizes.get(label, CC_STAT_TOP);
+                    int s = label * SUMS;
+                    groups.add(Group.of(new Moments(size, sums[s], sums[s + 1], sums[s + 2], sums[s + 3], sums[s + 4],
+                            left, top, left + sizes.get(label, CC_STAT_WIDTH) - 1, top + sizes.get(label, CC_STAT_HEIGHT) - 1)));
+                    continue;
+                }
+                // the means of non-negative coordinates, rounded down as integer division does
+                int x = (int) Math.floor(means.get(label, 0));
+                int y = (int) Math.floor(means.get(label, 1));
+                groups.add(new Group(size, new Coordinate(x, y)));
+            }
+        }
+        Collections.sort(groups, Collections.reverseOrder());
+        return groups;
+    }
+
+    // accumulates x, y, x*x, y*y and x*y over the pixels of each label, SUMS longs per label
+    private void sumLabels(int count) {
+        if (sums.length < count * SUMS) sums = new long[count * SUMS];
+        Arrays.fill(sums, 0, count * SUMS, 0);
+        if (labelRow.length != width) labelRow = new int[width];
+        try (IntIndexer indexer = labels.createIndexer()) {
+            for (int y = 0; y < height; y++) {
+                indexer.get(y, 0, labelRow, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int label = labelRow[x];
+                    if (label == 0) continue;
+                    int s = label * SUMS;
+                    sums[s] += x;
+                    sums[s + 1] += y;
+                    sums[s + 2] += (long) x * x;
+                    sums[s + 3] += (long) y * y;
+                    sums[s + 4] += (long) x * y;
+                }
+            }
+        }
+    }
+
+    // the analyzed zones as a 0/255 mask, rebuilt when the zones are rasterized for a new size
+    private Mat zoneMat() {
+        ZoneMask current = zones.mask(width, height);
+        if (current != zoneMask) {
+            zoneMask = current;
+            zoneMat = new Mat(height, width, CV_8U, new Scalar(0));
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                Arrays.fill(row, (byte) 0);
+                int[] runs = current.runs(y);
+                for (int i = 0; i < runs.length; i += 2) {
+                    Arrays.fill(row, runs[i], runs[i + 1], (byte) 255);
+                }
+                zoneMat.data().position((long) y * width).put(row, 0, width);
+            }
+            zoneMat.data().position(0);
+        }
+        return zoneMat;
+    }
+
+    private int morphologyOp() {
+        return switch (morphology) {
+            case ERODE -> MORPH_ERODE;
+            case DILATE -> MORPH_DILATE;
+            case OPEN -> MORPH_OPEN;
+            case CLOSE -> MORPH_CLOSE;
+        };
+    }
+
+    // (re)allocates the native buffers when the frame size changes
+    private void prepare(int frameWidth, int frameHeight) {
+        if (frameWidth == width && frameHeight == height) return;
+        width = frameWidth;
+        height = frameHeight;
+        int r = (targetColor >> 16) & 0xFF;
+        int g = (targetColor >> 8) & 0xFF;
+        int b = targetColor & 0xFF;
+        bgr = new Mat(height, width, CV_8UC3);
+        target = new Mat(height, width, CV_8UC3, new Scalar(b, g, r, 0));
+        difference = new Mat(height, width, CV_8UC3);
+        squares = new Mat(height, width, CV_32FC3);
+        sum = new Mat(height, width, CV_32F);
+        limit = new Mat(height, width, CV_32F, new Scalar((double) threshold * threshold));
+        mask = new Mat(height, width, CV_8U);
+    }
+
+    // copies the frame into the native BGR buffer, in one bulk copy for 3-byte BGR images
+    private void copyToBgr(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR
+                && image.getRaster().getDataBuffer() instanceof DataBufferByte data
+                && image.getSampleModel() instanceof ComponentSampleModel model
+                && model.getScanlineStride() == width * 3
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0
+                && data.getOffset() == 0) {
+            bgr.data().put(data.getData(), 0, width * height * 3);
+            return;
+        }
+        int[] rgb = new int[width];
+        byte[] row = new byte[width * 3];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, rgb, 0, width);
+            for (int x = 0; x < width; x++) {
+                row[x * 3] = (byte) rgb[x];
+                row[x * 3 + 1] = (byte) (rgb[x] >> 8);
+                row[x * 3 + 2] = (byte) (rgb[x] >> 16);
+            }
+            bgr.data().position((long) y * width * 3).put(row, 0, row.length);
+        }
+        bgr.data().position(0);
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Java2DFrameConverter;
+
+/**
+ * Writes an annotated copy of the processed frames as a video, to check tracking by eye.
+ *
+ * Each frame shows the bounding box of every group found, the largest in green and the others
+ * in yellow, with a cross at each centroid, and optionally the binarized mask tinted magenta.
+ * Frames whose labeling was aborted get a red border.
+ *
+ * Frames are copied on the calling thread and handed through a bounded queue to an encoder
+ * thread, which draws the annotations, binarizes the mask and encodes the frame with FFmpeg, so
+ * encoding overlaps with detection of the next frames. When the encoder falls behind, the queue
+ * fills up and {@link #add} waits, which keeps memory bounded. Frames are timestamped with their
+ * video timestamps, so frames that are skipped or could not be decoded leave a gap rather than
+ * shifting the ones after them.
+ */
+public class OverlayRecorder implements AutoCloseable {
+    /**
+     * The default number of frames waiting to be encoded.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    private static final Color LARGEST = new Color(0x00FF00);
+    private static final Color OTHER = new Color(0xFFFF00);
+    private static final Color ABORTED = new Color(0xFF0000);
+    private static final int TINT = 0xFF00FF;
+    private static final int CROSS = 4;
+
+    // a frame waiting to be encoded; groups is null if labeling was aborted
+    private record Item(BufferedImage image, double timestamp, List<Group> groups) {}
+
+    private static final Item END = new Item(null, 0, null);
+
+    private final Path outputPath;
+    private final double frameRate;
+    private final ImageBinarizer maskBinarizer;
+    private final BlockingQueue<Item> queue;
+    private final Thread encoder;
+    private volatile IOException failure;
+    private FFmpegFrameRecorder recorder;
+    private long lastTimestampMicros = -1;
+    private boolean finished;
+
+    /**
+     * Starts the encoder thread. The video file is created when the first frame is encoded,
+     * with that frame's size.
+     *
+     * @param outputPath the video file to write; its extension selects the container
+     * @param frameRate the frame rate of the processed frames
+     * @param maskBinarizer the binarizer whose mask is tinted over the frames, or null for no mask
+     * @param queueCapacity the number of frames that may wait to be encoded, at least 1
+     */
+    public OverlayRecorder(Path outputPath, double frameRate, ImageBinarizer maskBinarizer, int queueCapacity) {
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be at least 1");
+        this.outputPath = outputPath;
+        this.frameRate = frameRate;
+        this.maskBinarizer = maskBinarizer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.encoder = new Thread(this::encode, "overlay-encoder");
+        encoder.setDaemon(true);
+        encoder.start();
+    }
+
+    /**
+     * Adds a processed frame, waiting while the queue is full.
+     *
+     * @param image the frame as processed; it is copied, so the caller may reuse it
+     * @param timestamp the frame's timestamp in seconds
+     * @param groups the groups found in the frame, largest first, or null if labeling was aborted
+     * @throws IOException if encoding has failed or the thread is interrupted while waiting
+     */
+    public void add(BufferedImage image, double timestamp, List<Group> groups) throws IOException {
+        if (failure != null) throw failure;
+        BufferedImage copy = new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+        put(new Item(copy, timestamp, groups));
+    }
+
+    /**
+     * Encodes the remaining frames and closes the video file.
+     *
+     * @throws IOException if encoding failed or the file cannot be closed
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+        put(END);
+        try {
+            encoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding the overlay", e);
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Stops encoding. An overlay that was not finished is left incomplete.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            finished = true;
+            encoder.interrupt();
+            try {
+                encoder.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void put(Item item) throws IOException {
+        try {
+            // an encoder that has failed no longer takes frames
+            while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (failure != null) throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while queueing an overlay frame", e);
+        }
+    }
+
+    private void encode() {
+        try (Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            try {
+                Item item;
+                while ((item = queue.take()) != END) {
+                    BufferedImage annotated = annotate(item);
+                    if (recorder == null) start(annotated.getWidth(), annotated.getHeight());
+                    long micros = Math.max(lastTimestampMicros + 1, Math.round(item.timestamp() * 1_000_000));
+                    recorder.setTimestamp(micros);
+                    recorder.record(converter.convert(annotated));
+                    lastTimestampMicros = micros;
+                }
+                if (recorder != null) recorder.stop();
+            } finally {
+                if (recorder != null) recorder.release();
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Overlay encoding was interrupted", e);
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException("Cannot encode the overlay: " + e.getMessage(), e);
+        }
+    }
+
+    private void start(int width, int height) throws FFmpegFrameRecorder.Exception {
+        recorder = new FFmpegFrameRecorder(outputPath.toFile(), width, height);
+        recorder.setFrameRate(frameRate);
+        recorder.setVideoQuality(2);
+        recorder.start();
+    }
+
+    private BufferedImage annotate(Item item) {
+        BufferedImage frame = new BufferedImage(item.image().getWidth(), item.image().getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = frame.createGraphics();
+        try {
+            g.drawImage(item.image(), 0, 0, null);
+            if (maskBinarizer != null) tint(frame, maskBinarizer.toBinaryArray(item.image()));
+            if (item.groups() == null) {
+                g.setColor(ABORTED);
+                g.setStroke(new BasicStroke(4));
+                g.drawRect(0, 0, frame.getWidth() - 1, frame.getHeight() - 1);
+                return frame;
+            }
+            g.setStroke(new BasicStroke(1));
+            // the largest group is drawn last so it stays on top
+            for (int i = item.groups().size() - 1; i >= 0; i--) {
+                Group group = item.groups().get(i);
+                g.setColor(i == 0 ? LARGEST : OTHER);
+                Moments moments = group.moments();
+                if (moments != null) {
+                    g.drawRect(moments.minX(), moments.minY(), moments.width() - 1, moments.height() - 1);
+                }
+                int x = group.centroid().x();
+                int y = group.centroid().y();
+                g.drawLine(x - CROSS, y, x + CROSS, y);
+                g.drawLine(x, y - CROSS, x, y + CROSS);
+            }
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+
+    // blends the mask color half over every foreground pixel
+    private static void tint(BufferedImage frame, int[][] mask) {
+        for (int y = 0; y < mask.length; y++) {
+            for (int x = 0; x < mask[y].length; x++) {
+                if (mask[y][x] == 0) continue;
+                int rgb = frame.getRGB(x, y);
+                frame.setRGB(x, y, ((rgb >> 1) & 0x7F7F7F) + ((TINT >> 1) & 0x7F7F7F));
+            }
+        }
+    }
+}
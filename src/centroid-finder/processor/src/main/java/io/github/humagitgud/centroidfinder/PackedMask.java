@@ -0,0 +1,266 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.Arrays;
+
+/**
+ * A binary image packed 64 pixels to a long, one array of words per row.
+ *
+ * Pixel (x, y) is bit x % 64 of word x / 64 of row y. Bits past the right edge of the
+ * image are always 0.
+ *
+ * Morphological operations work on whole words: a 3x3 erosion or dilation is a shift, AND
+ * or OR of neighboring words in each row followed by the same with the rows above and below,
+ * so 64 pixels are handled by a handful of instructions. Pixels outside the image count as
+ * background, so erosion removes foreground pixels touching the image border.
+ */
+public final class PackedMask {
+    private final int width;
+    private final int height;
+    private final int words;
+    private final long[][] rows;
+
+    private PackedMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = (width + 63) >>> 6;
+        this.rows = new long[height][words];
+    }
+
+    /**
+     * Packs a binary image.
+     *
+     * @param image a rectangular 2D array of 0s and 1s, indexed [y][x]
+     * @return the packed mask
+     */
+    public static PackedMask of(int[][] image) {
+        PackedMask mask = new PackedMask(image[0].length, image.length);
+        mask.pack(image);
+        return mask;
+    }
+
+    /**
+     * Returns whether this mask has the given size, so it can be reused for an image.
+     *
+     * @param width the image's width
+     * @param height the image's height
+     * @return true if pack and unpack accept images of that size
+     */
+    boolean hasSize(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    /**
+     * Returns an empty mask of the same size, to be reused with the in-place operations.
+     *
+     * @return a new mask with no pixels set
+     */
+    PackedMask emptyCopy() {
+        return new PackedMask(width, height);
+    }
+
+    /**
+     * Packs a binary image of this mask's size into this mask, replacing its pixels.
+     *
+     * @param image a 2D array of 0s and 1s of this mask's size, indexed [y][x]
+     */
+    void pack(int[][] image) {
+        for (int y = 0; y < height; y++) {
+            int[] row = image[y];
+            long[] packed = rows[y];
+            Arrays.fill(packed, 0);
+            for (int x = 0; x < width; x++) {
+                if (row[x] != 0) packed[x >>> 6] |= 1L << x;
+            }
+        }
+    }
+
+    /**
+     * Unpacks this mask into a binary image.
+     *
+     * @return a 2D array of 0s and 1s, indexed [y][x]
+     */
+    public int[][] toArray() {
+        int[][] image = new int[height][width];
+        unpack(image);
+        return image;
+    }
+
+    /**
+     * Unpacks this mask into a binary image of its size, replacing the image's pixels.
+     *
+     * @param image a 2D array of this mask's size, indexed [y][x]
+     */
+    void unpack(int[][] image) {
+        for (int y = 0; y < height; y++) {
+            long[] packed = rows[y];
+            int[] row = image[y];
+            Arrays.fill(row, 0);
+            for (int w = 0; w < words; w++) {
+                long word = packed[w];
+                // visit only the set bits
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    row[(w << 6) + bit] = 1;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a pixel is set.
+     *
+     * @param x the pixel's x coordinate
+     * @param y the pixel's y coordinate
+     * @return true for a foreground pixel
+     */
+    public boolean get(int x, int y) {
+        return (rows[y][x >>> 6] & (1L << x)) != 0;
+    }
+
+    /**
+     * Returns the number of foreground pixels.
+     *
+     * @return the count of set bits
+     */
+    public long cardinality() {
+        long count = 0;
+        for (long[] row : rows) {
+            for (long word : row) count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the runs of foreground pixels in a row, found a word at a time.
+     *
+     * @param y the row
+     * @return the runs as pairs of first x and end x (exclusive): x0, x1, x0, x1, ...
+     */
+    public int[] runs(int y) {
+        long[] packed = rows[y];
+        int[] runs = new int[8];
+        int count = 0;
+        int w = 0;
+        long word = packed[0];
+        while (true) {
+            // skip to the next set bit, which starts a run
+            while (word == 0 && ++w < words) word = packed[w];
+            if (word == 0) break;
+            int start = (w << 6) + Long.numberOfTrailingZeros(word);
+
+            // skip to the next clear bit, which ends it
+            word = ~word & (-1L << (start & 63));
+            while (word == 0 && ++w < words) word = ~packed[w];
+            int end = word == 0 ? width : Math.min(width, (w << 6) + Long.numberOfTrailingZeros(word));
+
+            if (count == runs.length) runs = Arrays.copyOf(runs, count * 2);
+            runs[count++] = start;
+            runs[count++] = end;
+            if (end >= width) break;
+            word = packed[w] & (-1L << (end & 63));
+        }
+        return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * Returns the 3x3 erosion of this mask: a pixel stays set only if it and all 8 of its
+     * neighbors are set.
+     *
+     * @return a new, eroded mask
+     */
+    public PackedMask erode() {
+        PackedMask rowsCombined = emptyCopy();
+        horizontal(true, rowsCombined);
+        PackedMask result = emptyCopy();
+        rowsCombined.vertical(true, result);
+        return result;
+    }
+
+    /**
+     * Returns the 3x3 dilation of this mask: a pixel is set if it or any of its 8 neighbors is set.
+     *
+     * @return a new, dilated mask
+     */
+    public PackedMask dilate() {
+        PackedMask rowsCombined = emptyCopy();
+        horizontal(false, rowsCombined);
+        PackedMask result = emptyCopy();
+        rowsCombined.vertical(false, result);
+        return result;
+    }
+
+    /**
+     * Returns the 3x3 opening of this mask (erosion then dilation), which removes specks and
+     * thin lines smaller than 3x3 pixels while keeping the shape of larger groups.
+     *
+     * @return a new, opened mask
+     */
+    public PackedMask open() {
+        return erode().dilate();
+    }
+
+    /**
+     * Returns the 3x3 closing of this mask (dilation then erosion), which fills one-pixel holes
+     * and gaps inside groups.
+     *
+     * @return a new, closed mask
+     */
+    public PackedMask close() {
+        return dilate().erode();
+    }
+
+    /**
+     * Erodes this mask in place, using scratch, an empty copy of this mask, as working space.
+     *
+     * @param scratch a mask of the same size, whose pixels are overwritten
+     */
+    void erodeInPlace(PackedMask scratch) {
+        horizontal(true, scratch);
+        scratch.vertical(true, this);
+    }
+
+    /**
+     * Dilates this mask in place, using scratch, an empty copy of this mask, as working space.
+     *
+     * @param scratch a mask of the same size, whose pixels are overwritten
+     */
+    void dilateInPlace(PackedMask scratch) {
+        horizontal(false, scratch);
+        scratch.vertical(false, this);
+    }
+
+    // combines each pixel with its left and right neighbors, writing the result to dst
+    private void horizontal(boolean and, PackedMask dst) {
+        long lastWordMask = (width & 63) == 0 ? -1L : (1L << width) - 1;
+        for (int y = 0; y < height; y++) {
+            long[] src = rows[y];
+            long[] out = dst.rows[y];
+            for (int w = 0; w < words; w++) {
+                long word = src[w];
+                long previous = w > 0 ? src[w - 1] : 0;
+                long next = w < words - 1 ? src[w + 1] : 0;
+                long left = (word << 1) | (previous >>> 63);  // pixel x - 1 moved to bit x
+                long right = (word >>> 1) | (next << 63);     // pixel x + 1 moved to bit x
+                out[w] = and ? word & left & right : word | left | right;
+            }
+            out[words - 1] &= lastWordMask;
+        }
+    }
+
+    // combines each row with the rows above and below, writing the result to dst
+    private void vertical(boolean and, PackedMask dst) {
+        for (int y = 0; y < height; y++) {
+            long[] above = y > 0 ? rows[y - 1] : null;
+            long[] row = rows[y];
+            long[] below = y < height - 1 ? rows[y + 1] : null;
+            long[] out = dst.rows[y];
+            for (int w = 0; w < words; w++) {
+                // rows outside the image are background
+                long up = above != null ? above[w] : 0;
+                long down = below != null ? below[w] : 0;
+                out[w] = and ? up & row[w] & down : up | row[w] | down;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A content-addressed, size-bounded cache of finished result files.
+ * 
+ * Entries are keyed by the hash of the input video combined with every parameter that affects
+ * the output (see {@link #key(String, String)}) and stored as "<key>.csv" in the cache directory.
+ * A hit copies the cached file to the requested output instead of reprocessing the video.
+ * 
+ * The cache is bounded by total size on disk. Each entry's modification time is refreshed when it
+ * is used, and after every store the least recently used entries are deleted until the cache fits.
+ */
+public class ResultCache {
+    private final Path directory;
+    private final long maxBytes;
+
+    /**
+     * Creates a ResultCache stored in the given directory.
+     *
+     * @param directory the cache directory, created if it does not exist
+     * @param maxBytes the maximum total size of all cached entries in bytes
+     * @throws IOException if the directory cannot be created
+     */
+    public ResultCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Builds a cache key from a video hash and a description of the processing parameters.
+     *
+     * @param videoHash the content hash of the input video (see {@link VideoHash})
+     * @param parameters every parameter that affects the output, e.g. "targetColor=FF0000;threshold=100"
+     * @return the cache key
+     */
+    public static String key(String videoHash, String parameters) {
+        return VideoHash.ofString(videoHash + "|" + parameters);
+    }
+
+    /**
+     * Copies the cached result for the given key to the output path if one exists.
+     *
+     * @param key the cache key
+     * @param output where to place the cached result
+     * @return true if the result was restored, false on a cache miss
+     * @throws IOException if the cached result cannot be copied
+     */
+    public boolean restore(String key, Path output) throws IOException {
+        Path entry = entryPath(key);
+        try {
+            Files.copy(entry, output, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            // missing, or evicted by another process just now
+            if (entry.toString().equals(e.getFile())) return false;
+            throw e;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // evicted after the copy, which is complete
+        }
+        return true;
+    }
+
+    /**
+     * Stores a finished result under the given key and evicts least recently used entries
+     * if the cache exceeds its size limit.
+     *
+     * @param key the cache key
+     * @param result the finished result file to cache
+     * @throws IOException if the result cannot be copied into the cache
+     */
+    public void store(String key, Path result) throws IOException {
+        Path entry = entryPath(key);
+        // a temp file of its own, so processes storing the same key never share one
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.copy(result, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        evict();
+    }
+
+    // an entry with the attributes read when eviction started
+    private record Entry(Path path, long size, FileTime lastModified) {}
+
+    // deletes least recently used entries until the cache fits in maxBytes; entries deleted by
+    // another process in the meantime are skipped
+    private void evict() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".csv")).forEach(paths::add);
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : paths) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime()));
+            } catch (NoSuchFileException e) {
+                // already evicted
+            }
+        }
+
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.size();
+        }
+        if (total <= maxBytes) return;
+
+        entries.sort(Comparator.comparing(Entry::lastModified));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) break;
+            total -= entry.size();
+            Files.deleteIfExists(entry.path());
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ".csv");
+    }
+}
@@ -0,0 +1,256 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sidecar index of an output CSV that maps time to byte offsets, so a time range of an
+ * hours-long result can be read without scanning the rows before it.
+ *
+ * The index is stored next to the output as "&lt;output&gt;.idx": a header (magic, bucket length
+ * in seconds, number of the first bucket) followed by one long per bucket, the byte offset of the
+ * first row whose timestamp, as written to the CSV, is in that bucket or later. Bucket n covers
+ * timestamps from n to n + 1 bucket lengths, so the entry for a time is found by arithmetic and
+ * one read at a fixed position.
+ *
+ * The index is built incrementally by a {@link Writer} attached to a {@link CsvWriter}, and
+ * written whenever the CSV writer is flushed. {@link #readRange(Path, double, double)} reads rows
+ * through the index when there is one, and only the committed part of a file with a commit marker.
+ */
+public final class SeekIndex {
+    private static final int MAGIC = 0x43465349; // "CFSI"
+    private static final int HEADER_BYTES = 16;
+    private static final int BUCKET_SECONDS = 1;
+
+    private SeekIndex() {}
+
+    /**
+     * Returns the index path used for the given output file.
+     *
+     * @param outputPath path to the output CSV file
+     * @return path of the index next to the output
+     */
+    public static Path pathFor(String outputPath) {
+        return Path.of(outputPath + ".idx");
+    }
+
+    /**
+     * Starts a new index for an output file, replacing any earlier one.
+     *
+     * @param outputPath path to the output CSV file
+     * @return the index writer
+     * @throws IOException if the index cannot be created
+     */
+    public static Writer create(String outputPath) throws IOException {
+        return new Writer(pathFor(outputPath));
+    }
+
+    /**
+     * Starts an index for the rows already in the first bytes of an output file, such as those
+     * kept by a resumed run or restored from the result cache; later rows are added as usual.
+     *
+     * @param outputPath path to the output CSV file
+     * @param length the number of bytes of complete rows to index
+     * @return the index writer, holding the existing rows
+     * @throws IOException if the output cannot be read or the index cannot be written
+     */
+    public static Writer rebuild(String outputPath, long length) throws IOException {
+        Writer writer = create(outputPath);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(outputPath)))) {
+            StringBuilder timestamp = new StringBuilder();
+            long offset = 0;
+            long rowStart = 0;
+            boolean inTimestamp = true;
+            int b;
+            while (offset < length && (b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    writer.add(parseTimestamp(timestamp, outputPath), rowStart);
+                    timestamp.setLength(0);
+                    rowStart = offset;
+                    inTimestamp = true;
+                } else if (b == ',') {
+                    inTimestamp = false;
+                } else if (inTimestamp) {
+                    timestamp.append((char) b);
+                }
+            }
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
+    }
+
+    private static double parseTimestamp(CharSequence timestamp, String outputPath) throws IOException {
+        try {
+            return Double.parseDouble(timestamp.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed row in " + outputPath + ": " + timestamp, e);
+        }
+    }
+
+    // the bucket of a timestamp as the CSV writes it, to the hundredth of a second
+    private static long bucketOf(double timestamp) {
+        return Math.floorDiv(Math.round(timestamp * 100), BUCKET_SECONDS * 100L);
+    }
+
+    /**
+     * Reads the rows of an output CSV with timestamps from start up to, but not including, end.
+     * With an index only the rows from the start's bucket on are read; without one the file is
+     * scanned from the beginning. If the output has a commit marker, only its committed bytes
+     * are read.
+     *
+     * @param csv the output file
+     * @param start the start of the range in seconds
+     * @param end the end of the range in seconds
+     * @return the rows in the range, in file order
+     * @throws IOException if the files cannot be read or a row is malformed
+     */
+    public static List<String> readRange(Path csv, double start, double end) throws IOException {
+        CommitMarker marker = CommitMarker.read(CommitMarker.pathFor(csv.toString()));
+        List<String> rows = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(csv.toFile(), "r")) {
+            long limit = marker != null ? Math.min(marker.bytes(), file.length()) : file.length();
+            long offset = Math.min(startOffset(pathFor(csv.toString()), start), limit);
+            file.seek(offset);
+            InputStream in = new BoundedInputStream(Channels.newInputStream(file.getChannel()), limit - offset);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                double timestamp = parseTimestamp(comma < 0 ? line : line.substring(0, comma), csv.toString());
+                if (timestamp >= end) break;
+                if (timestamp >= start) rows.add(line);
+            }
+        }
+        return rows;
+    }
+
+    // the offset of the first row that may be at or after the time, or 0 without a usable index
+    private static long startOffset(Path indexPath, double time) throws IOException {
+        if (!Files.exists(indexPath)) return 0;
+        try (RandomAccessFile index = new RandomAccessFile(indexPath.toFile(), "r")) {
+            if (index.length() < HEADER_BYTES + Long.BYTES || index.readInt() != MAGIC
+                    || index.readInt() != BUCKET_SECONDS) {
+                return 0;
+            }
+            long first = index.readLong();
+            long entries = (index.length() - HEADER_BYTES) / Long.BYTES;
+            // one bucket early: a row on a bucket boundary may have been indexed a hundredth of a
+            // second off from its written timestamp
+            long entry = Math.max(0, Math.min(bucketOf(time) - 1 - first, entries - 1));
+            index.seek(HEADER_BYTES + entry * Long.BYTES);
+            return index.readLong();
+        }
+    }
+
+    /**
+     * Builds an index as rows are written; see {@link CsvWriter#setSeekIndex(Writer)}.
+     * Entries are kept in memory until {@link #flush()}.
+     */
+    public static final class Writer implements AutoCloseable {
+        private final DataOutputStream out;
+        private long[] pending = new long[64];
+        private int pendingCount;
+        private long firstBucket = Long.MIN_VALUE;
+        private long nextBucket;
+        private boolean headerWritten;
+
+        private Writer(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        /**
+         * Adds a row. Rows must be added in file order with non-decreasing timestamps.
+         *
+         * @param timestamp the row's timestamp in seconds
+         * @param offset the byte offset of the row in the output file
+         */
+        public void add(double timestamp, long offset) {
+            long bucket = bucketOf(timestamp);
+            if (firstBucket == Long.MIN_VALUE) {
+                firstBucket = bucket;
+                nextBucket = bucket;
+            }
+            // the row starts its own bucket and any empty ones before it
+            for (; nextBucket <= bucket; nextBucket++) {
+                if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+                pending[pendingCount++] = offset;
+            }
+        }
+
+        /**
+         * Writes the entries added so far to the index file.
+         *
+         * @throws IOException if the index cannot be written
+         */
+        public void flush() throws IOException {
+            if (firstBucket == Long.MIN_VALUE) return;
+            if (!headerWritten) {
+                out.writeInt(MAGIC);
+                out.writeInt(BUCKET_SECONDS);
+                out.writeLong(firstBucket);
+                headerWritten = true;
+            }
+            for (int i = 0; i < pendingCount; i++) out.writeLong(pending[i]);
+            pendingCount = 0;
+            out.flush();
+        }
+
+        /**
+         * Writes the remaining entries and closes the index file.
+         *
+         * @throws IOException if the index cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    // reads at most a given number of bytes, so rows past a commit marker are never read
+    private static final class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = in.read(buffer, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A FrameSource that reads frames from a {@link FrameStore} through memory-mapped files.
+ * 
+ * The frame file is mapped in segments of whole frames (each below the 2 GB mapping limit)
+ * as they are first needed. Returned images are backed directly by the mapping, so frames are
+ * never copied onto the heap.
+ */
+public class StoredFrameSource implements FrameSource {
+    private final FileChannel frames;
+    private final ByteBuffer index;
+    private final int width;
+    private final int height;
+    private final boolean reducedColor;
+    private final double frameRate;
+    private final int frameCount;
+    private final int frameSize;
+    private final int framesPerSegment;
+    private final MappedByteBuffer[] segments;
+    private int nextFrame;
+    private BufferedImage image;
+
+    /**
+     * Opens a stored video.
+     *
+     * @param framesPath path to the raw frame file
+     * @param indexPath path to the index file
+     * @throws IOException if the files cannot be opened or the index is invalid
+     */
+    StoredFrameSource(Path framesPath, Path indexPath) throws IOException {
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+        }
+        if (index.getInt(0) != FrameStore.MAGIC) {
+            throw new IOException("Invalid frame store index: " + indexPath);
+        }
+        this.width = index.getInt(4);
+        this.height = index.getInt(8);
+        this.frameSize = width * height * index.getInt(12);
+        this.reducedColor = index.getInt(20) == 1;
+        this.frameRate = index.getDouble(24);
+        this.frameCount = index.getInt(32);
+        this.framesPerSegment = Math.max(1, Integer.MAX_VALUE / frameSize);
+        this.segments = new MappedByteBuffer[(frameCount + framesPerSegment - 1) / framesPerSegment];
+        this.frames = FileChannel.open(framesPath, StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns the number of frames in the stored video.
+     *
+     * @return the frame count
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public double getFrameRate() {
+        return frameRate;
+    }
+
+    @Override
+    public void seekToFrame(int frameNumber) {
+        nextFrame = frameNumber;
+    }
+
+    @Override
+    public boolean grab() throws IOException {
+        if (nextFrame >= frameCount) return false;
+        image = frame(nextFrame++);
+        return true;
+    }
+
+    @Override
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the given frame as an image backed by the memory mapping.
+     *
+     * @param frameNumber zero-based frame index
+     * @return the frame image
+     * @throws IOException if the frame file cannot be mapped
+     */
+    public BufferedImage frame(int frameNumber) throws IOException {
+        int segment = frameNumber / framesPerSegment;
+        long segmentStart = index.getLong(FrameStore.HEADER_BYTES + segment * framesPerSegment * Long.BYTES);
+        if (segments[segment] == null) {
+            int framesInSegment = Math.min(framesPerSegment, frameCount - segment * framesPerSegment);
+            segments[segment] = frames.map(FileChannel.MapMode.READ_ONLY, segmentStart, (long) framesInSegment * frameSize);
+        }
+        long offset = index.getLong(FrameStore.HEADER_BYTES + frameNumber * Long.BYTES);
+        ByteBuffer pixels = segments[segment].slice((int) (offset - segmentStart), frameSize);
+        return FrameStore.wrap(pixels, width, height, reducedColor);
+    }
+
+    @Override
+    public void close() throws IOException {
+        frames.close();
+    }
+}
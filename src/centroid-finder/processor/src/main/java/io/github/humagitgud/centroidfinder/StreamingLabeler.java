@@ -0,0 +1,244 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Finds connected groups of 1s in a binary image that is fed in one row at a time, top to bottom.
+ *
+ * Groups follow the same rules as {@link DfsBinaryGroupFinder}: pixels are connected vertically
+ * and horizontally, not diagonally, and each group carries its size, centroid (integer division)
+ * and {@link Moments}.
+ *
+ * Only the labels of the previous row are kept. Each row is split into runs of 1s. A run joins
+ * every group it touches in the row above, merging them if there are several, or starts a new
+ * group. A group that has no pixel in the newest row can never grow again, so it is passed to the
+ * sink and its slot is reused. Memory is therefore proportional to the image width, however tall
+ * the image is. Groups reach the sink in the order they are completed, not sorted.
+ */
+public class StreamingLabeler {
+    private final int width;
+    private final int minGroupSize;
+    private final Consumer<Group> sink;
+
+    // slot of the group owning each pixel in the previous and current row, -1 for background
+    private int[] previous;
+    private int[] current;
+    private int y;
+
+    // group slots: union-find parent, row last seen in, and accumulated moments
+    private int[] parent = new int[64];
+    private int[] seen = new int[64];
+    private Accumulator[] stats = new Accumulator[64];
+    private int[] free = new int[64];
+    private int freeCount;
+    private int[] active = new int[64];
+    private int activeCount;
+    private int slotCount;
+
+    /**
+     * Creates a labeler for images of the given width.
+     *
+     * @param width the number of pixels in each row
+     * @param minGroupSize the smallest group size passed to the sink, at least 1
+     * @param sink receives each group once it is complete
+     */
+    public StreamingLabeler(int width, int minGroupSize, Consumer<Group> sink) {
+        if (width < 1) throw new IllegalArgumentException("width must be at least 1");
+        if (minGroupSize < 1) throw new IllegalArgumentException("minGroupSize must be at least 1");
+        this.width = width;
+        this.minGroupSize = minGroupSize;
+        this.sink = sink;
+        this.previous = new int[width];
+        this.current = new int[width];
+        Arrays.fill(previous, -1);
+    }
+
+    /**
+     * Labels the next row of the image.
+     *
+     * @param row the row's pixels, 1 for foreground and 0 for background
+     */
+    public void addRow(int[] row) {
+        if (row.length != width) {
+            throw new IllegalArgumentException("Expected a row of " + width + " pixels, got " + row.length);
+        }
+        Arrays.fill(current, -1);
+
+        int x = 0;
+        while (x < width) {
+            if (row[x] == 0) {
+                x++;
+                continue;
+            }
+            int x0 = x;
+            while (x < width && row[x] != 0) x++;
+            int x1 = x - 1;
+
+            // join every group this run touches in the row above
+            int slot = -1;
+            for (int c = x0; c <= x1; c++) {
+                if (previous[c] < 0) continue;
+                int root = find(previous[c]);
+                if (slot < 0) slot = root;
+                else if (root != slot) slot = union(slot, root);
+            }
+            if (slot < 0) slot = allocate();
+
+            stats[slot].addRun(x0, x1, y);
+            Arrays.fill(current, x0, x1 + 1, slot);
+        }
+
+        // point the row at final roots and mark which groups it contains
+        for (int c = 0; c < width; c++) {
+            if (current[c] >= 0) {
+                current[c] = find(current[c]);
+                seen[current[c]] = y;
+            }
+        }
+
+        // groups absent from this row are complete; merged slots are no longer referenced
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (parent[slot] != slot) {
+                release(slot);
+            } else if (seen[slot] != y) {
+                emit(slot);
+                release(slot);
+            } else {
+                active[kept++] = slot;
+            }
+        }
+        activeCount = kept;
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+        y++;
+    }
+
+    /**
+     * Completes every group still open at the bottom of the image. Call this after the last row.
+     */
+    public void finish() {
+        for (int i = 0; i < activeCount; i++) {
+            int slot = active[i];
+            if (parent[slot] == slot) emit(slot);
+            release(slot);
+        }
+        activeCount = 0;
+        Arrays.fill(previous, -1);
+    }
+
+    /**
+     * Returns the number of rows labeled so far.
+     *
+     * @return the row count
+     */
+    public int getRows() {
+        return y;
+    }
+
+    private int find(int slot) {
+        while (parent[slot] != slot) {
+            parent[slot] = parent[parent[slot]];
+            slot = parent[slot];
+        }
+        return slot;
+    }
+
+    // merges group b into group a and returns a
+    private int union(int a, int b) {
+        parent[b] = a;
+        stats[a].add(stats[b]);
+        return a;
+    }
+
+    private int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == parent.length) {
+                int size = parent.length * 2;
+                parent = Arrays.copyOf(parent, size);
+                seen = Arrays.copyOf(seen, size);
+                stats = Arrays.copyOf(stats, size);
+                free = Arrays.copyOf(free, size);
+                active = Arrays.copyOf(active, size);
+            }
+            stats[slot] = new Accumulator();
+        }
+        parent[slot] = slot;
+        stats[slot].reset();
+        active[activeCount++] = slot;
+        return slot;
+    }
+
+    private void release(int slot) {
+        free[freeCount++] = slot;
+    }
+
+    private void emit(int slot) {
+        Accumulator a = stats[slot];
+        if (a.count < minGroupSize) return;
+        sink.accept(Group.of(new Moments(a.count, a.sumX, a.sumY, a.sumXX, a.sumYY, a.sumXY,
+                a.minX, a.minY, a.maxX, a.maxY)));
+    }
+
+    // moments of one group, accumulated a run of pixels at a time
+    private static final class Accumulator {
+        long count;
+        long sumX;
+        long sumY;
+        long sumXX;
+        long sumYY;
+        long sumXY;
+        int minX;
+        int minY;
+        int maxX;
+        int maxY;
+
+        void reset() {
+            count = sumX = sumY = sumXX = sumYY = sumXY = 0;
+            minX = minY = Integer.MAX_VALUE;
+            maxX = maxY = Integer.MIN_VALUE;
+        }
+
+        // adds the pixels x0..x1 of row y
+        void addRun(int x0, int x1, int y) {
+            long n = x1 - x0 + 1;
+            long xs = (long) (x0 + x1) * n / 2;
+            count += n;
+            sumX += xs;
+            sumY += n * y;
+            sumXX += squares(x1) - squares(x0 - 1);
+            sumYY += n * y * y;
+            sumXY += xs * y;
+            minX = Math.min(minX, x0);
+            maxX = Math.max(maxX, x1);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        void add(Accumulator other) {
+            count += other.count;
+            sumX += other.sumX;
+            sumY += other.sumY;
+            sumXX += other.sumXX;
+            sumYY += other.sumYY;
+            sumXY += other.sumXY;
+            minX = Math.min(minX, other.minX);
+            maxX = Math.max(maxX, other.maxX);
+            minY = Math.min(minY, other.minY);
+            maxY = Math.max(maxY, other.maxY);
+        }
+
+        // 0^2 + 1^2 + ... + k^2
+        private static long squares(long k) {
+            return k < 0 ? 0 : k * (k + 1) * (2 * k + 1) / 6;
+        }
+    }
+}
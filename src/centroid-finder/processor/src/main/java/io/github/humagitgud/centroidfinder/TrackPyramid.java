@@ -0,0 +1,222 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Summaries of the track at several time resolutions, written next to the per-frame output so
+ * that zoomed-out charts can read one row per second, minute or hour instead of one per frame.
+ *
+ * Each level splits time into buckets of a whole number of seconds, aligned to multiples of that
+ * length, and writes one row per bucket to "&lt;output&gt;.summary-&lt;n&gt;s.csv":
+ *
+ *   start,frames,presence,minX,maxX,meanX,minY,maxY,meanY
+ *
+ * where start is the bucket's start time in seconds, frames is the number of rows in the bucket,
+ * presence is the share of them with a centroid, and the coordinates summarize the centroids of
+ * the largest group. A bucket without any centroid has -1 coordinates. Aborted frames count as
+ * frames without a centroid.
+ *
+ * Rows are added in time order and each level only keeps its current bucket, so memory does not
+ * grow with the length of the video. Frames are assigned to buckets by their timestamps as the
+ * output CSV writes them (to the hundredth of a second), so a pyramid rebuilt from the CSV is
+ * the same as one built while processing.
+ */
+public class TrackPyramid implements AutoCloseable {
+    /**
+     * The default levels: 1 second, 10 seconds, 1 minute, 10 minutes and 1 hour.
+     */
+    public static final int[] DEFAULT_LEVELS = {1, 10, 60, 600, 3600};
+
+    private final Level[] levels;
+
+    /**
+     * Creates the level files of an output file, replacing any earlier ones.
+     *
+     * @param outputPath the per-frame output file
+     * @param levelSeconds the bucket length of each level in seconds, each at least 1
+     * @throws IOException if a level file cannot be created
+     */
+    public TrackPyramid(String outputPath, int[] levelSeconds) throws IOException {
+        if (levelSeconds.length == 0) throw new IllegalArgumentException("At least one level is needed");
+        this.levels = new Level[levelSeconds.length];
+        try {
+            for (int i = 0; i < levelSeconds.length; i++) {
+                if (levelSeconds[i] < 1) throw new IllegalArgumentException("Levels must be at least 1 second");
+                levels[i] = new Level(levelSeconds[i], Files.newBufferedWriter(pathFor(outputPath, levelSeconds[i])));
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the path of a level file.
+     *
+     * @param outputPath the per-frame output file
+     * @param seconds the bucket length of the level
+     * @return the level file next to the output
+     */
+    public static Path pathFor(String outputPath, int seconds) {
+        return Path.of(outputPath + ".summary-" + seconds + "s.csv");
+    }
+
+    /**
+     * Parses a comma-separated list of level lengths in seconds.
+     *
+     * @param levels the list, such as "1,10,60"
+     * @return the level lengths
+     * @throws IllegalArgumentException if the list is malformed or a level is less than 1 second
+     */
+    public static int[] parseLevels(String levels) {
+        String[] parts = levels.split(",");
+        int[] seconds = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) seconds[i] = Integer.parseInt(parts[i].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Summary levels must be whole seconds separated by commas");
+        }
+        for (int level : seconds) {
+            if (level < 1) throw new IllegalArgumentException("Summary levels must be at least 1 second");
+        }
+        return seconds;
+    }
+
+    /**
+     * Adds the next frame of the track.
+     *
+     * @param timestamp the frame's timestamp in seconds, not before that of the previous frame
+     * @param centroid the centroid of the largest group, or null if there is none
+     * @throws IOException if a finished bucket cannot be written
+     */
+    public void add(double timestamp, Coordinate centroid) throws IOException {
+        long centis = Math.round(timestamp * 100);
+        for (Level level : levels) {
+            level.add(centis, centroid);
+        }
+    }
+
+    /**
+     * Adds the rows of an existing output CSV (see {@link CsvWriter}), such as the part written
+     * before a resumed run or a restored cached result.
+     *
+     * @param csv the output file
+     * @throws IOException if the file cannot be read or a row is malformed
+     */
+    public void addRows(Path csv) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", 4);
+                if (fields.length < 3) throw new IOException("Malformed row in " + csv + ": " + line);
+                try {
+                    int x = Integer.parseInt(fields[1]);
+                    int y = Integer.parseInt(fields[2]);
+                    add(Double.parseDouble(fields[0]), x < 0 ? null : new Coordinate(x, y));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed row in " + csv + ": " + line, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the rows written so far to the level files, for readers that follow a live run.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public void flush() throws IOException {
+        for (Level level : levels) {
+            level.out.flush();
+        }
+    }
+
+    /**
+     * Writes the buckets still open after the last frame.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public void finish() throws IOException {
+        for (Level level : levels) {
+            level.writeBucket();
+        }
+        flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (Level level : levels) {
+            if (level == null) continue;
+            try {
+                level.out.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    // the open bucket of one level
+    private static final class Level {
+        private final long length;
+        private final BufferedWriter out;
+        private long bucket = Long.MIN_VALUE;
+        private int frames;
+        private int present;
+        private int minX;
+        private int maxX;
+        private long sumX;
+        private int minY;
+        private int maxY;
+        private long sumY;
+
+        Level(int seconds, BufferedWriter out) {
+            this.length = seconds * 100L;
+            this.out = out;
+        }
+
+        void add(long centis, Coordinate centroid) throws IOException {
+            long index = Math.floorDiv(centis, length);
+            if (index != bucket) {
+                writeBucket();
+                bucket = index;
+            }
+            frames++;
+            if (centroid == null) return;
+            if (present == 0) {
+                minX = maxX = centroid.x();
+                minY = maxY = centroid.y();
+            } else {
+                minX = Math.min(minX, centroid.x());
+                maxX = Math.max(maxX, centroid.x());
+                minY = Math.min(minY, centroid.y());
+                maxY = Math.max(maxY, centroid.y());
+            }
+            sumX += centroid.x();
+            sumY += centroid.y();
+            present++;
+        }
+
+        void writeBucket() throws IOException {
+            if (frames == 0) return;
+            double start = bucket * length / 100.0;
+            if (present == 0) {
+                out.write(String.format(Locale.ROOT, "%.2f,%d,0.000,-1,-1,-1,-1,-1,-1%n", start, frames));
+            } else {
+                out.write(String.format(Locale.ROOT, "%.2f,%d,%.3f,%d,%d,%.1f,%d,%d,%.1f%n", start, frames,
+                        (double) present / frames, minX, maxX, (double) sumX / present,
+                        minY, maxY, (double) sumY / present));
+            }
+            frames = 0;
+            present = 0;
+            sumX = 0;
+            sumY = 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Computes a fast content hash for video files.
+ * 
+ * Hashing a multi-gigabyte video completely would take longer than some jobs, so the hash covers
+ * the file size, its last-modified time and a fixed number of evenly spaced blocks (always including
+ * the first and last block). Any realistic edit or re-encode changes at least one of these.
+ */
+public final class VideoHash {
+    private static final int BLOCK_COUNT = 16;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private VideoHash() {}
+
+    /**
+     * Returns the content hash of the given file as a lowercase hex string.
+     *
+     * @param path path to the video file
+     * @return the hex encoded SHA-256 over size, modification time and sampled blocks
+     * @throws IOException if the file cannot be read
+     */
+    public static String of(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        digest.update(ByteBuffer.allocate(16).putLong(size).putLong(modified).flip());
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+            long lastStart = Math.max(0, size - BLOCK_SIZE);
+            for (int i = 0; i < BLOCK_COUNT; i++) {
+                long position = lastStart * i / (BLOCK_COUNT - 1);
+                block.clear();
+                while (block.hasRemaining()) {
+                    int read = channel.read(block, position + block.position());
+                    if (read < 0) break;
+                }
+                digest.update(block.flip());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 of a string. Used to combine a video hash with
+     * processing parameters into a single key.
+     *
+     * @param text the text to hash
+     * @return the lowercase hex digest
+     */
+    public static String ofString(String text) {
+        return HexFormat.of().formatHex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
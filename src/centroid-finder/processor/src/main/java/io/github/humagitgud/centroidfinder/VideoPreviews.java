@@ -0,0 +1,220 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
+/**
+ * A thumbnail and a sprite sheet of a video, made from frames that are decoded for processing
+ * anyway, so previews need no decoding pass of their own.
+ *
+ * Previews are stored in a directory per video, named by its {@link VideoHash}:
+ *
+ *   thumbnail.jpg  the first frame
+ *   sprite.jpg     tiles of evenly spaced frames, left to right and top to bottom
+ *   sprite.json    the layout: columns, rows, tile width and height, and the timestamp of each tile
+ *
+ * The thumbnail and the tiles have the same size: the preview width and the video's aspect ratio.
+ * Each sampled frame is downscaled once on the calling thread, which also copies it out of the
+ * decoder's image, and JPEG encoding runs on a background thread. The sprite is written last, so
+ * a directory with sprite.json is complete. Tiles of frames that are never decoded stay black
+ * and are left out of the layout's timestamps.
+ */
+public class VideoPreviews implements AutoCloseable {
+    /**
+     * The file name of the thumbnail.
+     */
+    public static final String THUMBNAIL_FILE = "thumbnail.jpg";
+
+    /**
+     * The file name of the sprite sheet.
+     */
+    public static final String SPRITE_FILE = "sprite.jpg";
+
+    /**
+     * The file name of the sprite sheet's layout.
+     */
+    public static final String LAYOUT_FILE = "sprite.json";
+
+    private final Path directory;
+    private final int width;
+    private final int tiles;
+    private final int columns;
+    private final long lengthInFrames;
+    private final ExecutorService encoder;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private final double[] timestamps;
+    private BufferedImage sprite;
+    private int nextTile;
+
+    /**
+     * Starts the previews of a video.
+     *
+     * @param directory the directory of this video's previews; created if needed
+     * @param width the width of the thumbnail and of each tile in pixels, at least 1
+     * @param tiles the number of tiles in the sprite sheet, at least 1
+     * @param lengthInFrames the number of frames in the video, over which tiles are spread
+     * @throws IOException if the directory cannot be created
+     */
+    public VideoPreviews(Path directory, int width, int tiles, long lengthInFrames) throws IOException {
+        if (width < 1) throw new IllegalArgumentException("width must be at least 1");
+        if (tiles < 1) throw new IllegalArgumentException("tiles must be at least 1");
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.width = width;
+        this.tiles = tiles;
+        this.columns = (int) Math.ceil(Math.sqrt(tiles));
+        this.lengthInFrames = Math.max(1, lengthInFrames);
+        this.timestamps = new double[tiles];
+        this.encoder = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "preview-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns whether a directory already holds complete previews.
+     *
+     * @param directory the directory of a video's previews
+     * @return true if the sprite sheet's layout, written last, exists
+     */
+    public static boolean isComplete(Path directory) {
+        return Files.exists(directory.resolve(LAYOUT_FILE));
+    }
+
+    /**
+     * Returns whether a frame is used by the previews, so callers can skip others cheaply.
+     *
+     * @param frameNumber the zero-based frame number
+     * @return true if the frame is the thumbnail or a tile
+     */
+    public boolean wants(long frameNumber) {
+        return nextTile < tiles && frameNumber >= frameOfTile(nextTile);
+    }
+
+    /**
+     * Adds a decoded frame. Frames must be added in order; frames not wanted are ignored.
+     *
+     * @param frameNumber the zero-based frame number
+     * @param timestamp the frame's timestamp in seconds
+     * @param frame the decoded frame; it is not used after this returns
+     */
+    public void add(long frameNumber, double timestamp, BufferedImage frame) {
+        if (!wants(frameNumber)) return;
+        BufferedImage tile = downscale(frame);
+        boolean thumbnail = nextTile == 0;
+        // a late frame, after a gap in decoding, stands in for every tile it has passed
+        List<Integer> slots = new ArrayList<>();
+        while (nextTile < tiles && frameNumber >= frameOfTile(nextTile)) {
+            timestamps[nextTile] = timestamp;
+            slots.add(nextTile++);
+        }
+        pending.add(encoder.submit(() -> {
+            if (thumbnail) AtomicFiles.write(directory.resolve(THUMBNAIL_FILE), jpeg(tile));
+            if (sprite == null) {
+                sprite = new BufferedImage(columns * tile.getWidth(), rows() * tile.getHeight(), BufferedImage.TYPE_INT_RGB);
+            }
+            Graphics2D g = sprite.createGraphics();
+            try {
+                for (int slot : slots) {
+                    g.drawImage(tile, (slot % columns) * tile.getWidth(), (slot / columns) * tile.getHeight(), null);
+                }
+            } finally {
+                g.dispose();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Writes the sprite sheet and its layout after the last frame, waiting for all encoding.
+     *
+     * @throws IOException if a preview cannot be written
+     */
+    public void finish() throws IOException {
+        if (nextTile == 0) {
+            await();
+            return;
+        }
+        int filled = nextTile;
+        pending.add(encoder.submit(() -> {
+            AtomicFiles.write(directory.resolve(SPRITE_FILE), jpeg(sprite));
+            AtomicFiles.writeString(directory.resolve(LAYOUT_FILE), layout(filled));
+            return null;
+        }));
+        await();
+    }
+
+    private void await() throws IOException {
+        try {
+            for (Future<?> task : pending) task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing previews", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Cannot write previews: " + e.getCause(), e.getCause());
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Stops the encoder; previews not finished are not written.
+     */
+    @Override
+    public void close() {
+        encoder.shutdownNow();
+    }
+
+    private long frameOfTile(int tile) {
+        return tile * lengthInFrames / tiles;
+    }
+
+    private int rows() {
+        return (tiles + columns - 1) / columns;
+    }
+
+    private BufferedImage downscale(BufferedImage frame) {
+        int height = Math.max(1, (int) Math.round((double) frame.getHeight() * width / frame.getWidth()));
+        BufferedImage tile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(frame, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    private String layout(int filled) {
+        StringBuilder times = new StringBuilder();
+        for (int i = 0; i < filled; i++) {
+            if (i > 0) times.append(',');
+            times.append(String.format(Locale.ROOT, "%.2f", timestamps[i]));
+        }
+        return String.format(Locale.ROOT,
+                "{\"columns\":%d,\"rows\":%d,\"tileWidth\":%d,\"tileHeight\":%d,\"timestamps\":[%s]}%n",
+                columns, rows(), width, sprite.getHeight() / rows(), times);
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "jpg", bytes)) throw new IOException("No JPEG writer available");
+        return bytes.toByteArray();
+    }
+}
@@ -1,22 +1,96 @@
 package io.github.humagitgud.centroidfinder;
 
 import java.awt.image.BufferedImage;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import org.bytedeco.javacv.FFmpegFrameGrabber;
-import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.Java2DFrameConverter;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Processes video files frame by frame to track the largest centroid over time.
+ * 
+ * Every time the output is flushed a checkpoint is saved next to the CSV (see {@link Checkpoint}).
+ * If the process is interrupted, a later run with resume enabled truncates the CSV back to the
+ * last checkpoint, seeks the video to the following frame and continues from there, producing
+ * the same output as an uninterrupted run. The checkpoint is deleted once processing completes.
+ * 
+ * With commit markers enabled the output is written through a {@link CommittedCsvWriter}, which
+ * appends whole chunks of rows at each flush and keeps a "<output>.commit" sidecar with the number
+ * of committed rows and whether the job is running, done or failed.
+ * 
+ * When a {@link ResultCache} is set, the result is looked up by the video's content hash and the
+ * parameters that affect the output before any decoding happens, and stored after a successful run.
+ * 
+ * When a {@link FrameStore} is set, decoded frames are kept in a memory-mapped store so later runs
+ * on the same video, for example with a different color or threshold, skip decoding entirely.
+ * When a {@link DistanceMapCache} is set, per-pixel distances to the target color are recorded so
+ * later runs with the same color and a different threshold skip decoding and distance computation.
+ * With motion gating, only the parts of each frame that changed since the previous frame are
+ * re-binarized (see {@link MotionGatedGroupFinder}).
+ * 
+ * A frame or time range limits processing to a window of the video: the source seeks to the
+ * window and stops after it, and the rows keep the timestamps of the whole video.
+ * 
+ * In live mode the input is a stream that is processed in real time, dropping frames rather than
+ * falling behind (see {@link #setLive(long)}).
  */
 public class VideoProcessor {
+    // identifies the labeling stage in cache keys; change it whenever output for the same input changes
+    private static final String LABELING = "dfs";
+
     private final String inputPath;
     private final String outputPath;
     private final int targetColor;
     private final int threshold;
-    private final ImageGroupFinder groupFinder;
+    private ColorMetric colorMetric = ColorMetric.EUCLIDEAN;
+    private ColorDistanceFinder distanceFinder;
+    private BinaryGroupFinder binaryGroupFinder;
+    private ImageGroupFinder groupFinder;
+    private boolean resume;
+    private boolean commitMarkers;
+    private ResultCache resultCache;
+    private FrameStore frameStore;
+    private DistanceMapCache distanceMaps;
+    private boolean motionGating;
+    private int motionTolerance;
+    private int topK = 1;
+    private String labelingLimits = "";
+    private BinaryGroupFinder labeler = new DfsBinaryGroupFinder();
+    private int minGroupSize = 1;
+    private int maxGroups = Integer.MAX_VALUE;
+    private long maxForeground = Long.MAX_VALUE;
+    private MorphologyGroupFinder.Operation morphology;
+    private boolean yuvFrames;
+    private DetectionEngine detectionEngine = DetectionEngine.JAVA;
+    private long startFrame = 0;
+    private long endFrame = Long.MAX_VALUE;
+    private double startTime = 0;
+    private double endTime = Double.POSITIVE_INFINITY;
+    private long maxLatencyMillis;
+    private boolean keyframeScan;
+    private Zones zones;
+    private DecodeFilter decodeFilter;
+    private int occupancyCellSize;
+    private Path occupancyPath;
+    private Path occupancyImagePath;
+    private OccupancyGrid occupancy;
+    private int[] summaryLevels;
+    private boolean seekIndex;
+    private Path previewDirectory;
+    private int previewWidth;
+    private int previewTiles;
+    private Path overlayPath;
+    private boolean overlayMask;
 
     /**
      * Creates a new VideoProcessor.
@@ -33,72 +107,996 @@ public class VideoProcessor {
         this.threshold = threshold;
         
         // Initialize components for finding centroids
-        ColorDistanceFinder distanceFinder = new EuclideanColorDistance();
-        ImageBinarizer binarizer = new DistanceImageBinarizer(distanceFinder, targetColor, threshold);
-        this.groupFinder = new BinarizingImageGroupFinder(binarizer, new DfsBinaryGroupFinder());
+        this.distanceFinder = colorMetric.forTarget(targetColor);
+        buildGroupFinders();
+    }
+
+    // composes binarization, the optional morphology stage and labeling
+    private void buildGroupFinders() {
+        BinaryGroupFinder filtered = morphology == null ? labeler : new MorphologyGroupFinder(morphology, labeler);
+        this.binaryGroupFinder = zones == null ? filtered : new ZonedGroupFinder(frameZones(), filtered);
+        this.groupFinder = imageGroupFinder(detectionEngine);
+    }
+
+    // the finder the given engine uses for decoded frames, with the current settings
+    private ImageGroupFinder imageGroupFinder(DetectionEngine engine) {
+        if (engine == DetectionEngine.OPENCV) {
+            OpenCvGroupFinder finder = new OpenCvGroupFinder(targetColor, threshold, morphology, minGroupSize, maxGroups,
+                    maxForeground, frameZones());
+            // the overlay draws bounding boxes from the moments
+            finder.setMoments(overlayPath != null);
+            return finder;
+        }
+        if (zones == null) {
+            ImageBinarizer binarizer = new DistanceImageBinarizer(distanceFinder, targetColor, threshold);
+            return new BinarizingImageGroupFinder(binarizer, binaryGroupFinder);
+        }
+        // excluded pixels are never binarized, so only morphology and labeling remain
+        ImageBinarizer binarizer = new ZonedImageBinarizer(distanceFinder, targetColor, threshold, frameZones());
+        return new BinarizingImageGroupFinder(binarizer,
+                morphology == null ? labeler : new MorphologyGroupFinder(morphology, labeler));
+    }
+
+    // the binarizer whose mask the overlay shows, before morphology; it runs on the overlay's
+    // encoder thread, so it gets its own distance finder rather than sharing a lookup table
+    private ImageBinarizer maskBinarizer() {
+        ColorDistanceFinder maskDistance = colorMetric.forTarget(targetColor);
+        return zones == null ? new DistanceImageBinarizer(maskDistance, targetColor, threshold)
+                : new ZonedImageBinarizer(maskDistance, targetColor, threshold, frameZones());
+    }
+
+    // the zones in the coordinates of the frames as processed, which the frame store may downscale
+    // and a decode filter may crop and downscale
+    private Zones frameZones() {
+        if (zones == null) return null;
+        if (decodeFilter != null) {
+            return zones.forFrames(decodeFilter.getCropX(), decodeFilter.getCropY(), decodeFilter.getScale());
+        }
+        return frameStore != null ? zones.downscaled(frameStore.getScale()) : zones;
+    }
+
+    /**
+     * Sets whether processing should resume from an existing checkpoint.
+     * If no checkpoint exists the video is processed from the beginning.
+     *
+     * @param resume true to continue an interrupted run from its last checkpoint
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Sets whether the output should be written in committed chunks with a commit marker sidecar.
+     *
+     * @param commitMarkers true to maintain a "<output>.commit" marker for live readers
+     */
+    public void setCommitMarkers(boolean commitMarkers) {
+        this.commitMarkers = commitMarkers;
+    }
+
+    /**
+     * Sets the cache used to reuse results of identical earlier jobs. Keys include the
+     * {@link BuildId} of the running code, so results of an earlier build are never reused.
+     *
+     * @param resultCache the cache to use, or null to always process the video
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Sets the store of decoded frames. If the video is already in the store its frames are read
+     * from there instead of being decoded; otherwise the decoded frames are added to the store.
+     * Detection always runs on the store's representation of each frame.
+     *
+     * @param frameStore the frame store to use, or null to always decode the video
+     */
+    public void setFrameStore(FrameStore frameStore) {
+        this.frameStore = frameStore;
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets the cache of per-pixel distance maps. If maps were recorded for this video and target
+     * color, frames are not decoded at all and only thresholding and labeling run; otherwise the
+     * maps are recorded during this run. Thresholds above {@link DistanceMap#MAX_THRESHOLD} cannot
+     * be answered from a map, so such runs neither read nor record maps.
+     *
+     * @param distanceMaps the distance map cache to use, or null to disable distance maps
+     */
+    public void setDistanceMaps(DistanceMapCache distanceMaps) {
+        this.distanceMaps = distanceMaps;
+    }
+
+    /**
+     * Sets whether detection should only redo work for blocks that changed since the previous
+     * frame (see {@link MotionGatedGroupFinder}). With a tolerance of 0 the output is identical
+     * to processing every frame in full.
+     *
+     * @param motionGating true to enable motion-gated detection
+     * @param tolerance the largest per-channel pixel difference treated as unchanged
+     */
+    public void setMotionGating(boolean motionGating, int tolerance) {
+        this.motionGating = motionGating;
+        this.motionTolerance = tolerance;
+    }
+
+    /**
+     * Sets how many of the largest groups are written per frame. With k = 1 (the default) each
+     * row is "timestamp,x,y"; otherwise each row holds k coordinate pairs (see {@link CsvWriter}).
+     * Only the top k groups of each frame are built, however many components the frame contains.
+     *
+     * @param topK the number of groups to track per frame, at least 1
+     */
+    public void setTopK(int topK) {
+        if (topK < 1) throw new IllegalArgumentException("topK must be at least 1");
+        this.topK = topK;
+    }
+
+    /**
+     * Sets the metric used to compare pixel colors with the target color. The threshold is
+     * in the metric's units (see {@link ColorMetric}). The default is Euclidean RGB distance.
+     *
+     * @param colorMetric the color distance metric
+     */
+    public void setColorMetric(ColorMetric colorMetric) {
+        this.colorMetric = colorMetric;
+        this.distanceFinder = colorMetric.forTarget(targetColor);
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets limits applied while labeling each frame. Groups smaller than minGroupSize pixels are
+     * dropped without being built. A frame with more than maxGroups remaining groups or more than
+     * maxForeground matching pixels stops labeling early and is written as an aborted row
+     * (see {@link CsvWriter}). Sizes are counted on the frames as processed, so after frame
+     * store downscaling.
+     *
+     * @param minGroupSize  the smallest group size to report, at least 1
+     * @param maxGroups     the most groups a frame may have, at least 1
+     * @param maxForeground the most matching pixels a frame may have, at least 1
+     */
+    public void setLabelingLimits(int minGroupSize, int maxGroups, long maxForeground) {
+        this.labeler = new DfsBinaryGroupFinder(minGroupSize, maxGroups, maxForeground);
+        this.minGroupSize = minGroupSize;
+        this.maxGroups = maxGroups;
+        this.maxForeground = maxForeground;
+        buildGroupFinders();
+        this.labelingLimits = minGroupSize > 1 || maxGroups < Integer.MAX_VALUE || maxForeground < Long.MAX_VALUE
+                ? String.format(";minGroupSize=%d;maxGroups=%d;maxForeground=%d", minGroupSize, maxGroups, maxForeground)
+                : "";
+    }
+
+    /**
+     * Sets a 3x3 morphological operation applied to each binarized frame before labeling
+     * (see {@link MorphologyGroupFinder}). Opening removes speckle noise; null turns it off.
+     *
+     * @param morphology the operation, or null for none (the default)
+     */
+    public void setMorphology(MorphologyGroupFinder.Operation morphology) {
+        this.morphology = morphology;
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets whether frames are binarized directly from the decoder's YUV 4:2:0 planes, skipping
+     * the conversion of every frame to RGB (see {@link YuvBinarizer}). Results are close to but
+     * not always identical to the RGB path. Cannot be combined with a frame store, distance maps
+     * or motion gating, which work on RGB images.
+     *
+     * @param yuvFrames true to binarize YUV frames
+     */
+    public void setYuvFrames(boolean yuvFrames) {
+        this.yuvFrames = yuvFrames;
+    }
+
+    /**
+     * Restricts processing to the frames from startFrame up to, but not including, endFrame.
+     * The source seeks to the keyframe before the start and decodes forward to it without
+     * running detection, and stops at the end, so the cost is proportional to the window.
+     * Timestamps in the output stay those of the whole video. Can be combined with a time
+     * range, in which case only frames within both are processed.
+     *
+     * @param startFrame the first frame to process, at least 0
+     * @param endFrame the frame to stop before, or Long.MAX_VALUE for the end of the video
+     */
+    public void setFrameRange(long startFrame, long endFrame) {
+        if (startFrame < 0 || endFrame <= startFrame) {
+            throw new IllegalArgumentException("Frame range must start at 0 or later and end after its start");
+        }
+        this.startFrame = startFrame;
+        this.endFrame = endFrame;
+    }
+
+    /**
+     * Restricts processing to the frames whose timestamps are at least start and less than end
+     * seconds (see {@link #setFrameRange(long, long)}).
+     *
+     * @param start the start of the window in seconds, at least 0
+     * @param end the end of the window in seconds, or infinity for the end of the video
+     */
+    public void setTimeRange(double start, double end) {
+        if (!(start >= 0) || !(end > start)) {
+            throw new IllegalArgumentException("Time range must start at 0 or later and end after its start");
+        }
+        this.startTime = start;
+        this.endTime = end;
+    }
+
+    /**
+     * Sets the regions of each frame that are analyzed (see {@link Zones}). Pixels outside them
+     * are never binarized, so they cost nothing and cannot form groups.
+     *
+     * @param zones the analyzed zones, or null to analyze whole frames (the default)
+     */
+    public void setZones(Zones zones) {
+        this.zones = zones;
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets an FFmpeg filter graph run on every decoded frame before detection (see
+     * {@link DecodeFilter}), so frames are cropped, downscaled or resampled to another frame rate
+     * in native code before they are converted to images. Centroids are mapped back to original
+     * frame coordinates. With another frame rate, rows, frame ranges and timestamps follow the
+     * filtered frames. Zones stay in original frame coordinates.
+     *
+     * A decode filter cannot be combined with a frame store, distance maps, YUV frames, a
+     * keyframe scan or live mode.
+     *
+     * @param decodeFilter the filter, or null to detect on decoded frames as they are (the default)
+     */
+    public void setDecodeFilter(DecodeFilter decodeFilter) {
+        this.decodeFilter = decodeFilter;
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets whether an occupancy grid of the largest group's centroid is accumulated while frames
+     * are processed (see {@link OccupancyGrid}), and where it is written when processing ends.
+     * Each processed frame with a centroid adds one frame period of dwell time to its cell; in
+     * live mode it adds the time until the next processed frame. Rows written before a resumed
+     * run, or restored from the result cache, are counted from the output file.
+     *
+     * @param cellSize the cell size in original frame pixels, or 0 to turn the grid off (the default)
+     * @param gridPath where to write the grid in its binary format, or null
+     * @param imagePath where to write the grid as a PNG heatmap, or null
+     */
+    public void setOccupancy(int cellSize, Path gridPath, Path imagePath) {
+        if (cellSize < 0) throw new IllegalArgumentException("cellSize must not be negative");
+        this.occupancyCellSize = cellSize;
+        this.occupancyPath = gridPath;
+        this.occupancyImagePath = imagePath;
+    }
+
+    /**
+     * Returns the occupancy grid of the last run (see {@link #setOccupancy(int, Path, Path)}).
+     *
+     * @return the grid, or null if none was accumulated
+     */
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Sets the levels of the track summary written next to the output (see {@link TrackPyramid}),
+     * such as one row per second, per 10 seconds and per minute. The summary is built while rows
+     * are written; rows written before a resumed run, or restored from the result cache, are read
+     * back from the output file. Cannot be combined with writing a live stream to standard output.
+     *
+     * @param levelSeconds the bucket length of each level in seconds, or null for no summary (the default)
+     */
+    public void setSummaryLevels(int[] levelSeconds) {
+        if (levelSeconds != null && levelSeconds.length == 0) {
+            throw new IllegalArgumentException("At least one summary level is needed");
+        }
+        this.summaryLevels = levelSeconds == null ? null : levelSeconds.clone();
+    }
+
+    /**
+     * Sets whether a seek index is written next to the output (see {@link SeekIndex}), so that
+     * {@link SeekIndex#readRange(Path, double, double)} can read a time range without scanning
+     * the rows before it. The index is built while rows are written; rows written before a resumed
+     * run, or restored from the result cache, are indexed from the output file. Cannot be combined
+     * with writing a live stream to standard output.
+     *
+     * @param seekIndex true to write the index, false not to (the default)
+     */
+    public void setSeekIndex(boolean seekIndex) {
+        this.seekIndex = seekIndex;
+    }
+
+    /**
+     * Sets whether a thumbnail and a sprite sheet of the video (see {@link VideoPreviews}) are
+     * made from the frames decoded for processing, in a directory named by the video's hash
+     * under the given directory. Previews are only made by a run that decodes the whole video
+     * from the first frame, without a crop or scale, and only if they do not exist yet: runs that
+     * resume, read a range, scan keyframes, or read stored frames or distance maps leave them to
+     * a later run. A cached result is not restored while previews this run could make are
+     * missing: the video is processed again to make them.
+     *
+     * @param directory the preview cache directory, or null for no previews (the default)
+     * @param width the width of the thumbnail and of each tile in pixels
+     * @param tiles the number of tiles in the sprite sheet
+     */
+    public void setPreviews(Path directory, int width, int tiles) {
+        if (directory != null && (width < 1 || tiles < 1)) {
+            throw new IllegalArgumentException("Preview width and tiles must be at least 1");
+        }
+        this.previewDirectory = directory;
+        this.previewWidth = width;
+        this.previewTiles = tiles;
+    }
+
+    /**
+     * Sets whether an annotated copy of the processed frames is written as a video (see
+     * {@link OverlayRecorder}), showing each group's bounding box and centroid and optionally
+     * the binarized mask. The overlay is encoded on its own thread while detection goes on. It
+     * shows the frames as detection sees them, so it is cropped and downscaled like them, and it
+     * only covers the frames processed by this run. Needs decoded frames, so it cannot be
+     * combined with distance maps, YUV frames or live mode, and a cached result is not restored
+     * while an overlay is written: the video is processed again and the result cached afresh.
+     * The OpenCV engine computes each group's moments for the bounding boxes, which slows it down.
+     *
+     * @param path the video file to write, or null for no overlay (the default)
+     * @param mask true to tint the binarized mask over the frames
+     */
+    public void setOverlay(Path path, boolean mask) {
+        this.overlayPath = path;
+        this.overlayMask = mask;
+        buildGroupFinders();
+    }
+
+    /**
+     * Sets whether a video is scanned by its keyframes before it is processed (see
+     * {@link KeyframeScanner}). Only the spans around keyframes where the target is found are
+     * then decoded and processed at full frame rate; the frames between them are written as
+     * having no match without being decoded. This is much faster when the target is absent most
+     * of the time, but misses a target that comes and goes entirely between two keyframes.
+     *
+     * @param keyframeScan true to scan keyframes first
+     */
+    public void setKeyframeScan(boolean keyframeScan) {
+        this.keyframeScan = keyframeScan;
+    }
+
+    /**
+     * Sets whether the input is a live stream, such as a named pipe or a local stream URL,
+     * instead of a file. In live mode frames are decoded on a separate thread and only the newest
+     * is processed: frames that arrive while detection is busy, or that are older than the
+     * maximum latency by the time detection is free, are dropped (see {@link LiveFrameSource}).
+     * Each row is written and flushed as soon as its frame is done, with the frame's wall-clock
+     * capture time in seconds since the epoch as its timestamp. An output path of "-" writes the
+     * rows to standard output, and progress is reported on standard error.
+     *
+     * Live mode cannot be combined with a result cache, resuming, commit markers, a frame store,
+     * distance maps, YUV frames or a frame or time range.
+     *
+     * @param maxLatencyMillis the maximum age of a frame when detection starts on it, or 0 to
+     *                         process a file (the default)
+     */
+    public void setLive(long maxLatencyMillis) {
+        if (maxLatencyMillis < 0) throw new IllegalArgumentException("maxLatencyMillis must not be negative");
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    /**
+     * Sets the engine that binarizes and labels decoded frames (see {@link DetectionEngine}).
+     * The engines give the same results. The OpenCV engine only supports the Euclidean metric,
+     * and cannot be combined with YUV frames, distance maps or motion gating, which label with
+     * the Java engine.
+     *
+     * @param engine the detection engine, java by default
+     */
+    public void setEngine(DetectionEngine engine) {
+        this.detectionEngine = engine;
+        buildGroupFinders();
+    }
+
+    /**
+     * Chooses the fastest detection engine for this job and selects it (see {@link EngineCalibrator}).
+     * Every engine usable with the current settings is timed on frames sampled evenly from the
+     * video, and only engines that agree with the Java engine on all of them are eligible.
+     *
+     * With a profile, a recommendation recorded for the same setup (frame size, color, threshold,
+     * metric, morphology and core count) is used without timing anything, and a new one is
+     * recorded otherwise.
+     *
+     * @param sampleCount the number of frames to time the engines on
+     * @param profile recommendations of earlier calibrations, or null to always calibrate
+     * @return the selected engine
+     * @throws IOException if the video cannot be decoded or the profile cannot be written
+     * @throws IllegalStateException if the settings combine modes that cannot be used together
+     */
+    public DetectionEngine calibrateEngine(int sampleCount, EngineProfile profile) throws IOException {
+        validate();
+        if (maxLatencyMillis > 0) {
+            throw new IllegalStateException("Engine calibration cannot be combined with live mode");
+        }
+        // a profile lookup only needs the frame size
+        List<BufferedImage> frames = sampleFrames(profile != null ? 1 : sampleCount);
+
+        String setup = String.format("%dx%d;targetColor=%06X;threshold=%d;metric=%s;morphology=%s;cores=%d",
+                frames.get(0).getWidth(), frames.get(0).getHeight(), targetColor, threshold, colorMetric.getName(),
+                morphology == null ? "none" : morphology.getName(), Runtime.getRuntime().availableProcessors());
+        DetectionEngine recommended = profile != null ? profile.get(setup) : null;
+        if (recommended != null && usable(recommended)) {
+            System.out.println("Engine from profile: " + recommended.getName());
+            setEngine(recommended);
+            return recommended;
+        }
+        if (profile != null) {
+            frames = sampleFrames(sampleCount);
+        }
+
+        Map<String, ImageGroupFinder> candidates = new LinkedHashMap<>();
+        for (DetectionEngine engine : DetectionEngine.values()) {
+            if (usable(engine)) candidates.put(engine.getName(), imageGroupFinder(engine));
+        }
+        EngineCalibrator.Result result = new EngineCalibrator(3).calibrate(candidates, frames);
+        for (EngineCalibrator.Timing timing : result.timings()) {
+            System.out.printf("Engine %s: %.2f ms per frame%s%n", timing.name(),
+                    timing.nanos() / 1e6 / frames.size(), timing.agrees() ? "" : " (disagrees, not eligible)");
+        }
+        DetectionEngine winner = DetectionEngine.fromName(result.winner());
+        System.out.println("Selected engine: " + winner.getName());
+        if (profile != null) {
+            profile.put(setup, winner);
+            profile.write();
+        }
+        setEngine(winner);
+        return winner;
+    }
+
+    // decodes frames spread over the video, in the frame store's representation when one is used
+    private List<BufferedImage> sampleFrames(int count) throws IOException {
+        List<BufferedImage> frames = new ArrayList<>();
+        for (BufferedImage frame : EngineCalibrator.sampleFrames(inputPath, count, decodeFilter)) {
+            frames.add(frameStore != null ? frameStore.convert(frame) : frame);
+        }
+        if (frames.isEmpty()) throw new IOException("No frames to calibrate on in " + inputPath);
+        return frames;
+    }
+
+    // the one place that rejects settings combining modes that cannot be used together; callers
+    // such as VideoProcessorApp report its message instead of repeating the checks
+    private void validate() {
+        if (yuvFrames && (frameStore != null || distanceMaps != null || motionGating)) {
+            throw new IllegalStateException("YUV frames cannot be combined with a frame store, distance maps or motion gating");
+        }
+        if (decodeFilter != null && (frameStore != null || distanceMaps != null || yuvFrames || keyframeScan || maxLatencyMillis > 0)) {
+            throw new IllegalStateException("A decode filter cannot be combined with a frame store, distance maps, "
+                    + "YUV frames, a keyframe scan or live mode");
+        }
+        if (maxLatencyMillis > 0) {
+            if (resultCache != null || resume || commitMarkers || frameStore != null || distanceMaps != null
+                    || yuvFrames || hasRange() || keyframeScan) {
+                throw new IllegalStateException("Live mode cannot be combined with a result cache, resuming, commit markers, "
+                        + "a frame store, distance maps, YUV frames, a range or a keyframe scan");
+            }
+        }
+        if (!usable(detectionEngine)) {
+            throw new IllegalStateException("The OpenCV engine only supports the Euclidean metric on decoded frames, "
+                    + "without YUV frames, distance maps or motion gating");
+        }
+        if (maxLatencyMillis > 0 && summaryLevels != null && outputPath.equals("-")) {
+            throw new IllegalStateException("A track summary cannot be written for output to standard output");
+        }
+        if (overlayPath != null && (distanceMaps != null || yuvFrames || maxLatencyMillis > 0)) {
+            throw new IllegalStateException("An overlay video cannot be combined with distance maps, YUV frames or live mode");
+        }
+        if (maxLatencyMillis > 0 && seekIndex && outputPath.equals("-")) {
+            throw new IllegalStateException("A seek index cannot be written for output to standard output");
+        }
+    }
+
+    // whether the engine supports the metric and the frame path the current settings use
+    private boolean usable(DetectionEngine engine) {
+        return engine == DetectionEngine.JAVA
+                || (engine.supports(colorMetric) && !yuvFrames && distanceMaps == null && !motionGating);
     }
 
     /**
      * Processes the video file and writes centroid data to the output file.
      *
      * @throws IOException if an error occurs during processing
+     * @throws IllegalStateException if the settings combine modes that cannot be used together
      */
     public void process() throws IOException {
-        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(inputPath);
-             CsvWriter writer = new CsvWriter(outputPath)) {
+        validate();
+        occupancy = null;
+        if (maxLatencyMillis > 0) {
+            processLive();
+            return;
+        }
+        double rowSeconds = 0;
+        if (occupancyCellSize > 0) {
+            try (GrabberFrameSource probe = new GrabberFrameSource(inputPath)) {
+                occupancy = new OccupancyGrid(probe.getVideoWidth(), probe.getVideoHeight(), occupancyCellSize);
+                rowSeconds = 1.0 / (decodeFilter != null && decodeFilter.getFrameRate() > 0
+                        ? decodeFilter.getFrameRate() : probe.getFrameRate());
+            }
+        }
+        if (resultCache == null) {
+            processFrames();
+            return;
+        }
+
+        String videoHash = VideoHash.of(Path.of(inputPath));
+        String cacheKey = ResultCache.key(videoHash, cacheParameters());
+        // an overlay and missing previews need the frames, so such runs always process them
+        if (overlayPath == null && !previewsMissing(videoHash) && resultCache.restore(cacheKey, Path.of(outputPath))) {
+            System.out.println("Cached result restored to: " + outputPath);
+            Files.deleteIfExists(Checkpoint.pathFor(outputPath));
+            if (occupancy != null) {
+                occupancy.addRows(Path.of(outputPath), rowSeconds);
+                writeOccupancy(System.out);
+            }
+            if (summaryLevels != null) {
+                try (TrackPyramid summary = new TrackPyramid(outputPath, summaryLevels)) {
+                    summary.addRows(Path.of(outputPath));
+                    summary.finish();
+                }
+            }
+            if (seekIndex) {
+                SeekIndex.rebuild(outputPath, Files.size(Path.of(outputPath))).close();
+            }
+            if (commitMarkers) {
+                long rows;
+                try (Stream<String> lines = Files.lines(Path.of(outputPath))) {
+                    rows = lines.count();
+                }
+                new CommitMarker(rows, Files.size(Path.of(outputPath)), CommitMarker.Status.DONE)
+                        .write(CommitMarker.pathFor(outputPath));
+            }
+            return;
+        }
+
+        processFrames();
+        resultCache.store(cacheKey, Path.of(outputPath));
+    }
+
+    // describes every setting that affects the output, for use in cache keys
+    private String cacheParameters() {
+        String frames = frameStore != null && frameStore.isLossy() ? ";frames=" + frameStore.getVariant()
+                : yuvFrames ? ";frames=yuv420" : "";
+        String motion = motionGating && motionTolerance > 0 ? ";motionTolerance=" + motionTolerance : "";
+        String groups = topK > 1 ? ";topK=" + topK : "";
+        String filter = morphology != null ? ";morphology=" + morphology.getName() : "";
+        String range = hasRange() ? String.format(";range=%d-%d;seconds=%s-%s", startFrame, endFrame, startTime, endTime) : "";
+        String scan = keyframeScan ? ";scan=keyframes" : "";
+        String zoned = zones != null ? ";zones=" + zones.getDigest() : "";
+        String decode = decodeFilter != null ? ";decode=" + decodeFilter.describe() : "";
+        return String.format("targetColor=%06X;threshold=%d;engine=%s;build=%s%s%s%s%s%s%s%s%s%s",
+                targetColor, threshold, engine(), BuildId.get(), frames, motion, groups,
+                labelingLimits, filter, range, scan, zoned, decode);
+    }
+
+    // decodes the video and writes one row per frame
+    private void processFrames() throws IOException {
+        Path checkpointPath = Checkpoint.pathFor(outputPath);
+        Checkpoint checkpoint = resume ? Checkpoint.read(checkpointPath) : null;
+        if (checkpoint != null) {
+            // Drop any rows written after the checkpoint; they will be regenerated
+            try (RandomAccessFile file = new RandomAccessFile(outputPath, "rw")) {
+                file.setLength(checkpoint.offset());
+            }
+        }
+        boolean replayRows = checkpoint != null && occupancy != null;
+
+        List<KeyframeScanner.Span> spans = null;
+        if (keyframeScan) {
+            spans = new KeyframeScanner(groupFinder).scan(inputPath);
+            System.out.println("Keyframe scan: " + spans.size() + " spans to process at full frame rate");
+        }
+
+        String videoHash = frameStore != null || distanceMaps != null || previewDirectory != null
+                ? VideoHash.of(Path.of(inputPath)) : null;
+        boolean useMaps = distanceMaps != null && threshold <= DistanceMap.MAX_THRESHOLD;
+        try (DistanceMapCache.Reader maps = useMaps ? distanceMaps.open(videoHash, distanceMapKey()) : null;
+             FrameSource source = maps == null ? openFrameSource(videoHash) : null;
+             FrameStore.Recorder recorder = startRecording(source, videoHash, checkpoint);
+             DistanceMapCache.Writer mapWriter = useMaps ? startMapRecording(source, videoHash, checkpoint) : null;
+             VideoPreviews previews = startPreviews(source, videoHash, checkpoint);
+             OverlayRecorder overlay = overlayPath != null
+                     ? new OverlayRecorder(overlayPath, source.getFrameRate(), overlayMask ? maskBinarizer() : null,
+                             OverlayRecorder.DEFAULT_QUEUE_CAPACITY)
+                     : null;
+             CsvWriter writer = openWriter(checkpoint, firstFrame(maps != null ? maps.getFrameRate() : source.getFrameRate()));
+             TrackPyramid summary = summaryLevels != null ? new TrackPyramid(outputPath, summaryLevels) : null) {
             
-            // Initialize video frame grabber
-            grabber.start();
-            double frameRate = grabber.getFrameRate();
+            double frameRate = maps != null ? maps.getFrameRate() : source.getFrameRate();
+            long lastFrame = endFrame(frameRate);
             double secondsPerFrame = 1.0 / frameRate;
+            if (replayRows) {
+                occupancy.addRows(Path.of(outputPath), secondsPerFrame);
+            }
+            if (summary != null && checkpoint != null) {
+                summary.addRows(Path.of(outputPath));
+            }
+            boolean fromStore = source instanceof StoredFrameSource;
+            DecodeFilter geometry = frameGeometry();
+            MotionGatedGroupFinder motionGate = motionGating
+                    ? new MotionGatedGroupFinder(distanceFinder, targetColor, threshold, binaryGroupFinder, motionTolerance)
+                    : null;
+            YuvBinarizer yuvBinarizer = yuvFrames ? new YuvBinarizer(distanceFinder, targetColor, threshold) : null;
             
-            // Converter to convert frames to BufferedImage
-            try (Java2DFrameConverter converter = new Java2DFrameConverter()) {
-                // Process frames
-                Frame frame;
-                int frameCount = 0;
-                
-                System.out.println("Processing video: " + inputPath);
-                System.out.println("Frame rate: " + frameRate + " fps");
-                
-                // Supresses unneeded warnings about pixel formatting.
-                org.bytedeco.ffmpeg.global.avutil.av_log_set_level(org.bytedeco.ffmpeg.global.avutil.AV_LOG_ERROR);
-                
-                while ((frame = grabber.grabImage()) != null) {
-                    double timestamp = frameCount * secondsPerFrame;
-                    
-                    // Convert frame to BufferedImage
-                    BufferedImage bufferedImage = converter.convert(frame);
-                    if (bufferedImage == null) {
-                        writer.writeRow(timestamp, null);
-                        frameCount++;
-                        continue;
-                    }
-                    
-                    // Find connected groups in the frame
-                    List<Group> groups = groupFinder.findConnectedGroups(bufferedImage);
-                    
-                    // Get the largest centroid (if any)
-                    Coordinate largestCentroid = null;
-                    if (!groups.isEmpty()) {
-                        // Groups are sorted in descending order, so the first one is the largest
-                        largestCentroid = groups.get(0).centroid();
+            // Process frames
+            int frameCount = 0;
+            int framesAborted = 0;
+            
+            System.out.println("Processing video: " + inputPath);
+            System.out.println("Frame rate: " + frameRate + " fps");
+            if (maps != null) {
+                System.out.println("Reading recorded distance maps");
+            }
+
+            // Supresses unneeded warnings about pixel formatting.
+            org.bytedeco.ffmpeg.global.avutil.av_log_set_level(org.bytedeco.ffmpeg.global.avutil.AV_LOG_ERROR);
+
+            frameCount = (int) firstFrame(frameRate);
+            if (checkpoint != null) {
+                frameCount = (int) checkpoint.lastFrame() + 1;
+                System.out.println("Resuming from frame " + frameCount);
+            } else if (frameCount > 0) {
+                System.out.println("Starting at frame " + frameCount);
+            }
+            if (frameCount > 0) {
+                // Frames before the start are decoded from the previous keyframe but not processed
+                if (maps != null) maps.skipTo(frameCount);
+                else source.seekToFrame(frameCount);
+            }
+            
+            int span = 0;
+            while (frameCount < lastFrame) {
+                if (spans != null) {
+                    // Frames between spans are written as having no match without decoding them
+                    while (span < spans.size() && spans.get(span).end() <= frameCount) span++;
+                    long next = span < spans.size() ? Math.max(frameCount, spans.get(span).start()) : lastFrame;
+                    if (next > frameCount) {
+                        for (long stop = Math.min(next, lastFrame); frameCount < stop; ) {
+                            writeFrame(writer, summary, frameCount * secondsPerFrame, List.of(), geometry);
+                            frameCount++;
+                            saveProgress(writer, checkpointPath, frameCount, (frameCount - 1) * secondsPerFrame);
+                        }
+                        if (frameCount >= lastFrame) break;
+                        if (maps != null) maps.skipTo(frameCount);
+                        else source.seekToFrame(frameCount);
                     }
+                }
+                if (!(maps != null ? maps.next() : source.grab())) break;
+
+                double timestamp = frameCount * secondsPerFrame;
+                List<Group> groups;
+                BufferedImage overlayFrame = null;
+
+                try {
+                    if (maps != null) {
+                        // Recorded distances only need thresholding
+                        int[][] binary = DistanceMap.threshold(maps.getMap(), maps.getWidth(), maps.getHeight(), threshold);
+                        groups = binaryGroupFinder.findLargestGroups(binary, topK);
+                    } else if (yuvBinarizer != null) {
+                        // Classify pixels straight from the decoded planes
+                        YuvFrame frame = source.getYuvFrame();
+                        groups = frame == null ? List.of()
+                                : binaryGroupFinder.findLargestGroups(yuvBinarizer.toBinaryArray(frame), topK);
+                    } else {
+                        // Frame as BufferedImage, in the frame store's representation when one is used
+                        BufferedImage bufferedImage = source.getImage();
+                        if (previews != null && bufferedImage != null) {
+                            previews.add(frameCount, timestamp, bufferedImage);
+                        }
+                        if (frameStore != null && !fromStore && bufferedImage != null) {
+                            bufferedImage = frameStore.convert(bufferedImage);
+                        }
+                        if (recorder != null) {
+                            recorder.append(bufferedImage);
+                        }
+                        if (bufferedImage == null) {
+                            if (mapWriter != null) mapWriter.abandon();
+                            writeFrame(writer, summary, timestamp, List.of(), geometry);
+                            frameCount++;
+                            saveProgress(writer, checkpointPath, frameCount, timestamp);
+                            continue;
+                        }
                     
-                    // Write to CSV
-                    writer.writeRow(timestamp, largestCentroid);
-                    
-                    frameCount++;
-                    if (frameCount % 100 == 0) {
-                        System.out.printf("Processed %d frames (%.1f seconds)%n", frameCount, timestamp);
-                        writer.flush();
+                        // Find connected groups in the frame
+                        overlayFrame = bufferedImage;
+                        groups = findGroups(bufferedImage, mapWriter, motionGate != null ? motionGate : groupFinder);
                     }
+                } catch (LabelingAbortedException e) {
+                    // Too many groups or foreground pixels: flag the frame instead of labeling it
+                    groups = null;
+                    framesAborted++;
                 }
                 
-                System.out.println("Total frames processed: " + frameCount);
+                // Write the largest centroids to CSV
+                writeFrame(writer, summary, timestamp, groups, geometry);
+                if (overlay != null && overlayFrame != null) {
+                    overlay.add(overlayFrame, timestamp, groups);
+                }
+                if (occupancy != null && groups != null && !groups.isEmpty()) {
+                    occupancy.add(toOriginal(groups.get(0).centroid(), geometry), secondsPerFrame);
+                }
+                
+                frameCount++;
+                saveProgress(writer, checkpointPath, frameCount, timestamp);
             }
             
+            writer.finish();
+            if (summary != null) {
+                summary.finish();
+            }
+            if (recorder != null) {
+                recorder.commit();
+            }
+            if (mapWriter != null) {
+                mapWriter.commit();
+            }
+            if (overlay != null) {
+                overlay.finish();
+                System.out.println("Overlay written to: " + overlayPath);
+            }
+            if (previews != null) {
+                previews.finish();
+                System.out.println("Previews written to: " + previewDirectory.resolve(videoHash));
+            }
+            System.out.println("Total frames processed: " + frameCount);
+            if (framesAborted > 0) {
+                System.out.println("Frames aborted by labeling limits: " + framesAborted);
+            }
+            if (motionGate != null) {
+                System.out.printf("Motion gating: %d frames reused, %.1f%% of blocks re-binarized%n",
+                        motionGate.getFramesReused(), motionGate.getUpdatedBlockRatio() * 100);
+            }
             System.out.println("Output written to: " + outputPath);
+            writeOccupancy(System.out);
+        }
+        Files.deleteIfExists(checkpointPath);
+    }
+
+    // processes the newest frames of a live stream as they arrive, writing each row immediately
+    private void processLive() throws IOException {
+        boolean toStdout = outputPath.equals("-");
+        PrintStream status = toStdout ? System.err : System.out;
+        MotionGatedGroupFinder motionGate = motionGating
+                ? new MotionGatedGroupFinder(distanceFinder, targetColor, threshold, binaryGroupFinder, motionTolerance)
+                : null;
+        ImageGroupFinder finder = motionGate != null ? motionGate : groupFinder;
+        long framesProcessed = 0;
+        long framesAborted = 0;
+        Coordinate lastPosition = null;
+        long lastCapturedMillis = 0;
+
+        org.bytedeco.ffmpeg.global.avutil.av_log_set_level(org.bytedeco.ffmpeg.global.avutil.AV_LOG_ERROR);
+        status.println("Processing live stream: " + inputPath);
+        try (LiveFrameSource frames = new LiveFrameSource(GrabberFrameSource.live(inputPath), maxLatencyMillis);
+             CsvWriter writer = toStdout ? new CsvWriter(new OutputStreamWriter(new NonClosingOutputStream(System.out)))
+                     : openIndexed(new CsvWriter(outputPath), null);
+             TrackPyramid summary = summaryLevels != null ? new TrackPyramid(outputPath, summaryLevels) : null) {
+            LiveFrameSource.Frame frame;
+            while ((frame = frames.take()) != null) {
+                List<Group> groups;
+                try {
+                    groups = finder.findLargestGroups(frame.image(), topK);
+                } catch (LabelingAbortedException e) {
+                    groups = null;
+                    framesAborted++;
+                }
+                writeFrame(writer, summary, frame.capturedMillis() / 1000.0, groups, null);
+                writer.flush();
+                if (summary != null) summary.flush();
+                if (occupancyCellSize > 0) {
+                    // a frame's dwell time lasts until the next processed frame
+                    if (occupancy == null) {
+                        occupancy = new OccupancyGrid(frame.image().getWidth(), frame.image().getHeight(), occupancyCellSize);
+                    }
+                    if (lastPosition != null) {
+                        occupancy.add(lastPosition, (frame.capturedMillis() - lastCapturedMillis) / 1000.0);
+                    }
+                    lastPosition = groups == null || groups.isEmpty() ? null : groups.get(0).centroid();
+                    lastCapturedMillis = frame.capturedMillis();
+                }
+
+                framesProcessed++;
+                if (framesProcessed % 100 == 0) {
+                    status.printf("Processed %d frames, dropped %d%n", framesProcessed, frames.getFramesDropped());
+                }
+            }
+            status.println("Stream ended after " + frames.getFramesDecoded() + " frames");
+            status.println("Frames processed: " + framesProcessed + ", dropped: " + frames.getFramesDropped());
+            if (framesAborted > 0) {
+                status.println("Frames aborted by labeling limits: " + framesAborted);
+            }
+            if (summary != null) {
+                summary.finish();
+            }
+            writeOccupancy(status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a frame");
+        }
+    }
+
+    // writes the occupancy grid and its heatmap where they were requested
+    private void writeOccupancy(PrintStream status) throws IOException {
+        if (occupancy == null) return;
+        if (occupancyPath != null) {
+            occupancy.write(occupancyPath);
+            status.println("Occupancy grid written to: " + occupancyPath);
+        }
+        if (occupancyImagePath != null) {
+            occupancy.writeImage(occupancyImagePath);
+            status.println("Occupancy heatmap written to: " + occupancyImagePath);
+        }
+    }
+
+    // keeps standard output open when the writer on it is closed
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    // reports progress and saves a checkpoint every 100 frames; timestamp is that of the last written frame
+    private static void saveProgress(CsvWriter writer, Path checkpointPath, int frameCount, double timestamp) throws IOException {
+        if (frameCount % 100 != 0) return;
+        System.out.printf("Processed %d frames (%.1f seconds)%n", frameCount, timestamp);
+        writer.flush();
+        new Checkpoint(frameCount - 1, timestamp, writer.getBytesWritten()).write(checkpointPath);
+    }
+
+    // finds groups in a decoded frame, going through its distance map when maps are being recorded
+    private List<Group> findGroups(BufferedImage image, DistanceMapCache.Writer mapWriter,
+                                   ImageGroupFinder imageGroupFinder) throws IOException {
+        if (mapWriter == null) {
+            return imageGroupFinder.findLargestGroups(image, topK);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] map = DistanceMap.compute(image, distanceFinder, targetColor);
+        mapWriter.append(map, width, height);
+        return binaryGroupFinder.findLargestGroups(DistanceMap.threshold(map, width, height, threshold), topK);
+    }
+
+    // writes the centroids of the top groups of a frame (null if labeling was aborted), mapped back to original frame coordinates,
+    // and adds the frame to the track summary if one is written
+    private void writeFrame(CsvWriter writer, TrackPyramid summary, double timestamp, List<Group> groups,
+                            DecodeFilter geometry) throws IOException {
+        if (summary != null) {
+            summary.add(timestamp, groups == null || groups.isEmpty() ? null : toOriginal(groups.get(0).centroid(), geometry));
+        }
+        if (groups == null) {
+            writer.writeAbortedRow(timestamp, topK);
+            return;
+        }
+        if (topK == 1) {
+            // Groups are sorted in descending order, so the first one is the largest
+            writer.writeRow(timestamp, groups.isEmpty() ? null : toOriginal(groups.get(0).centroid(), geometry));
+            return;
+        }
+        List<Coordinate> centroids = new ArrayList<>();
+        for (int i = 0; i < groups.size() && i < topK; i++) {
+            centroids.add(toOriginal(groups.get(i).centroid(), geometry));
+        }
+        writer.writeRow(timestamp, centroids, topK);
+    }
+
+    // maps a centroid found on cropped or downscaled frames back to the center of the original pixel block
+    private static Coordinate toOriginal(Coordinate centroid, DecodeFilter geometry) {
+        return geometry == null ? centroid : geometry.toOriginal(centroid);
+    }
+
+    // how processed frames relate to the original ones: the decode filter's crop and scale, or
+    // the frame store's scale; null when they are the same
+    private DecodeFilter frameGeometry() {
+        if (decodeFilter != null) return decodeFilter;
+        if (frameStore != null && frameStore.getScale() > 1) return new DecodeFilter(0, 0, 0, 0, frameStore.getScale(), 0);
+        return null;
+    }
+
+    // identifies what recorded distance maps were computed from: target color, metric and frame representation
+    private String distanceMapKey() {
+        String frames = frameStore != null && frameStore.isLossy() ? "-" + frameStore.getVariant() : "";
+        return String.format("%06X-%s%s", targetColor, engine(), frames);
+    }
+
+    // identifies the detection pipeline: color metric and labeling
+    private String engine() {
+        return colorMetric.getName() + "-" + LABELING;
+    }
+
+    // the first frame of the window: the first whose timestamp is at least the start time
+    private long firstFrame(double frameRate) {
+        return Math.max(startFrame, (long) Math.ceil(startTime * frameRate));
+    }
+
+    // the frame the window stops before: the first whose timestamp is at least the end time
+    private long endFrame(double frameRate) {
+        return Double.isInfinite(endTime) ? endFrame : Math.min(endFrame, (long) Math.ceil(endTime * frameRate));
+    }
+
+    // whether only part of the video is processed
+    private boolean hasRange() {
+        return startFrame > 0 || endFrame < Long.MAX_VALUE || startTime > 0 || endTime < Double.POSITIVE_INFINITY;
+    }
+
+    // records distance maps while decoding; only complete, uninterrupted passes are recorded
+    private DistanceMapCache.Writer startMapRecording(FrameSource source, String videoHash, Checkpoint checkpoint) throws IOException {
+        if (source == null || checkpoint != null || hasRange() || keyframeScan) {
+            return null;
+        }
+        return distanceMaps.create(videoHash, distanceMapKey(), source.getFrameRate());
+    }
+
+    // reads frames from the frame store when the video is stored there, otherwise decodes it
+    private FrameSource openFrameSource(String videoHash) throws IOException {
+        if (frameStore != null) {
+            StoredFrameSource stored = frameStore.open(videoHash);
+            if (stored != null) {
+                System.out.println("Reading frames from frame store");
+                return stored;
+            }
+        }
+        return decodeFilter != null ? new GrabberFrameSource(inputPath, decodeFilter) : new GrabberFrameSource(inputPath, yuvFrames);
+    }
+
+    // records decoded frames into the frame store; only complete, uninterrupted passes are stored
+    private FrameStore.Recorder startRecording(FrameSource source, String videoHash, Checkpoint checkpoint) throws IOException {
+        if (frameStore == null || source == null || source instanceof StoredFrameSource || checkpoint != null || hasRange() || keyframeScan) {
+            return null;
+        }
+        return frameStore.record(videoHash, source.getFrameRate());
+    }
+
+    // whether previews are wanted but missing, and this run's decoding pass could make them
+    private boolean previewsMissing(String videoHash) {
+        return previewDirectory != null && decodeFilter == null && !yuvFrames && !hasRange() && !keyframeScan
+                && distanceMaps == null && (frameStore == null || !frameStore.contains(videoHash))
+                && !VideoPreviews.isComplete(previewDirectory.resolve(videoHash));
+    }
+
+    // starts previews of a full decoding pass over a video that has none yet
+    private VideoPreviews startPreviews(FrameSource source, String videoHash, Checkpoint checkpoint) throws IOException {
+        if (previewDirectory == null || !(source instanceof GrabberFrameSource grabber) || decodeFilter != null || yuvFrames
+                || checkpoint != null || hasRange() || keyframeScan) {
+            return null;
+        }
+        Path directory = previewDirectory.resolve(videoHash);
+        if (VideoPreviews.isComplete(directory)) return null;
+        return new VideoPreviews(directory, previewWidth, previewTiles, grabber.getLengthInFrames());
+    }
+
+    // opens the output writer, appending after the checkpoint when resuming
+    private CsvWriter openWriter(Checkpoint checkpoint, long firstFrame) throws IOException {
+        boolean append = checkpoint != null;
+        if (commitMarkers) {
+            long startRows = append ? checkpoint.lastFrame() + 1 - firstFrame : 0;
+            return openIndexed(new CommittedCsvWriter(outputPath, append, startRows), checkpoint);
+        }
+        return openIndexed(new CsvWriter(outputPath, append), checkpoint);
+    }
+
+    // attaches the seek index to a new writer, indexing the rows kept from before a resumed run
+    private CsvWriter openIndexed(CsvWriter writer, Checkpoint checkpoint) throws IOException {
+        if (!seekIndex) return writer;
+        try {
+            writer.setSeekIndex(checkpoint != null ? SeekIndex.rebuild(outputPath, checkpoint.offset())
+                    : SeekIndex.create(outputPath));
+        } catch (IOException e) {
+            writer.close();
+            throw e;
         }
+        return writer;
     }
 } 
\ No newline at end of file
@@ -2,24 +2,101 @@ package io.github.humagitgud.centroidfinder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * Main application class for the video processor.
  * 
  * Usage:
- * java -jar videoprocessor.jar inputPath outputCsv targetColor threshold
+ * java -jar videoprocessor.jar inputPath outputCsv targetColor threshold [options]
  * 
  * Where:
  * - inputPath: Path to the input video file
  * - outputCsv: Path to the output CSV file
  * - targetColor: Target hex color in the format RRGGBB
  * - threshold: Integer threshold for color distance
+ * 
+ * Options:
+ * - --metric name: Color distance metric: euclidean (RGB, default), de76 or de2000 (CIELAB difference),
+ *   or hue (HSV hue angle in degrees); the threshold is in the metric's units
+ * - --zones file: Only analyze the zones in a mask PNG (light pixels are analyzed) or a zone file of
+ *   "include|exclude rect x y w h" and "include|exclude polygon x1 y1 x2 y2 ..." lines
+ * - --crop x:y:w:h: Crop decoded frames to this rectangle with an FFmpeg filter before detection; centroids
+ *   stay in original frame coordinates
+ * - --decode-scale n: Downscale decoded frames by this integer factor with an FFmpeg filter before detection
+ * - --decode-fps r: Resample the video to r frames per second with an FFmpeg filter; one row per resampled frame
+ *   (the decode filter options cannot be combined with --frame-store, --distance-maps, --yuv, --keyframe-scan or --live)
+ * - --morphology op: Clean up each binarized frame with a 3x3 erode, dilate, open or close before labeling
+ * - --yuv: Binarize frames from the decoded YUV planes without converting them to RGB (faster, approximate;
+ *   cannot be combined with --frame-store, --distance-maps or --motion-gate)
+ * - --engine name: Detection engine: java (default) or opencv (native binarization and connected components,
+ *   same results; euclidean metric only, cannot be combined with --yuv, --distance-maps or --motion-gate),
+ *   or auto to time the usable engines on sample frames and run with the fastest
+ * - --calibration-frames n: With --engine auto, the number of sample frames to time (default: 30)
+ * - --engine-profile file: With --engine auto, reuse and record the fastest engine per setup in this file
+ * - --start t, --end t: Only process frames with timestamps from t seconds up to, but not including, t seconds
+ * - --start-frame n, --end-frame n: Only process frames from frame n up to, but not including, frame n
+ * - --keyframe-scan: Decode only keyframes first and process at full frame rate only around keyframes where the
+ *   target is found; other frames are written as not found (much faster when the target is rarely visible)
+ * - --live: Read a live stream (named pipe or local stream URL): process only the newest frame, drop stale ones,
+ *   and write each row as soon as it is done with a wall-clock timestamp; outputCsv "-" writes to standard output
+ * - --max-latency-ms n: With --live, drop frames older than n milliseconds when detection gets to them (default: 500)
+ * - --occupancy file: Write a grid of where the largest group's centroid was and for how long (binary)
+ * - --occupancy-png file: Write that grid as a PNG heatmap at frame resolution
+ * - --occupancy-cell n: Cell size of the occupancy grid in pixels (default: 8)
+ * - --summary: Also write track summaries per 1 s, 10 s, 1 min, 10 min and 1 h to "<outputCsv>.summary-<n>s.csv",
+ *   with presence ratio and min, max and mean x and y per interval
+ * - --summary-levels list: Write track summaries for these interval lengths in seconds instead, e.g. 1,30,300
+ * - --seek-index: Also write "<outputCsv>.idx", mapping each second to the byte offset of its first row
+ * - --preview-dir dir: Write a thumbnail and a sprite sheet of the video to "<dir>/<videoHash>/" while decoding it,
+ *   unless they exist already; a missing preview makes the video be processed even if a result is cached
+ * - --preview-width n: Width of the thumbnail and of each sprite tile in pixels (default: 320)
+ * - --preview-tiles n: Number of evenly spaced frames in the sprite sheet (default: 25)
+ * - --overlay file: Also write the processed frames as a video annotated with each group's bounding box and centroid,
+ *   processing them even if a result is cached (cannot be combined with --live, --yuv or --distance-maps)
+ * - --overlay-mask: Tint the binarized mask over the overlay video's frames
+ * - --resume: Continue an interrupted run from its last checkpoint
+ * - --commit-markers: Write output in committed chunks with a "<outputCsv>.commit" status sidecar
+ * - --no-cache: Always process the video instead of reusing a cached result
+ * - --cache-dir dir: Directory of the result cache (default: centroidfinder-cache in the temp directory)
+ * - --cache-max-mb n: Maximum size of the result cache in megabytes (default: 1024)
+ * - --frame-store dir: Keep decoded frames in this directory so later runs on the same video skip decoding
+ * - --frame-store-max-mb n: Disk budget of the frame store in megabytes (default: 10240)
+ * - --frame-store-scale n: Store frames downscaled by this integer factor (default: 1)
+ * - --frame-store-rgb565: Store frames with 16-bit color instead of 24-bit
+ * - --distance-maps dir: Record per-pixel distance maps in this directory so later runs with the same
+ *   color and a different threshold (up to 255) skip decoding and distance computation
+ * - --motion-gate: Only re-binarize blocks that changed since the previous frame (same output as a full run)
+ * - --motion-tolerance n: With --motion-gate, ignore per-channel pixel changes up to n (approximate, default: 0)
+ * - --top-k n: Write the centroids of the n largest groups per frame (default: 1)
+ * - --min-group-size n: Ignore groups smaller than n pixels (default: 1)
+ * - --max-groups n: Abort a frame with more than n groups and flag it with -2 coordinates
+ * - --max-foreground n: Abort a frame with more than n matching pixels and flag it with -2 coordinates
  */
 public class VideoProcessorApp {
+    private static final Path DEFAULT_CACHE_DIR = Path.of(System.getProperty("java.io.tmpdir"), "centroidfinder-cache");
+    private static final long DEFAULT_CACHE_MAX_MB = 1024;
+    private static final long DEFAULT_FRAME_STORE_MAX_MB = 10240;
+    private static final int DEFAULT_CALIBRATION_FRAMES = 30;
+    private static final long DEFAULT_MAX_LATENCY_MS = 500;
+    private static final int DEFAULT_OCCUPANCY_CELL = 8;
+    private static final int DEFAULT_PREVIEW_WIDTH = 320;
+    private static final int DEFAULT_PREVIEW_TILES = 25;
+
     public static void main(String[] args) {
-        if (args.length != 4) {
+        int status = run(args);
+        if (status != 0) {
+            // callers such as the server tell failed runs apart by the exit status
+            System.exit(status);
+        }
+    }
+
+    // parses the arguments and processes the video, returning the process exit status
+    static int run(String[] args) {
+        if (args.length < 4) {
             printUsage("Invalid number of args!");
-            return;
+            return 1;
         }
         
         String inputPath = args[0];
@@ -27,11 +104,12 @@ public class VideoProcessorApp {
         String hexTargetColor = args[2];
         int threshold, targetColor;
         
-        // Validate input path
+        // Validate input path; a live stream may be a URL, so it is not checked
+        boolean live = Arrays.asList(args).contains("--live");
         File inputFile = new File(inputPath);
-        if (!inputFile.exists() || !inputFile.isFile()) {
+        if (!live && (!inputFile.exists() || !inputFile.isFile())) {
             System.err.println("Error: Input video file not found: " + inputPath);
-            return;
+            return 1;
         }
         
         // Validate and parse threshold
@@ -39,7 +117,7 @@ public class VideoProcessorApp {
             threshold = Integer.parseInt(args[3]);
         } catch (NumberFormatException e) {
             System.err.println("Error: Threshold must be an integer");
-            return;
+            return 1;
         }
         
         // Validate and parse target color
@@ -47,25 +125,300 @@ public class VideoProcessorApp {
             targetColor = Integer.parseInt(hexTargetColor, 16);
         } catch (NumberFormatException e) {
             System.err.println("Error: Invalid hex target color. Please provide a color in RRGGBB format.");
-            return;
+            return 1;
+        }
+
+        // Parse optional flags
+        boolean resume = false;
+        boolean commitMarkers = false;
+        boolean useCache = true;
+        Path cacheDir = DEFAULT_CACHE_DIR;
+        long cacheMaxMb = DEFAULT_CACHE_MAX_MB;
+        Path frameStoreDir = null;
+        long frameStoreMaxMb = DEFAULT_FRAME_STORE_MAX_MB;
+        int frameStoreScale = 1;
+        boolean frameStoreRgb565 = false;
+        Path distanceMapDir = null;
+        boolean motionGate = false;
+        int motionTolerance = 0;
+        int topK = 1;
+        ColorMetric metric = ColorMetric.EUCLIDEAN;
+        MorphologyGroupFinder.Operation morphology = null;
+        boolean yuv = false;
+        DetectionEngine engine = DetectionEngine.JAVA;
+        boolean calibrate = false;
+        int calibrationFrames = DEFAULT_CALIBRATION_FRAMES;
+        Path engineProfile = null;
+        int minGroupSize = 1;
+        int maxGroups = Integer.MAX_VALUE;
+        long maxForeground = Long.MAX_VALUE;
+        double startTime = 0;
+        double endTime = Double.POSITIVE_INFINITY;
+        long startFrame = 0;
+        long endFrame = Long.MAX_VALUE;
+        long maxLatencyMs = DEFAULT_MAX_LATENCY_MS;
+        boolean keyframeScan = false;
+        Path zonesPath = null;
+        int[] crop = null;
+        int decodeScale = 1;
+        double decodeFps = 0;
+        Path occupancyPath = null;
+        Path occupancyImagePath = null;
+        int occupancyCell = DEFAULT_OCCUPANCY_CELL;
+        int[] summaryLevels = null;
+        boolean seekIndex = false;
+        Path previewDir = null;
+        int previewWidth = DEFAULT_PREVIEW_WIDTH;
+        int previewTiles = DEFAULT_PREVIEW_TILES;
+        Path overlayPath = null;
+        boolean overlayMask = false;
+        int i = 4;
+        try {
+            for (; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--start" -> startTime = Double.parseDouble(optionValue(args, ++i));
+                    case "--end" -> endTime = Double.parseDouble(optionValue(args, ++i));
+                    case "--start-frame" -> startFrame = Long.parseLong(optionValue(args, ++i));
+                    case "--end-frame" -> endFrame = Long.parseLong(optionValue(args, ++i));
+                    case "--keyframe-scan" -> keyframeScan = true;
+                    case "--zones" -> zonesPath = Path.of(optionValue(args, ++i));
+                    case "--crop" -> crop = DecodeFilter.parseCrop(optionValue(args, ++i));
+                    case "--decode-scale" -> decodeScale = Integer.parseInt(optionValue(args, ++i));
+                    case "--decode-fps" -> decodeFps = Double.parseDouble(optionValue(args, ++i));
+                    case "--live" -> { } // read before the input check
+                    case "--max-latency-ms" -> maxLatencyMs = Long.parseLong(optionValue(args, ++i));
+                    case "--occupancy" -> occupancyPath = Path.of(optionValue(args, ++i));
+                    case "--occupancy-png" -> occupancyImagePath = Path.of(optionValue(args, ++i));
+                    case "--occupancy-cell" -> occupancyCell = Integer.parseInt(optionValue(args, ++i));
+                    case "--summary" -> summaryLevels = TrackPyramid.DEFAULT_LEVELS;
+                    case "--summary-levels" -> summaryLevels = TrackPyramid.parseLevels(optionValue(args, ++i));
+                    case "--seek-index" -> seekIndex = true;
+                    case "--preview-dir" -> previewDir = Path.of(optionValue(args, ++i));
+                    case "--preview-width" -> previewWidth = Integer.parseInt(optionValue(args, ++i));
+                    case "--preview-tiles" -> previewTiles = Integer.parseInt(optionValue(args, ++i));
+                    case "--overlay" -> overlayPath = Path.of(optionValue(args, ++i));
+                    case "--overlay-mask" -> overlayMask = true;
+                    case "--resume" -> resume = true;
+                    case "--commit-markers" -> commitMarkers = true;
+                    case "--no-cache" -> useCache = false;
+                    case "--cache-dir" -> cacheDir = Path.of(optionValue(args, ++i));
+                    case "--cache-max-mb" -> cacheMaxMb = Long.parseLong(optionValue(args, ++i));
+                    case "--frame-store" -> frameStoreDir = Path.of(optionValue(args, ++i));
+                    case "--frame-store-max-mb" -> frameStoreMaxMb = Long.parseLong(optionValue(args, ++i));
+                    case "--frame-store-scale" -> frameStoreScale = Integer.parseInt(optionValue(args, ++i));
+                    case "--frame-store-rgb565" -> frameStoreRgb565 = true;
+                    case "--distance-maps" -> distanceMapDir = Path.of(optionValue(args, ++i));
+                    case "--motion-gate" -> motionGate = true;
+                    case "--motion-tolerance" -> motionTolerance = Integer.parseInt(optionValue(args, ++i));
+                    case "--metric" -> metric = ColorMetric.fromName(optionValue(args, ++i));
+                    case "--morphology" -> morphology = MorphologyGroupFinder.Operation.fromName(optionValue(args, ++i));
+                    case "--yuv" -> yuv = true;
+                    case "--engine" -> {
+                        String name = optionValue(args, ++i);
+                        calibrate = name.equals("auto");
+                        engine = calibrate ? DetectionEngine.JAVA : DetectionEngine.fromName(name);
+                    }
+                    case "--calibration-frames" -> calibrationFrames = Integer.parseInt(optionValue(args, ++i));
+                    case "--engine-profile" -> engineProfile = Path.of(optionValue(args, ++i));
+                    case "--top-k" -> topK = Integer.parseInt(optionValue(args, ++i));
+                    case "--min-group-size" -> minGroupSize = Integer.parseInt(optionValue(args, ++i));
+                    case "--max-groups" -> maxGroups = Integer.parseInt(optionValue(args, ++i));
+                    case "--max-foreground" -> maxForeground = Long.parseLong(optionValue(args, ++i));
+                    default -> {
+                        printUsage("Unknown option: " + args[i]);
+                        return 1;
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid value for option " + args[i - 1]);
+            return 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        if (frameStoreScale < 1) {
+            System.err.println("Error: Frame store scale must be at least 1");
+            return 1;
+        }
+        if (motionTolerance < 0) {
+            System.err.println("Error: Motion tolerance must not be negative");
+            return 1;
+        }
+        if (!(startTime >= 0) || !(endTime > startTime) || startFrame < 0 || endFrame <= startFrame) {
+            System.err.println("Error: Ranges must start at 0 or later and end after their start");
+            return 1;
+        }
+        DecodeFilter decodeFilter = null;
+        if (crop != null || decodeScale != 1 || decodeFps != 0) {
+            if (decodeScale < 1 || !(decodeFps >= 0) || Double.isInfinite(decodeFps)) {
+                System.err.println("Error: Decode scale must be at least 1 and decode frame rate positive");
+                return 1;
+            }
+            decodeFilter = crop != null ? new DecodeFilter(crop[0], crop[1], crop[2], crop[3], decodeScale, decodeFps)
+                    : new DecodeFilter(0, 0, 0, 0, decodeScale, decodeFps);
+        }
+        if (maxLatencyMs < 1) {
+            System.err.println("Error: Maximum latency must be at least 1 millisecond");
+            return 1;
+        }
+        Zones zones = null;
+        if (zonesPath != null) {
+            try {
+                zones = Zones.read(zonesPath);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Error: Cannot read zones from " + zonesPath + ": " + e.getMessage());
+                return 1;
+            }
+        }
+        if (overlayMask && overlayPath == null) {
+            System.err.println("Error: --overlay-mask needs --overlay");
+            return 1;
+        }
+        if (previewWidth < 1 || previewTiles < 1) {
+            System.err.println("Error: Preview width and tiles must be at least 1");
+            return 1;
+        }
+        if (occupancyCell < 1) {
+            System.err.println("Error: Occupancy cell size must be at least 1");
+            return 1;
+        }
+        if (calibrationFrames < 1) {
+            System.err.println("Error: Calibration frames must be at least 1");
+            return 1;
+        }
+        if (topK < 1) {
+            System.err.println("Error: Top-k must be at least 1");
+            return 1;
+        }
+        if (minGroupSize < 1 || maxGroups < 1 || maxForeground < 1) {
+            System.err.println("Error: Labeling limits must be at least 1");
+            return 1;
         }
         
         // Create and run the video processor
         try {
             VideoProcessor processor = new VideoProcessor(inputPath, outputCsv, targetColor, threshold);
+            processor.setColorMetric(metric);
+            processor.setTimeRange(startTime, endTime);
+            processor.setFrameRange(startFrame, endFrame);
+            processor.setKeyframeScan(keyframeScan);
+            processor.setZones(zones);
+            processor.setDecodeFilter(decodeFilter);
+            processor.setSummaryLevels(summaryLevels);
+            processor.setSeekIndex(seekIndex);
+            processor.setPreviews(previewDir, previewWidth, previewTiles);
+            processor.setOverlay(overlayPath, overlayMask);
+            if (occupancyPath != null || occupancyImagePath != null) {
+                processor.setOccupancy(occupancyCell, occupancyPath, occupancyImagePath);
+            }
+            processor.setResume(resume);
+            processor.setCommitMarkers(commitMarkers);
+            if (live) {
+                processor.setLive(maxLatencyMs);
+            } else if (useCache) {
+                processor.setResultCache(new ResultCache(cacheDir, cacheMaxMb * 1024 * 1024));
+            }
+            if (frameStoreDir != null) {
+                processor.setFrameStore(new FrameStore(frameStoreDir, frameStoreMaxMb * 1024 * 1024,
+                        frameStoreScale, frameStoreRgb565));
+            }
+            if (distanceMapDir != null) {
+                processor.setDistanceMaps(new DistanceMapCache(distanceMapDir));
+            }
+            processor.setMotionGating(motionGate, motionTolerance);
+            processor.setTopK(topK);
+            processor.setLabelingLimits(minGroupSize, maxGroups, maxForeground);
+            processor.setMorphology(morphology);
+            processor.setYuvFrames(yuv);
+            processor.setEngine(engine);
+            if (calibrate) {
+                processor.calibrateEngine(calibrationFrames,
+                        engineProfile != null ? EngineProfile.read(engineProfile) : null);
+            }
             processor.process();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            // options that cannot be used together, as checked by the processor
+            System.err.println("Error: " + e.getMessage());
+            return 1;
         } catch (IOException e) {
             System.err.println("Error processing video: " + e.getMessage());
             e.printStackTrace();
+            return 1;
+        }
+        return 0;
+    }
+    
+    // returns the value following an option, failing if the option is the last argument
+    private static String optionValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for option " + args[index - 1]);
         }
+        return args[index];
     }
     
     private static void printUsage(String errorMessage) {
-        System.out.println("Usage: java -jar videoprocessor.jar <inputPath> <outputCsv> <targetColor> <threshold>");
+        System.out.println(errorMessage);
+        System.out.println("Usage: java -jar videoprocessor.jar <inputPath> <outputCsv> <targetColor> <threshold> [options]");
         System.out.println("Where:");
         System.out.println("  inputPath: Path to the input video file");
         System.out.println("  outputCsv: Path to the output CSV file");
         System.out.println("  targetColor: Target hex color in the format RRGGBB (e.g., FF0000 for red)");
         System.out.println("  threshold: Integer threshold for color distance");
+        System.out.println("Options:");
+        System.out.println("  --metric <name>: Color distance metric: euclidean (RGB, default), de76 or de2000 (CIELAB difference),");
+        System.out.println("      or hue (HSV hue angle in degrees); the threshold is in the metric's units");
+        System.out.println("  --zones <file>: Only analyze the zones in a mask PNG (light pixels are analyzed) or a zone file of");
+        System.out.println("      \"include|exclude rect x y w h\" and \"include|exclude polygon x1 y1 x2 y2 ...\" lines");
+        System.out.println("  --crop <x:y:w:h>: Crop decoded frames to this rectangle with an FFmpeg filter before detection; centroids");
+        System.out.println("      stay in original frame coordinates");
+        System.out.println("  --decode-scale <n>: Downscale decoded frames by this integer factor with an FFmpeg filter before detection");
+        System.out.println("  --decode-fps <r>: Resample the video to r frames per second with an FFmpeg filter; one row per resampled frame");
+        System.out.println("      (the decode filter options cannot be combined with --frame-store, --distance-maps, --yuv, --keyframe-scan or --live)");
+        System.out.println("  --morphology <op>: Clean up each binarized frame with a 3x3 erode, dilate, open or close before labeling");
+        System.out.println("  --yuv: Binarize frames from the decoded YUV planes without converting them to RGB (faster, approximate;");
+        System.out.println("      cannot be combined with --frame-store, --distance-maps or --motion-gate)");
+        System.out.println("  --engine <name>: Detection engine: java (default) or opencv (native binarization and connected components,");
+        System.out.println("      same results; euclidean metric only, cannot be combined with --yuv, --distance-maps or --motion-gate),");
+        System.out.println("      or auto to time the usable engines on sample frames and run with the fastest");
+        System.out.println("  --calibration-frames <n>: With --engine auto, the number of sample frames to time (default: 30)");
+        System.out.println("  --engine-profile <file>: With --engine auto, reuse and record the fastest engine per setup in this file");
+        System.out.println("  --start <t>, --end <t>: Only process frames with timestamps from t seconds up to, but not including, t seconds");
+        System.out.println("  --start-frame <n>, --end-frame <n>: Only process frames from frame n up to, but not including, frame n");
+        System.out.println("  --keyframe-scan: Decode only keyframes first and process at full frame rate only around keyframes where the");
+        System.out.println("      target is found; other frames are written as not found (much faster when the target is rarely visible)");
+        System.out.println("  --live: Read a live stream (named pipe or local stream URL): process only the newest frame, drop stale ones,");
+        System.out.println("      and write each row as soon as it is done with a wall-clock timestamp; outputCsv - writes to standard output");
+        System.out.println("  --max-latency-ms <n>: With --live, drop frames older than n milliseconds when detection gets to them (default: 500)");
+        System.out.println("  --occupancy <file>: Write a grid of where the largest group's centroid was and for how long (binary)");
+        System.out.println("  --occupancy-png <file>: Write that grid as a PNG heatmap at frame resolution");
+        System.out.println("  --occupancy-cell <n>: Cell size of the occupancy grid in pixels (default: 8)");
+        System.out.println("  --summary: Also write track summaries per 1 s, 10 s, 1 min, 10 min and 1 h to <outputCsv>.summary-<n>s.csv,");
+        System.out.println("      with presence ratio and min, max and mean x and y per interval");
+        System.out.println("  --summary-levels <list>: Write track summaries for these interval lengths in seconds instead, e.g. 1,30,300");
+        System.out.println("  --seek-index: Also write <outputCsv>.idx, mapping each second to the byte offset of its first row");
+        System.out.println("  --preview-dir <dir>: Write a thumbnail and a sprite sheet of the video to <dir>/<videoHash>/ while decoding it,");
+        System.out.println("      unless they exist already; a missing preview makes the video be processed even if a result is cached");
+        System.out.println("  --preview-width <n>: Width of the thumbnail and of each sprite tile in pixels (default: 320)");
+        System.out.println("  --preview-tiles <n>: Number of evenly spaced frames in the sprite sheet (default: 25)");
+        System.out.println("  --overlay <file>: Also write the processed frames as a video annotated with each group's bounding box and centroid,");
+        System.out.println("      processing them even if a result is cached");
+        System.out.println("  --overlay-mask: Tint the binarized mask over the overlay video's frames");
+        System.out.println("  --resume: Continue an interrupted run from its last checkpoint");
+        System.out.println("  --commit-markers: Write output in committed chunks with a <outputCsv>.commit status sidecar");
+        System.out.println("  --no-cache: Always process the video instead of reusing a cached result");
+        System.out.println("  --cache-dir <dir>: Directory of the result cache (default: centroidfinder-cache in the temp directory)");
+        System.out.println("  --cache-max-mb <n>: Maximum size of the result cache in megabytes (default: 1024)");
+        System.out.println("  --frame-store <dir>: Keep decoded frames in this directory so later runs on the same video skip decoding");
+        System.out.println("  --frame-store-max-mb <n>: Disk budget of the frame store in megabytes (default: 10240)");
+        System.out.println("  --frame-store-scale <n>: Store frames downscaled by this integer factor (default: 1)");
+        System.out.println("  --frame-store-rgb565: Store frames with 16-bit color instead of 24-bit");
+        System.out.println("  --distance-maps <dir>: Record per-pixel distance maps so re-runs with a new threshold (up to 255) skip decoding");
+        System.out.println("  --motion-gate: Only re-binarize blocks that changed since the previous frame (same output as a full run)");
+        System.out.println("  --motion-tolerance <n>: With --motion-gate, ignore per-channel pixel changes up to n (approximate, default: 0)");
+        System.out.println("  --top-k <n>: Write the centroids of the n largest groups per frame (default: 1)");
+        System.out.println("  --min-group-size <n>: Ignore groups smaller than n pixels (default: 1)");
+        System.out.println("  --max-groups <n>: Abort a frame with more than n groups and flag it with -2 coordinates");
+        System.out.println("  --max-foreground <n>: Abort a frame with more than n matching pixels and flag it with -2 coordinates");
     }
 } 
\ No newline at end of file
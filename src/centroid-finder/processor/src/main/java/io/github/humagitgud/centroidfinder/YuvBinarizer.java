@@ -0,0 +1,103 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binarizes YUV 4:2:0 frames directly from their planes, without converting them to RGB.
+ *
+ * A pixel is white (1) if the RGB color its Y, U and V values stand for is closer to the
+ * target color than the threshold, as with {@link DistanceImageBinarizer}. Instead of
+ * converting every pixel, the classification is kept in a table over YUV space: for each
+ * (U, V) pair, one bit for each of the 256 Y values. A (U, V) pair's 256 bits are computed
+ * the first time it is seen; after that each pixel is a table lookup. Chroma is shared by
+ * each 2x2 block of pixels, as in the frame.
+ *
+ * YUV values are interpreted as BT.601 limited range, the default when FFmpeg converts
+ * such video to RGB, so results are close to but not always identical to binarizing the
+ * converted RGB frame.
+ */
+public class YuvBinarizer {
+    private final ColorDistanceFinder distanceFinder;
+    private final int targetColor;
+    private final int threshold;
+
+    // bit y of word (u << 8 | v) * 4 + y / 64: whether (y, u, v) matches
+    private final long[] matches = new long[65536 * 4];
+    private final boolean[] known = new boolean[65536];
+
+    /**
+     * Constructs a YuvBinarizer.
+     *
+     * @param distanceFinder the metric used to compare colors
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @param threshold pixels closer to the target color than this are white
+     */
+    public YuvBinarizer(ColorDistanceFinder distanceFinder, int targetColor, int threshold) {
+        this.distanceFinder = distanceFinder;
+        this.targetColor = targetColor;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Converts a YUV frame into a binary 2D array.
+     *
+     * @param frame the frame's planes
+     * @return a 2D binary array where 1 represents white and 0 represents black
+     */
+    public int[][] toBinaryArray(YuvFrame frame) {
+        int width = frame.width();
+        int height = frame.height();
+        ByteBuffer yPlane = frame.y();
+        ByteBuffer uPlane = frame.u();
+        ByteBuffer vPlane = frame.v();
+        int[][] binarized = new int[height][width];
+
+        for (int y = 0; y < height; y++) {
+            int yRow = y * frame.yStride();
+            int uRow = (y >> 1) * frame.uStride();
+            int vRow = (y >> 1) * frame.vStride();
+            int[] row = binarized[y];
+            for (int x = 0; x < width; x++) {
+                int uv = (uPlane.get(uRow + (x >> 1)) & 0xFF) << 8 | (vPlane.get(vRow + (x >> 1)) & 0xFF);
+                if (!known[uv]) classify(uv);
+                int luma = yPlane.get(yRow + x) & 0xFF;
+                row[x] = (int) (matches[uv << 2 | luma >>> 6] >>> luma) & 1;
+            }
+        }
+        return binarized;
+    }
+
+    // fills in the table entries of one chroma pair for every luma value
+    private void classify(int uv) {
+        int u = uv >>> 8;
+        int v = uv & 0xFF;
+        for (int luma = 0; luma < 256; luma++) {
+            if (distanceFinder.distance(toRgb(luma, u, v), targetColor) < threshold) {
+                matches[uv << 2 | luma >>> 6] |= 1L << luma;
+            }
+        }
+        known[uv] = true;
+    }
+
+    /**
+     * Converts a BT.601 limited range YUV value to RGB, using FFmpeg's integer coefficients.
+     *
+     * @param y luma, 16-235 for in-range values
+     * @param u blue-difference chroma, 16-240 for in-range values
+     * @param v red-difference chroma, 16-240 for in-range values
+     * @return the color as a 24-bit hex RGB integer
+     */
+    static int toRgb(int y, int u, int v) {
+        int c = 298 * (y - 16);
+        int d = u - 128;
+        int e = v - 128;
+        int r = clamp((c + 409 * e + 128) >> 8);
+        int g = clamp((c - 100 * d - 208 * e + 128) >> 8);
+        int b = clamp((c + 516 * d + 128) >> 8);
+        return r << 16 | g << 8 | b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+}
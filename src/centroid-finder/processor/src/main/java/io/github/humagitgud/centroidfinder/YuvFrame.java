@@ -0,0 +1,18 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A decoded video frame in planar YUV 4:2:0, as produced by the decoder.
+ *
+ * The Y (luma) plane has one byte per pixel; the U and V (chroma) planes have one byte per
+ * 2x2 block of pixels. Each plane is addressed with its own stride, the number of bytes
+ * between the starts of two rows, which may be larger than the plane's width.
+ *
+ * The buffers belong to the decoder and are only valid until the next frame is read.
+ */
+public record YuvFrame(int width, int height,
+                       ByteBuffer y, int yStride,
+                       ByteBuffer u, int uStride,
+                       ByteBuffer v, int vStride) {
+}
@@ -0,0 +1,101 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.Arrays;
+
+/**
+ * The pixels of a frame that are analyzed, rasterized from {@link Zones} for one frame size.
+ *
+ * The mask is kept as a {@link PackedMask} and as a list of runs of analyzed pixels per row, so
+ * binarization can visit only the analyzed spans of each row and skip excluded ones entirely.
+ */
+public final class ZoneMask {
+    private final PackedMask mask;
+    private final int width;
+    private final int height;
+    private final int[][] runs;
+    private final long area;
+
+    /**
+     * Creates a zone mask from a packed mask of analyzed pixels.
+     *
+     * @param mask the analyzed pixels
+     * @param width the frame width
+     * @param height the frame height
+     */
+    public ZoneMask(PackedMask mask, int width, int height) {
+        this.mask = mask;
+        this.width = width;
+        this.height = height;
+        this.runs = new int[height][];
+        for (int y = 0; y < height; y++) {
+            runs[y] = mask.runs(y);
+        }
+        this.area = mask.cardinality();
+    }
+
+    /**
+     * Returns the frame width this mask was rasterized for.
+     *
+     * @return the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the frame height this mask was rasterized for.
+     *
+     * @return the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns whether a pixel is analyzed.
+     *
+     * @param x the pixel's x coordinate
+     * @param y the pixel's y coordinate
+     * @return true if the pixel is inside the analyzed zones
+     */
+    public boolean contains(int x, int y) {
+        return mask.get(x, y);
+    }
+
+    /**
+     * Returns the runs of analyzed pixels in a row.
+     *
+     * @param y the row
+     * @return pairs of first x and end x (exclusive): x0, x1, x0, x1, ...
+     */
+    public int[] runs(int y) {
+        return runs[y];
+    }
+
+    /**
+     * Returns the number of analyzed pixels.
+     *
+     * @return the analyzed area in pixels
+     */
+    public long area() {
+        return area;
+    }
+
+    /**
+     * Clears the pixels of a binary image outside the analyzed zones.
+     *
+     * @param image a binary image of this mask's size, indexed [y][x]
+     */
+    public void apply(int[][] image) {
+        for (int y = 0; y < height; y++) {
+            int[] row = image[y];
+            int[] rowRuns = runs[y];
+            int x = 0;
+            for (int i = 0; i < rowRuns.length; i += 2) {
+                Arrays.fill(row, x, rowRuns[i], 0);
+                x = rowRuns[i + 1];
+            }
+            Arrays.fill(row, x, width, 0);
+        }
+    }
+}
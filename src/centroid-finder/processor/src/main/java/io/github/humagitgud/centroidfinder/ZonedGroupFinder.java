@@ -0,0 +1,58 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.util.List;
+
+/**
+ * A BinaryGroupFinder that clears the pixels outside the analyzed {@link Zones} of an already
+ * binarized image before passing it to another BinaryGroupFinder.
+ *
+ * This applies zones where frames are not binarized by a {@link ZonedImageBinarizer}, such as
+ * thresholded distance maps, YUV frames and motion-gated masks. The image is modified in place.
+ */
+public class ZonedGroupFinder implements BinaryGroupFinder {
+    private final Zones zones;
+    private final BinaryGroupFinder groupFinder;
+
+    /**
+     * Constructs a ZonedGroupFinder.
+     *
+     * @param zones the analyzed regions of each image
+     * @param groupFinder the finder that labels the masked image
+     */
+    public ZonedGroupFinder(Zones zones, BinaryGroupFinder groupFinder) {
+        this.zones = zones;
+        this.groupFinder = groupFinder;
+    }
+
+    /**
+     * Finds connected groups of 1s inside the analyzed zones.
+     *
+     * @param image a rectangular 2D array containing only 1s and 0s
+     * @return the groups inside the zones in descending order
+     */
+    @Override
+    public List<Group> findConnectedGroups(int[][] image) {
+        return groupFinder.findConnectedGroups(mask(image));
+    }
+
+    /**
+     * Finds the k largest groups of 1s inside the analyzed zones.
+     *
+     * @param image a rectangular 2D array containing only 1s and 0s
+     * @param k the maximum number of groups to return, at least 1
+     * @return the k largest groups inside the zones in descending order
+     */
+    @Override
+    public List<Group> findLargestGroups(int[][] image, int k) {
+        return groupFinder.findLargestGroups(mask(image), k);
+    }
+
+    private int[][] mask(int[][] image) {
+        if (image == null) throw new NullPointerException();
+        if (image.length == 0 || image[0] == null || image[0].length == 0) {
+            throw new IllegalArgumentException();
+        }
+        zones.mask(image[0].length, image.length).apply(image);
+        return image;
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An ImageBinarizer that only measures color distances inside the analyzed {@link Zones}.
+ *
+ * Each row is binarized one run of analyzed pixels at a time, reading the run's pixels in one
+ * call; excluded pixels are left at 0 without being read or compared. A masked-out region that
+ * matches the target color therefore costs nothing and never forms a group.
+ */
+public class ZonedImageBinarizer implements ImageBinarizer {
+    private final ColorDistanceFinder distanceFinder;
+    private final int targetColor;
+    private final int threshold;
+    private final Zones zones;
+    private final ImageBinarizer unzoned;
+
+    /**
+     * Constructs a ZonedImageBinarizer.
+     *
+     * @param distanceFinder an object that computes the distance between two colors
+     * @param targetColor the reference color as a 24-bit hex RGB integer (0xRRGGBB)
+     * @param threshold pixels closer to the target color than this are white
+     * @param zones the analyzed regions of each frame
+     */
+    public ZonedImageBinarizer(ColorDistanceFinder distanceFinder, int targetColor, int threshold, Zones zones) {
+        this.distanceFinder = distanceFinder;
+        this.targetColor = targetColor;
+        this.threshold = threshold;
+        this.zones = zones;
+        this.unzoned = new DistanceImageBinarizer(distanceFinder, targetColor, threshold);
+    }
+
+    /**
+     * Converts the given image into a binary 2D array. A pixel is white (1) if it is inside the
+     * analyzed zones and its distance to the target color is less than the threshold.
+     *
+     * @param image the input RGB BufferedImage
+     * @return a 2D binary array where 1 represents white and 0 represents black
+     */
+    @Override
+    public int[][] toBinaryArray(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ZoneMask mask = zones.mask(width, height);
+        int[][] binarized = new int[height][width];
+        int[] pixels = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            int[] runs = mask.runs(y);
+            int[] row = binarized[y];
+            for (int i = 0; i < runs.length; i += 2) {
+                int x0 = runs[i];
+                int length = runs[i + 1] - x0;
+                image.getRGB(x0, y, length, 1, pixels, 0, length);
+                for (int j = 0; j < length; j++) {
+                    if (distanceFinder.distance(pixels[j] & 0xFFFFFF, targetColor) < threshold) row[x0 + j] = 1;
+                }
+            }
+        }
+        return binarized;
+    }
+
+    /**
+     * Converts a binary 2D array into a black and white BufferedImage.
+     *
+     * @param image a 2D array of 0s and 1s
+     * @return the image with white for 1 and black for 0
+     */
+    @Override
+    public BufferedImage toBufferedImage(int[][] image) {
+        return unzoned.toBufferedImage(image);
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.humagitgud.centroidfinder;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * The regions of a frame that are analyzed, such as the inside of a tank, leaving out burned-in
+ * timestamps or equipment that matches the target color.
+ *
+ * Zones are read either from a mask image or from a zone file. In a mask image, pixels with a gray
+ * level of at least 128 are analyzed and darker ones are excluded; the image is stretched to the
+ * frame size. A zone file has one zone per line, in frame pixel coordinates:
+ *
+ *   include rect x y width height
+ *   exclude rect x y width height
+ *   include polygon x1 y1 x2 y2 x3 y3 ...
+ *   exclude polygon x1 y1 x2 y2 x3 y3 ...
+ *
+ * Blank lines and lines starting with # are ignored. If the first zone is an include zone the
+ * whole frame starts excluded, otherwise it starts analyzed, and each zone then includes or
+ * excludes its pixels in file order. A pixel belongs to a zone if its center is inside it.
+ *
+ * Zones are rasterized into a {@link ZoneMask} once per frame size.
+ */
+public final class Zones {
+    private record Zone(boolean include, Shape shape) {}
+
+    private final List<Zone> zones;
+    private final BufferedImage maskImage;
+    private final String digest;
+    private final int offsetX;
+    private final int offsetY;
+    private final int scale;
+    private ZoneMask cached;
+
+    private Zones(List<Zone> zones, BufferedImage maskImage, String digest, int offsetX, int offsetY, int scale) {
+        this.zones = zones;
+        this.maskImage = maskImage;
+        this.digest = digest;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.scale = scale;
+    }
+
+    /**
+     * Reads zones from a mask image (.png) or a zone file.
+     *
+     * @param path the mask image or zone file
+     * @return the zones
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a zone file line is malformed
+     */
+    public static Zones read(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".png")) {
+            BufferedImage image = ImageIO.read(path.toFile());
+            if (image == null) throw new IOException("Not an image: " + path);
+            return new Zones(List.of(), image, VideoHash.of(path), 0, 0, 1);
+        }
+        return parse(Files.readAllLines(path));
+    }
+
+    /**
+     * Parses the lines of a zone file.
+     *
+     * @param lines the zone definitions
+     * @return the zones
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    public static Zones parse(List<String> lines) {
+        List<Zone> zones = new ArrayList<>();
+        StringBuilder canonical = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            String[] parts = trimmed.split("\\s+");
+            if (parts.length < 2 || !(parts[0].equals("include") || parts[0].equals("exclude"))) {
+                throw new IllegalArgumentException("Invalid zone: " + trimmed + " (expected include or exclude, then rect or polygon)");
+            }
+            double[] values = new double[parts.length - 2];
+            try {
+                for (int i = 0; i < values.length; i++) values[i] = Double.parseDouble(parts[i + 2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid zone coordinates: " + trimmed);
+            }
+            zones.add(new Zone(parts[0].equals("include"), shape(parts[1], values, trimmed)));
+            canonical.append(String.join(" ", parts)).append('\n');
+        }
+        return new Zones(zones, null, VideoHash.ofString(canonical.toString()), 0, 0, 1);
+    }
+
+    private static Shape shape(String kind, double[] values, String line) {
+        switch (kind) {
+            case "rect" -> {
+                if (values.length != 4 || values[2] <= 0 || values[3] <= 0) {
+                    throw new IllegalArgumentException("A rect needs x, y, width and height: " + line);
+                }
+                return new Rectangle2D.Double(values[0], values[1], values[2], values[3]);
+            }
+            case "polygon" -> {
+                if (values.length < 6 || values.length % 2 != 0) {
+                    throw new IllegalArgumentException("A polygon needs at least 3 x y points: " + line);
+                }
+                Path2D.Double polygon = new Path2D.Double();
+                polygon.moveTo(values[0], values[1]);
+                for (int i = 2; i < values.length; i += 2) polygon.lineTo(values[i], values[i + 1]);
+                polygon.closePath();
+                return polygon;
+            }
+            default -> throw new IllegalArgumentException("Unknown zone shape: " + kind + " (expected rect or polygon)");
+        }
+    }
+
+    /**
+     * Returns these zones for frames downscaled by an integer factor, such as those of a
+     * {@link FrameStore}. Zone file coordinates stay in full-size frame pixels.
+     *
+     * @param scale the downscaling factor, at least 1
+     * @return the zones for downscaled frames
+     */
+    public Zones downscaled(int scale) {
+        return forFrames(0, 0, scale);
+    }
+
+    /**
+     * Returns these zones for frames cropped at an offset and then downscaled by an integer
+     * factor, such as those of a {@link DecodeFilter}. Zone file coordinates stay in full-size
+     * frame pixels. A cropped frame is not the whole video frame, so a mask image is then drawn
+     * at its own size instead of being stretched, and must have the video's full resolution.
+     *
+     * @param offsetX the left edge of the crop in full-size frame pixels
+     * @param offsetY the top edge of the crop in full-size frame pixels
+     * @param scale the downscaling factor, at least 1
+     * @return the zones for cropped and downscaled frames
+     */
+    public Zones forFrames(int offsetX, int offsetY, int scale) {
+        if (scale < 1) throw new IllegalArgumentException("scale must be at least 1");
+        if (offsetX == this.offsetX && offsetY == this.offsetY && scale == this.scale) return this;
+        return new Zones(zones, maskImage, digest, offsetX, offsetY, scale);
+    }
+
+    /**
+     * Returns a digest of the zone definitions, for cache keys.
+     *
+     * @return the digest
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * Returns the zones rasterized for a frame size; the last mask is reused while the size is unchanged.
+     *
+     * @param width the frame width
+     * @param height the frame height
+     * @return the mask of analyzed pixels
+     */
+    public synchronized ZoneMask mask(int width, int height) {
+        if (cached == null || cached.getWidth() != width || cached.getHeight() != height) {
+            cached = rasterize(width, height);
+        }
+        return cached;
+    }
+
+    private ZoneMask rasterize(int width, int height) {
+        BufferedImage raster = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = raster.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            AffineTransform toFrame = AffineTransform.getScaleInstance(1.0 / scale, 1.0 / scale);
+            toFrame.translate(-offsetX, -offsetY);
+            if (maskImage != null) {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                if (offsetX == 0 && offsetY == 0) {
+                    g.drawImage(maskImage, 0, 0, width, height, null);
+                } else {
+                    g.drawImage(maskImage, toFrame, null);
+                }
+            } else {
+                boolean startIncluded = zones.isEmpty() || !zones.get(0).include();
+                g.setColor(startIncluded ? Color.WHITE : Color.BLACK);
+                g.fillRect(0, 0, width, height);
+                for (Zone zone : zones) {
+                    g.setColor(zone.include() ? Color.WHITE : Color.BLACK);
+                    g.fill(toFrame.createTransformedShape(zone.shape()));
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+
+        int[][] analyzed = new int[height][width];
+        int[] rgb = new int[width];
+        for (int y = 0; y < height; y++) {
+            raster.getRGB(0, y, width, 1, rgb, 0, width);
+            for (int x = 0; x < width; x++) {
+                int gray = (((rgb[x] >> 16) & 0xFF) + ((rgb[x] >> 8) & 0xFF) + (rgb[x] & 0xFF)) / 3;
+                if (gray >= 128) analyzed[y][x] = 1;
+            }
+        }
+        return new ZoneMask(PackedMask.of(analyzed), width, height);
+    }
+}
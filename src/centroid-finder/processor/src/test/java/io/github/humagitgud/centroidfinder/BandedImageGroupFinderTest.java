@@ -0,0 +1,54 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+// Unit tests for BandedImageGroupFinder
+public class BandedImageGroupFinderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBandsMatchWholeImage() throws IOException {
+        BufferedImage image = new BufferedImage(90, 70, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(4);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(3) == 0 ? 0xFF0000 : 0x000000);
+            }
+        }
+        File file = tempDir.resolve("image.png").toFile();
+        ImageIO.write(image, "png", file);
+
+        ImageBinarizer binarizer = new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 50);
+        List<Group> expected = new BinarizingImageGroupFinder(binarizer, new DfsBinaryGroupFinder())
+                .findConnectedGroups(image);
+
+        for (int bandRows : new int[] {1, 7, 70, 1000}) {
+            try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+                ImageReader reader = ImageIO.getImageReaders(input).next();
+                reader.setInput(input);
+                List<Group> groups = new BandedImageGroupFinder(binarizer, bandRows, 1).findConnectedGroups(reader);
+                assertEquals(expected, groups, "Groups read in bands of " + bandRows + " rows");
+                reader.dispose();
+            }
+        }
+    }
+
+    @Test
+    void testRejectsEmptyBands() {
+        ImageBinarizer binarizer = new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 50);
+        assertThrows(IllegalArgumentException.class, () -> new BandedImageGroupFinder(binarizer, 0, 1));
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildIdTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testGet_StableWithinRun() {
+        assertEquals(BuildId.get(), BuildId.get());
+    }
+
+    @Test
+    public void testOfDirectory_ChangesWithClassContents() throws IOException {
+        Path classes = tempDir.resolve("classes");
+        Files.createDirectories(classes.resolve("pkg"));
+        Files.writeString(classes.resolve("pkg/A.class"), "first");
+        String before = BuildId.ofDirectory(classes);
+
+        assertEquals(before, BuildId.ofDirectory(classes));
+
+        Files.writeString(classes.resolve("pkg/A.class"), "second");
+        assertNotEquals(before, BuildId.ofDirectory(classes));
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteThenRead_RoundTrips() throws IOException {
+        Path path = Checkpoint.pathFor(tempDir.resolve("out.csv").toString());
+        Checkpoint checkpoint = new Checkpoint(199, 6.63, 2345);
+
+        checkpoint.write(path);
+
+        assertEquals(checkpoint, Checkpoint.read(path));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")), "Temp file should be renamed away");
+    }
+
+    @Test
+    public void testRead_MissingFileReturnsNull() throws IOException {
+        assertNull(Checkpoint.read(tempDir.resolve("missing.checkpoint")));
+    }
+
+    @Test
+    public void testRead_MalformedFileThrows() throws IOException {
+        Path path = tempDir.resolve("bad.checkpoint");
+        Files.writeString(path, "lastFrame=abc\n");
+
+        assertThrows(IOException.class, () -> Checkpoint.read(path));
+    }
+}
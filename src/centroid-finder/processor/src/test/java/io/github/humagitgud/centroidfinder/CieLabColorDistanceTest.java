@@ -0,0 +1,56 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CieLabColorDistance.
+ */
+public class CieLabColorDistanceTest {
+    private final CieLabColorDistance cie76 = new CieLabColorDistance(CieLabColorDistance.Formula.CIE76);
+    private final CieLabColorDistance cie2000 = new CieLabColorDistance(CieLabColorDistance.Formula.CIEDE2000);
+
+    @Test
+    void testSameColorReturnsZero() {
+        assertEquals(0.0, cie76.distance(0x1A2B3C, 0x1A2B3C), 1e-9);
+        assertEquals(0.0, cie2000.distance(0x1A2B3C, 0x1A2B3C), 1e-9);
+    }
+
+    @Test
+    void testWhiteToLab() {
+        double[] lab = CieLabColorDistance.toLab(0xFFFFFF);
+        assertEquals(100, lab[0], 1e-3);
+        assertEquals(0, lab[1], 1e-2);
+        assertEquals(0, lab[2], 1e-2);
+    }
+
+    @Test
+    void testBlackToWhiteIsOneHundred() {
+        assertEquals(100, cie76.distance(0x000000, 0xFFFFFF), 1e-2);
+        assertEquals(100, cie2000.distance(0x000000, 0xFFFFFF), 1e-2);
+    }
+
+    @Test
+    void testDeltaE2000ReferenceValues() {
+        // Reference pairs published with the CIEDE2000 formula (Sharma, Wu and Dalal)
+        assertEquals(2.0425, CieLabColorDistance.deltaE2000(
+                new double[] {50, 2.6772, -79.7751}, new double[] {50, 0, -82.7485}), 1e-4);
+        assertEquals(2.3669, CieLabColorDistance.deltaE2000(
+                new double[] {50, 0, 0}, new double[] {50, -1, 2}), 1e-4);
+        assertEquals(27.1492, CieLabColorDistance.deltaE2000(
+                new double[] {50, 2.5, 0}, new double[] {73, 25, -18}), 1e-4);
+        assertEquals(1.2644, CieLabColorDistance.deltaE2000(
+                new double[] {60.2574, -34.0099, 36.2677}, new double[] {60.4626, -34.1751, 39.4387}), 1e-4);
+    }
+
+    @Test
+    void testDeltaE2000IsSymmetric() {
+        assertEquals(cie2000.distance(0xFF0000, 0x20C040), cie2000.distance(0x20C040, 0xFF0000), 1e-9);
+    }
+
+    @Test
+    void testDarkerShadeIsCloserUnderDeltaE2000() {
+        // CIEDE2000 weights lightness differences less than CIE76 does
+        assertTrue(cie2000.distance(0xFF0000, 0xC00000) < cie76.distance(0xFF0000, 0xC00000));
+    }
+}
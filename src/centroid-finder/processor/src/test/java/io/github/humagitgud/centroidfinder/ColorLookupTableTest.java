@@ -0,0 +1,58 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ColorLookupTable and ColorMetric.
+ */
+public class ColorLookupTableTest {
+
+    @Test
+    void testDistancesFromTargetAreRoundedDown() {
+        ColorDistanceFinder metric = new CieLabColorDistance(CieLabColorDistance.Formula.CIEDE2000);
+        ColorLookupTable table = new ColorLookupTable(metric, 0xFF0000);
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            int color = random.nextInt(1 << 24);
+            double exact = metric.distance(color, 0xFF0000);
+            assertEquals(Math.floor(exact), table.distance(color, 0xFF0000), 1e-9);
+            // second lookup comes from the table
+            assertEquals(Math.floor(exact), table.distance(color, 0xFF0000), 1e-9);
+        }
+    }
+
+    @Test
+    void testFarAndUnrelatedColorsUseTheMetric() {
+        EuclideanColorDistance metric = new EuclideanColorDistance();
+        ColorLookupTable table = new ColorLookupTable(metric, 0x000000);
+        assertEquals(metric.distance(0xFFFFFF, 0x000000), table.distance(0xFFFFFF, 0x000000), 1e-9);
+        assertEquals(metric.distance(0x123456, 0x654321), table.distance(0x123456, 0x654321), 1e-9);
+    }
+
+    @Test
+    void testBinarizationMatchesExactMetric() {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(2);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                image.setRGB(x, y, random.nextInt(1 << 24));
+            }
+        }
+        for (int threshold : new int[] {5, 20, 60}) {
+            int[][] exact = new DistanceImageBinarizer(new HueColorDistance(), 0x3080C0, threshold).toBinaryArray(image);
+            int[][] lookedUp = new DistanceImageBinarizer(ColorMetric.HUE.forTarget(0x3080C0), 0x3080C0, threshold)
+                    .toBinaryArray(image);
+            assertArrayEquals(exact, lookedUp);
+        }
+    }
+
+    @Test
+    void testMetricNames() {
+        assertEquals(ColorMetric.DELTA_E2000, ColorMetric.fromName("de2000"));
+        assertInstanceOf(EuclideanColorDistance.class, ColorMetric.EUCLIDEAN.forTarget(0xFF0000));
+        assertThrows(IllegalArgumentException.class, () -> ColorMetric.fromName("cmyk"));
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommittedCsvWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRowsOnlyAppearAfterFlush() throws IOException {
+        Path csvPath = tempDir.resolve("test.csv");
+
+        try (CommittedCsvWriter writer = new CommittedCsvWriter(csvPath.toString(), false, 0)) {
+            writer.writeRow(0.0, new Coordinate(5, 10));
+            writer.writeRow(0.5, null);
+
+            assertEquals(0, Files.size(csvPath), "Uncommitted rows should not reach the file");
+            assertEquals(new CommitMarker(0, 0, CommitMarker.Status.RUNNING),
+                    CommitMarker.read(CommitMarker.pathFor(csvPath.toString())));
+
+            writer.flush();
+
+            CommitMarker marker = CommitMarker.read(CommitMarker.pathFor(csvPath.toString()));
+            assertEquals(2, marker.rows());
+            assertEquals(Files.size(csvPath), marker.bytes());
+            assertEquals(CommitMarker.Status.RUNNING, marker.status());
+            writer.finish();
+        }
+
+        List<String> lines = Files.readAllLines(csvPath);
+        assertEquals(List.of("0.00,5,10", "0.50,-1,-1"), lines);
+        assertEquals(CommitMarker.Status.DONE, CommitMarker.read(CommitMarker.pathFor(csvPath.toString())).status());
+    }
+
+    @Test
+    public void testCloseWithoutFinishMarksFailed() throws IOException {
+        Path csvPath = tempDir.resolve("test.csv");
+
+        try (CommittedCsvWriter writer = new CommittedCsvWriter(csvPath.toString(), false, 0)) {
+            writer.writeRow(1.0, new Coordinate(1, 2));
+        }
+
+        CommitMarker marker = CommitMarker.read(CommitMarker.pathFor(csvPath.toString()));
+        assertEquals(new CommitMarker(1, Files.size(csvPath), CommitMarker.Status.FAILED), marker);
+    }
+
+    @Test
+    public void testAppendContinuesRowCount() throws IOException {
+        Path csvPath = tempDir.resolve("test.csv");
+        Files.writeString(csvPath, "0.00,1,1" + System.lineSeparator());
+
+        try (CommittedCsvWriter writer = new CommittedCsvWriter(csvPath.toString(), true, 1)) {
+            writer.writeRow(0.03, new Coordinate(2, 2));
+            writer.finish();
+        }
+
+        assertEquals(List.of("0.00,1,1", "0.03,2,2"), Files.readAllLines(csvPath));
+        CommitMarker marker = CommitMarker.read(CommitMarker.pathFor(csvPath.toString()));
+        assertEquals(new CommitMarker(2, Files.size(csvPath), CommitMarker.Status.DONE), marker);
+    }
+}
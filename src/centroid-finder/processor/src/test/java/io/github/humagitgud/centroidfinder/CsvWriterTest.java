@@ -69,4 +69,40 @@ public class CsvWriterTest {
         assertEquals("0.50,-1,-1", lines.get(1));
         assertEquals("1.00,15,20", lines.get(2));
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testWriteRow_WithSeveralCoordinatesPadsMissingGroups() throws IOException {
+        // Arrange
+        Path csvPath = tempDir.resolve("test.csv");
+        
+        // Act
+        try (CsvWriter writer = new CsvWriter(csvPath.toString())) {
+            writer.writeRow(0.5, List.of(new Coordinate(1, 2), new Coordinate(3, 4)), 3);
+            writer.writeRow(1.0, List.of(), 3);
+            assertEquals(2, writer.getRowsWritten());
+        }
+        
+        // Assert
+        List<String> lines = Files.readAllLines(csvPath);
+        assertEquals(2, lines.size());
+        assertEquals("0.50,1,2,3,4,-1,-1", lines.get(0));
+        assertEquals("1.00,-1,-1,-1,-1,-1,-1", lines.get(1));
+    }
+
+    @Test
+    public void testWriteAbortedRow() throws IOException {
+        // Arrange
+        Path csvPath = tempDir.resolve("test.csv");
+        
+        // Act
+        try (CsvWriter writer = new CsvWriter(csvPath.toString())) {
+            writer.writeAbortedRow(0.5, 1);
+            writer.writeAbortedRow(1.0, 2);
+        }
+        
+        // Assert
+        List<String> lines = Files.readAllLines(csvPath);
+        assertEquals("0.50,-2,-2", lines.get(0));
+        assertEquals("1.00,-2,-2,-2,-2", lines.get(1));
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+// Unit tests for DecodeFilter
+public class DecodeFilterTest {
+
+    @Test
+    void testFilterGraph() {
+        assertEquals("crop=200:120:100:480,scale=trunc(iw/2):trunc(ih/2):flags=neighbor,fps=15.0,format=bgr24",
+                new DecodeFilter(100, 480, 200, 120, 2, 15).toFilterGraph());
+        assertEquals("format=bgr24", new DecodeFilter(0, 0, 0, 0, 1, 0).toFilterGraph());
+    }
+
+    @Test
+    void testToOriginalAddsCropAndBlockCenter() {
+        DecodeFilter filter = new DecodeFilter(100, 480, 200, 120, 4, 0);
+        assertEquals(new Coordinate(100 + 12 + 2, 480 + 20 + 2), filter.toOriginal(new Coordinate(3, 5)));
+        assertEquals(new Coordinate(3, 5), new DecodeFilter(0, 0, 0, 0, 1, 0).toOriginal(new Coordinate(3, 5)));
+    }
+
+    @Test
+    void testParseCrop() {
+        assertArrayEquals(new int[] {10, 20, 30, 40}, DecodeFilter.parseCrop("10:20:30:40"));
+        assertThrows(IllegalArgumentException.class, () -> DecodeFilter.parseCrop("10:20:30"));
+        assertThrows(IllegalArgumentException.class, () -> DecodeFilter.parseCrop("10:20:0:40"));
+        assertThrows(IllegalArgumentException.class, () -> DecodeFilter.parseCrop("a:20:30:40"));
+    }
+
+    @Test
+    void testInvalidFiltersThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new DecodeFilter(0, 0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DecodeFilter(0, 0, 0, 0, 1, -1));
+        assertThrows(IllegalArgumentException.class, () -> new DecodeFilter(5, 5, 0, 0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new DecodeFilter(0, 0, 10, 0, 1, 0));
+    }
+}
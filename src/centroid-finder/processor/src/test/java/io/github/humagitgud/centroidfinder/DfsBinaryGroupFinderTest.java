@@ -130,4 +130,80 @@ public class DfsBinaryGroupFinderTest {
             () -> finder.findConnectedGroups(empty),
             "Passing empty image should throw IllegalArgumentException");
     }
+
+    @Test
+    void testFindLargestGroupsMatchesPrefixOfAllGroups() {
+        int[][] image = {
+            {1, 0, 1, 1, 0, 1},
+            {0, 0, 1, 1, 0, 0},
+            {1, 0, 0, 0, 0, 1},
+            {1, 0, 1, 0, 1, 1}
+        };
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder();
+        List<Group> all = finder.findConnectedGroups(image);
+
+        for (int k = 1; k <= all.size() + 1; k++) {
+            assertEquals(all.subList(0, Math.min(k, all.size())), finder.findLargestGroups(image, k),
+                    "Top " + k + " groups should be the first " + k + " of the sorted list");
+        }
+    }
+
+    @Test
+    void testFindLargestGroupsBreaksTiesLikeFullSort() {
+        int[][] image = {
+            {1, 0, 1, 0, 1},
+            {0, 0, 0, 0, 0},
+            {1, 0, 1, 0, 1}
+        };
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder();
+        List<Group> top = finder.findLargestGroups(image, 2);
+
+        assertEquals(List.of(new Group(1, new Coordinate(4, 2)), new Group(1, new Coordinate(4, 0))), top);
+    }
+
+    @Test
+    void testFindLargestGroupsRejectsNonPositiveK() {
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder();
+        assertThrows(IllegalArgumentException.class, () -> finder.findLargestGroups(new int[][] {{1}}, 0));
+    }
+
+    @Test
+    void testMinGroupSizeDropsSmallGroups() {
+        int[][] image = {
+            {1, 0, 1, 1},
+            {0, 0, 1, 1},
+            {1, 1, 0, 0}
+        };
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder(3, Integer.MAX_VALUE, Long.MAX_VALUE);
+        List<Group> groups = finder.findConnectedGroups(image);
+
+        assertEquals(List.of(new Group(4, new Coordinate(2, 0))), groups);
+        assertEquals(groups, finder.findLargestGroups(image, 2));
+    }
+
+    @Test
+    void testMaxGroupsAbortsLabeling() {
+        int[][] image = {
+            {1, 0, 1, 0, 1},
+            {0, 0, 0, 0, 0},
+            {1, 1, 0, 1, 1}
+        };
+        // Five groups, two of which have at least 2 pixels
+        assertEquals(2, new DfsBinaryGroupFinder(2, 2, Long.MAX_VALUE).findConnectedGroups(image).size());
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder(1, 4, Long.MAX_VALUE);
+        assertThrows(LabelingAbortedException.class, () -> finder.findConnectedGroups(image));
+        assertThrows(LabelingAbortedException.class, () -> finder.findLargestGroups(image, 1));
+    }
+
+    @Test
+    void testMaxForegroundAbortsLabeling() {
+        int[][] image = {
+            {1, 1, 1},
+            {0, 0, 0},
+            {1, 0, 0}
+        };
+        assertEquals(2, new DfsBinaryGroupFinder(1, Integer.MAX_VALUE, 4).findConnectedGroups(image).size());
+        DfsBinaryGroupFinder finder = new DfsBinaryGroupFinder(1, Integer.MAX_VALUE, 3);
+        assertThrows(LabelingAbortedException.class, () -> finder.findConnectedGroups(image));
+    }
 }
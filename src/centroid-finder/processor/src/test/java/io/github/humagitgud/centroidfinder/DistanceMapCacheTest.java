@@ -0,0 +1,88 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceMapCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCompute_QuantizesAndCapsDistances() {
+        BufferedImage image = new BufferedImage(3, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000); // distance 0
+        image.setRGB(1, 0, 0xFA0000); // distance 5
+        image.setRGB(2, 0, 0x00FFFF); // distance 441.67, capped
+
+        byte[] map = DistanceMap.compute(image, new EuclideanColorDistance(), 0xFF0000);
+
+        assertArrayEquals(new byte[] {0, 5, (byte) 255}, map);
+    }
+
+    @Test
+    public void testThreshold_MatchesDirectBinarization() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                image.setRGB(x, y, (x * 16) << 16 | (y * 16) << 8 | (x * y) & 0xFF);
+            }
+        }
+        ColorDistanceFinder finder = new EuclideanColorDistance();
+        byte[] map = DistanceMap.compute(image, finder, 0x808080);
+
+        for (int threshold : new int[] {0, 1, 50, 100, 200, 255}) {
+            int[][] expected = new DistanceImageBinarizer(finder, 0x808080, threshold).toBinaryArray(image);
+            assertArrayEquals(expected, DistanceMap.threshold(map, 16, 16, threshold), "Mismatch at threshold " + threshold);
+        }
+    }
+
+    @Test
+    public void testCreateThenOpen_RoundTripsMaps() throws IOException {
+        DistanceMapCache cache = new DistanceMapCache(tempDir);
+        String hash = "a".repeat(64);
+
+        try (DistanceMapCache.Writer writer = cache.create(hash, "FF0000", 30.0)) {
+            writer.append(new byte[] {1, 2, 3, 4, 5, 6}, 3, 2);
+            writer.append(new byte[] {6, 5, 4, 3, 2, 1}, 3, 2);
+            writer.commit();
+        }
+
+        try (DistanceMapCache.Reader reader = cache.open(hash, "FF0000")) {
+            assertNotNull(reader);
+            assertEquals(3, reader.getWidth());
+            assertEquals(2, reader.getHeight());
+            assertEquals(30.0, reader.getFrameRate());
+            assertTrue(reader.next());
+            assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, reader.getMap());
+            assertTrue(reader.next());
+            assertArrayEquals(new byte[] {6, 5, 4, 3, 2, 1}, reader.getMap());
+            assertFalse(reader.next());
+        }
+
+        try (DistanceMapCache.Reader reader = cache.open(hash, "FF0000")) {
+            reader.skipTo(1);
+            assertTrue(reader.next());
+            assertArrayEquals(new byte[] {6, 5, 4, 3, 2, 1}, reader.getMap());
+        }
+    }
+
+    @Test
+    public void testOpen_UncommittedOrOtherKeyIsMissing() throws IOException {
+        DistanceMapCache cache = new DistanceMapCache(tempDir);
+        String hash = "b".repeat(64);
+
+        try (DistanceMapCache.Writer writer = cache.create(hash, "FF0000", 30.0)) {
+            writer.append(new byte[] {1}, 1, 1);
+        }
+
+        assertNull(cache.open(hash, "FF0000"), "Uncommitted maps should not be readable");
+        assertNull(cache.open(hash, "00FF00"));
+    }
+}
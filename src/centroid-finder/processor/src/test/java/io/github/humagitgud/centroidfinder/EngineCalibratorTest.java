@@ -0,0 +1,83 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Unit tests for EngineCalibrator
+public class EngineCalibratorTest {
+
+    private static final List<Group> GROUPS = List.of(new Group(4, new Coordinate(1, 1)));
+
+    private static List<BufferedImage> frames() {
+        return List.of(new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR),
+                new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR));
+    }
+
+    // a finder that takes the given time per frame
+    private static ImageGroupFinder sleeping(long millis, List<Group> groups) {
+        return image -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return groups;
+        };
+    }
+
+    @Test
+    void testPicksFastestAgreeingCandidate() {
+        Map<String, ImageGroupFinder> candidates = new LinkedHashMap<>();
+        candidates.put("slow", sleeping(20, GROUPS));
+        candidates.put("fast", sleeping(1, GROUPS));
+
+        EngineCalibrator.Result result = new EngineCalibrator(2).calibrate(candidates, frames());
+
+        assertEquals("fast", result.winner());
+        assertEquals(2, result.timings().size());
+        assertTrue(result.timings().get(1).nanos() < result.timings().get(0).nanos());
+    }
+
+    @Test
+    void testDisagreeingCandidateIsNotEligible() {
+        Map<String, ImageGroupFinder> candidates = new LinkedHashMap<>();
+        candidates.put("reference", sleeping(20, GROUPS));
+        candidates.put("wrong", sleeping(0, List.of()));
+
+        EngineCalibrator.Result result = new EngineCalibrator(1).calibrate(candidates, frames());
+
+        assertEquals("reference", result.winner());
+        assertFalse(result.timings().get(1).agrees());
+    }
+
+    @Test
+    void testAbortedFramesMustMatch() {
+        Map<String, ImageGroupFinder> candidates = new LinkedHashMap<>();
+        candidates.put("reference", image -> { throw new LabelingAbortedException("too many groups"); });
+        candidates.put("other", image -> List.of());
+
+        EngineCalibrator.Result result = new EngineCalibrator(1).calibrate(candidates, frames());
+
+        assertEquals("reference", result.winner());
+        assertTrue(result.timings().get(0).agrees());
+        assertFalse(result.timings().get(1).agrees());
+    }
+
+    @Test
+    void testSampleFramesAreDistinctCopies() throws Exception {
+        List<BufferedImage> frames = EngineCalibrator.sampleFrames("sampleInput/sampleVideo.mp4", 5);
+
+        assertEquals(5, frames.size());
+        assertNotSame(frames.get(0), frames.get(1));
+        assertEquals(BufferedImage.TYPE_3BYTE_BGR, frames.get(0).getType());
+    }
+
+    @Test
+    void testNoCandidatesThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new EngineCalibrator(1).calibrate(Map.of(), frames()));
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Unit tests for EngineProfile
+public class EngineProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testMissingFileIsEmpty() throws IOException {
+        assertNull(EngineProfile.read(tempDir.resolve("engines")).get("640x360;threshold=100"));
+    }
+
+    @Test
+    void testRecommendationsRoundTrip() throws IOException {
+        Path path = tempDir.resolve("engines");
+        EngineProfile profile = EngineProfile.read(path);
+        profile.put("640x360;threshold=100", DetectionEngine.OPENCV);
+        profile.put("1920x1080;threshold=100", DetectionEngine.JAVA);
+        profile.write();
+
+        EngineProfile read = EngineProfile.read(path);
+        assertEquals(DetectionEngine.OPENCV, read.get("640x360;threshold=100"));
+        assertEquals(DetectionEngine.JAVA, read.get("1920x1080;threshold=100"));
+    }
+
+    @Test
+    void testUnknownEnginesAreIgnored() throws IOException {
+        Path path = tempDir.resolve("engines");
+        Files.writeString(path, "640x360;threshold=100=gpu\n1920x1080;threshold=100=opencv\n");
+
+        EngineProfile profile = EngineProfile.read(path);
+        assertNull(profile.get("640x360;threshold=100"));
+        assertEquals(DetectionEngine.OPENCV, profile.get("1920x1080;threshold=100"));
+    }
+}
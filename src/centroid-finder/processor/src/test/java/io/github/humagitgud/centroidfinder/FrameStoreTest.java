@@ -0,0 +1,131 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrameStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage frame(int width, int height, int seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (seed * 7919 + x * 31 + y * 131) & 0xFFFFFF);
+            }
+        }
+        return image;
+    }
+
+    @Test
+    public void testRecordThenOpen_ReturnsIdenticalFrames() throws IOException {
+        FrameStore store = new FrameStore(tempDir, 1024 * 1024, 1, false);
+        BufferedImage first = frame(5, 4, 1);
+        BufferedImage second = frame(5, 4, 2);
+
+        try (FrameStore.Recorder recorder = store.record("hash", 30.0)) {
+            recorder.append(store.convert(first));
+            recorder.append(store.convert(second));
+            recorder.commit();
+        }
+
+        try (StoredFrameSource source = store.open("hash")) {
+            assertNotNull(source, "Committed video should be readable");
+            assertEquals(2, source.getFrameCount());
+            assertEquals(30.0, source.getFrameRate());
+            assertTrue(source.grab());
+            assertSamePixels(first, source.getImage());
+            assertTrue(source.grab());
+            assertSamePixels(second, source.getImage());
+            assertFalse(source.grab());
+
+            source.seekToFrame(1);
+            assertTrue(source.grab());
+            assertSamePixels(second, source.getImage());
+        }
+    }
+
+    @Test
+    public void testConvert_DownscalesAndReducesColor() throws IOException {
+        FrameStore store = new FrameStore(tempDir, 1024, 2, true);
+        BufferedImage image = new BufferedImage(5, 3, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(2, 2, 0xFF0000);
+
+        BufferedImage converted = store.convert(image);
+
+        assertEquals(3, converted.getWidth());
+        assertEquals(2, converted.getHeight());
+        assertEquals(0xFF0000, converted.getRGB(1, 1) & 0xFFFFFF, "Pure red survives RGB565");
+        assertEquals(0x000000, converted.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals("s2-rgb565", store.getVariant());
+        assertTrue(store.isLossy());
+    }
+
+    @Test
+    public void testOpen_UncommittedRecordingIsNotVisible() throws IOException {
+        FrameStore store = new FrameStore(tempDir, 1024 * 1024, 1, false);
+
+        try (FrameStore.Recorder recorder = store.record("hash", 30.0)) {
+            recorder.append(store.convert(frame(4, 4, 1)));
+        }
+
+        assertNull(store.open("hash"));
+        try (var entries = Files.list(tempDir)) {
+            assertEquals(0, entries.count(), "Discarded recording should leave nothing behind");
+        }
+    }
+
+    @Test
+    public void testRecord_VideoOverBudgetIsNotStored() throws IOException {
+        FrameStore store = new FrameStore(tempDir, 100, 1, false);
+
+        try (FrameStore.Recorder recorder = store.record("hash", 30.0)) {
+            recorder.append(store.convert(frame(10, 10, 1)));
+            recorder.commit();
+        }
+
+        assertNull(store.open("hash"));
+    }
+
+    @Test
+    public void testCommit_EvictsLeastRecentlyUsedVideo() throws IOException {
+        // each video is one 4x4 BGR frame: 48 bytes of frames plus a 44 byte index
+        FrameStore store = new FrameStore(tempDir, 200, 1, false);
+        for (String hash : new String[] {"old", "recent"}) {
+            try (FrameStore.Recorder recorder = store.record(hash, 30.0)) {
+                recorder.append(store.convert(frame(4, 4, 1)));
+                recorder.commit();
+            }
+        }
+        Files.setLastModifiedTime(tempDir.resolve("old-s1-bgr24").resolve(FrameStore.INDEX_FILE), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(tempDir.resolve("recent-s1-bgr24").resolve(FrameStore.INDEX_FILE), FileTime.fromMillis(2000));
+
+        try (FrameStore.Recorder recorder = store.record("new", 30.0)) {
+            recorder.append(store.convert(frame(4, 4, 1)));
+            recorder.commit();
+        }
+
+        assertFalse(Files.exists(tempDir.resolve("old-s1-bgr24")), "Least recently used video should be evicted");
+        assertTrue(Files.exists(tempDir.resolve("recent-s1-bgr24")));
+        assertTrue(Files.exists(tempDir.resolve("new-s1-bgr24")));
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Pixel mismatch at " + x + "," + y);
+            }
+        }
+    }
+}
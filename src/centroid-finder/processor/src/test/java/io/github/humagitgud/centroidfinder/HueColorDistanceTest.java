@@ -0,0 +1,41 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HueColorDistance.
+ */
+public class HueColorDistanceTest {
+    private final HueColorDistance finder = new HueColorDistance();
+
+    @Test
+    void testPrimaryHues() {
+        assertEquals(0, HueColorDistance.hue(0xFF0000), 1e-9);
+        assertEquals(120, HueColorDistance.hue(0x00FF00), 1e-9);
+        assertEquals(240, HueColorDistance.hue(0x0000FF), 1e-9);
+    }
+
+    @Test
+    void testBrightnessDoesNotMatter() {
+        assertEquals(0, finder.distance(0xFF0000, 0x800000), 1e-9);
+        assertEquals(0, finder.distance(0xFF8080, 0x800000), 1e-9);
+    }
+
+    @Test
+    void testDistanceWrapsAroundTheHueCircle() {
+        // hues 350 and 10 degrees are 20 apart
+        int hue350 = 0xFF002B;
+        int hue10 = 0xFF2B00;
+        assertEquals(20, finder.distance(hue350, hue10), 0.5);
+        assertEquals(180, finder.distance(0xFF0000, 0x00FFFF), 1e-9);
+    }
+
+    @Test
+    void testAchromaticColors() {
+        assertEquals(-1, HueColorDistance.hue(0x808080));
+        assertEquals(-1, HueColorDistance.hue(0x100008));
+        assertEquals(0, finder.distance(0x808080, 0x000000), 1e-9);
+        assertEquals(HueColorDistance.ACHROMATIC_DISTANCE, finder.distance(0x808080, 0xFF0000), 1e-9);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+// Unit tests for KeyframeScanner
+public class KeyframeScannerTest {
+
+    private static final List<Long> KEYFRAMES = List.of(0L, 60L, 120L, 180L, 240L);
+
+    @Test
+    void testIntervalsNextToPresentKeyframesAreKept() {
+        List<KeyframeScanner.Span> spans = KeyframeScanner.spans(KEYFRAMES, List.of(false, false, true, false, false));
+
+        assertEquals(List.of(new KeyframeScanner.Span(60, 180), new KeyframeScanner.Span(240, Long.MAX_VALUE)), spans);
+    }
+
+    @Test
+    void testAbsentEverywhereKeepsOnlyTheTail() {
+        List<KeyframeScanner.Span> spans = KeyframeScanner.spans(KEYFRAMES, List.of(false, false, false, false, false));
+
+        assertEquals(List.of(new KeyframeScanner.Span(240, Long.MAX_VALUE)), spans);
+    }
+
+    @Test
+    void testPresentEverywhereKeepsEverything() {
+        List<KeyframeScanner.Span> spans = KeyframeScanner.spans(KEYFRAMES, List.of(true, true, true, true, true));
+
+        assertEquals(List.of(new KeyframeScanner.Span(0, Long.MAX_VALUE)), spans);
+    }
+
+    @Test
+    void testFramesBeforeFirstKeyframeAreKept() {
+        List<KeyframeScanner.Span> spans = KeyframeScanner.spans(List.of(10L, 70L), List.of(false, false));
+
+        assertEquals(List.of(new KeyframeScanner.Span(0, 10), new KeyframeScanner.Span(70, Long.MAX_VALUE)), spans);
+    }
+
+    @Test
+    void testNoKeyframesKeepsEverything() {
+        assertEquals(List.of(new KeyframeScanner.Span(0, Long.MAX_VALUE)), KeyframeScanner.spans(List.of(), List.of()));
+    }
+
+    @Test
+    void testScanFindsSampleKeyframes() throws Exception {
+        ImageGroupFinder finder = new BinarizingImageGroupFinder(
+                new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 100), new DfsBinaryGroupFinder());
+
+        List<KeyframeScanner.Span> spans = new KeyframeScanner(finder).scan("sampleInput/sampleVideo.mp4");
+
+        assertFalse(spans.isEmpty());
+        assertEquals(Long.MAX_VALUE, spans.get(spans.size() - 1).end());
+    }
+}
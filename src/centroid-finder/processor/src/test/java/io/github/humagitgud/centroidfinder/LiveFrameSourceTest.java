@@ -0,0 +1,100 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+// Unit tests for LiveFrameSource
+public class LiveFrameSourceTest {
+
+    // delivers frames at a fixed interval, reusing one image like the frame converter does
+    private static class TimedSource implements FrameSource {
+        private final int frames;
+        private final long intervalMillis;
+        private final BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        private int next;
+        boolean closed;
+
+        TimedSource(int frames, long intervalMillis) {
+            this.frames = frames;
+            this.intervalMillis = intervalMillis;
+        }
+
+        @Override
+        public double getFrameRate() {
+            return 1000.0 / intervalMillis;
+        }
+
+        @Override
+        public void seekToFrame(int frameNumber) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean grab() throws IOException {
+            if (next == frames) return false;
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            image.setRGB(0, 0, next++);
+            return true;
+        }
+
+        @Override
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    void testFastConsumerGetsEveryFrame() throws Exception {
+        TimedSource source = new TimedSource(10, 5);
+        int taken = 0;
+        try (LiveFrameSource live = new LiveFrameSource(source, 1000)) {
+            LiveFrameSource.Frame frame;
+            while ((frame = live.take()) != null) {
+                assertEquals(frame.frameNumber(), frame.image().getRGB(0, 0) & 0xFFFFFF, "Frames should be copies");
+                taken++;
+            }
+            assertEquals(10, live.getFramesDecoded());
+            assertEquals(0, live.getFramesDropped());
+        }
+        assertEquals(10, taken);
+        assertTrue(source.closed);
+    }
+
+    @Test
+    void testSlowConsumerGetsNewestFrames() throws Exception {
+        try (LiveFrameSource live = new LiveFrameSource(new TimedSource(40, 2), 1000)) {
+            long previous = -1;
+            int taken = 0;
+            LiveFrameSource.Frame frame;
+            while ((frame = live.take()) != null) {
+                assertTrue(frame.frameNumber() > previous);
+                previous = frame.frameNumber();
+                taken++;
+                Thread.sleep(15);
+            }
+            assertTrue(live.getFramesDropped() > 0, "A slow consumer should cause drops");
+            assertEquals(40, taken + live.getFramesDropped());
+        }
+    }
+
+    @Test
+    void testStaleFramesAreDropped() throws Exception {
+        try (LiveFrameSource live = new LiveFrameSource(new TimedSource(1, 1), 5)) {
+            Thread.sleep(50);
+            assertNull(live.take(), "The only frame is older than the latency bound");
+            assertEquals(1, live.getFramesDropped());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+// Unit tests for Moments and the moments attached to found groups
+public class MomentsTest {
+
+    @Test
+    void testSinglePixel() {
+        Moments m = Moments.ofPixel(3, 5);
+        assertEquals(new Coordinate(3, 5), m.centroid());
+        assertEquals(1, m.width());
+        assertEquals(1, m.height());
+        assertEquals(0, m.varianceX(), 1e-9);
+        assertEquals(1, m.elongation(), 1e-9);
+    }
+
+    @Test
+    void testFoundGroupCarriesBoundingBoxAndSums() {
+        int[][] image = {
+            {0, 0, 0, 0},
+            {0, 1, 1, 1},
+            {0, 1, 1, 1}
+        };
+        Group group = new DfsBinaryGroupFinder().findConnectedGroups(image).get(0);
+        Moments m = group.moments();
+
+        assertEquals(6, m.count());
+        assertEquals(12, m.sumX());
+        assertEquals(9, m.sumY());
+        assertEquals(1, m.minX());
+        assertEquals(1, m.minY());
+        assertEquals(3, m.maxX());
+        assertEquals(2, m.maxY());
+        assertEquals(3, m.width());
+        assertEquals(2, m.height());
+        assertEquals(2.0, m.meanX(), 1e-9);
+        assertEquals(1.5, m.meanY(), 1e-9);
+        assertEquals(group.centroid(), m.centroid());
+    }
+
+    @Test
+    void testOrientationAndElongation() {
+        int[][] horizontal = {{1, 1, 1, 1, 1}};
+        Moments line = new DfsBinaryGroupFinder().findConnectedGroups(horizontal).get(0).moments();
+        assertEquals(0, line.orientation(), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, line.elongation());
+
+        int[][] vertical = {{1}, {1}, {1}};
+        Moments column = new DfsBinaryGroupFinder().findConnectedGroups(vertical).get(0).moments();
+        assertEquals(Math.PI / 2, Math.abs(column.orientation()), 1e-9);
+
+        int[][] square = {{1, 1}, {1, 1}};
+        Moments block = new DfsBinaryGroupFinder().findConnectedGroups(square).get(0).moments();
+        assertEquals(1, block.elongation(), 1e-9);
+
+        int[][] bar = {
+            {1, 1, 1, 1},
+            {1, 1, 1, 1}
+        };
+        Moments wide = new DfsBinaryGroupFinder().findConnectedGroups(bar).get(0).moments();
+        // variances 1.25 and 0.25
+        assertEquals(Math.sqrt(5), wide.elongation(), 1e-9);
+    }
+
+    @Test
+    void testSumsDoNotOverflowForLargeGroups() {
+        // 3000 x 1000 pixels with x up to 2999: sum of x exceeds Integer.MAX_VALUE
+        int[][] image = new int[1000][3000];
+        for (int[] row : image) java.util.Arrays.fill(row, 1);
+        Moments m = new DfsBinaryGroupFinder().findLargestGroups(image, 1).get(0).moments();
+
+        assertEquals(3_000_000, m.count());
+        assertEquals(new Coordinate(1499, 499), m.centroid());
+    }
+
+    @Test
+    void testGroupEqualityIgnoresMoments() {
+        Group withMoments = Group.of(Moments.ofPixel(1, 1));
+        assertEquals(new Group(1, new Coordinate(1, 1)), withMoments);
+        assertEquals(new Group(1, new Coordinate(1, 1)).hashCode(), withMoments.hashCode());
+        assertNull(new Group(1, new Coordinate(1, 1)).moments());
+        assertEquals(List.of(withMoments), List.of(new Group(1, new Coordinate(1, 1))));
+    }
+}
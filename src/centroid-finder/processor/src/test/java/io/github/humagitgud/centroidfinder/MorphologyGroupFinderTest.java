@@ -0,0 +1,68 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Random;
+
+// Unit tests for MorphologyGroupFinder
+public class MorphologyGroupFinderTest {
+
+    @Test
+    void testOpeningDropsSpeckleGroups() {
+        int[][] image = new int[12][12];
+        image[0][11] = 1;
+        image[5][0] = 1;
+        image[11][6] = 1;
+        for (int y = 3; y < 8; y++) {
+            for (int x = 3; x < 8; x++) image[y][x] = 1;
+        }
+        BinaryGroupFinder finder = new MorphologyGroupFinder(MorphologyGroupFinder.Operation.OPEN, new DfsBinaryGroupFinder());
+
+        assertEquals(4, new DfsBinaryGroupFinder().findConnectedGroups(image).size());
+        assertEquals(List.of(new Group(25, new Coordinate(5, 5))), finder.findConnectedGroups(image));
+        assertEquals(List.of(new Group(25, new Coordinate(5, 5))), finder.findLargestGroups(image, 3));
+    }
+
+    @Test
+    void testOperationNames() {
+        assertEquals(MorphologyGroupFinder.Operation.CLOSE, MorphologyGroupFinder.Operation.fromName("close"));
+        assertThrows(IllegalArgumentException.class, () -> MorphologyGroupFinder.Operation.fromName("blur"));
+    }
+
+    @Test
+    void testNullImageThrows() {
+        BinaryGroupFinder finder = new MorphologyGroupFinder(MorphologyGroupFinder.Operation.ERODE, new DfsBinaryGroupFinder());
+        assertThrows(NullPointerException.class, () -> finder.findConnectedGroups(null));
+    }
+
+    @Test
+    void testReusedBuffersMatchFreshFilteringAcrossFrames() {
+        Random random = new Random(7);
+        int[][][] frames = {new int[9][70], new int[9][70], new int[5][3], new int[9][70]};
+        for (int[][] frame : frames) {
+            for (int[] row : frame) {
+                for (int x = 0; x < row.length; x++) row[x] = random.nextInt(3) == 0 ? 0 : 1;
+            }
+        }
+        for (MorphologyGroupFinder.Operation operation : MorphologyGroupFinder.Operation.values()) {
+            int[][][] seen = new int[1][][];
+            BinaryGroupFinder capture = image -> {
+                seen[0] = image;
+                return List.of();
+            };
+            BinaryGroupFinder finder = new MorphologyGroupFinder(operation, capture);
+            for (int[][] frame : frames) {
+                PackedMask packed = PackedMask.of(frame);
+                PackedMask expected = switch (operation) {
+                    case ERODE -> packed.erode();
+                    case DILATE -> packed.dilate();
+                    case OPEN -> packed.open();
+                    case CLOSE -> packed.close();
+                };
+                finder.findConnectedGroups(frame);
+                assertArrayEquals(expected.toArray(), seen[0], operation + ", " + frame[0].length + " wide");
+            }
+        }
+    }
+}
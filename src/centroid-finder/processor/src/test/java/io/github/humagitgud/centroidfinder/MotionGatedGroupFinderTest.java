@@ -0,0 +1,101 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MotionGatedGroupFinderTest {
+
+    private static BufferedImage frameWithSquare(int x0, int y0, int size) {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        for (int y = y0; y < y0 + size; y++) {
+            for (int x = x0; x < x0 + size; x++) {
+                image.setRGB(x, y, 0xFF0000);
+            }
+        }
+        return image;
+    }
+
+    private static List<Group> fullResult(BufferedImage image) {
+        ImageBinarizer binarizer = new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 100);
+        return new BinarizingImageGroupFinder(binarizer, new DfsBinaryGroupFinder()).findConnectedGroups(image);
+    }
+
+    @Test
+    void testMatchesFullComputationAcrossFrames() {
+        MotionGatedGroupFinder finder = new MotionGatedGroupFinder(new EuclideanColorDistance(), 0xFF0000, 100,
+                new DfsBinaryGroupFinder(), 0);
+        BufferedImage[] frames = {
+            frameWithSquare(2, 2, 5),
+            frameWithSquare(2, 2, 5),
+            frameWithSquare(14, 3, 5), // crosses a block boundary
+            frameWithSquare(30, 30, 8),
+            new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB)
+        };
+
+        for (BufferedImage frame : frames) {
+            assertEquals(fullResult(frame), finder.findConnectedGroups(frame));
+        }
+        assertEquals(1, finder.getFramesReused(), "Only the repeated frame should be reused");
+    }
+
+    @Test
+    void testToleranceIgnoresSmallChanges() {
+        MotionGatedGroupFinder finder = new MotionGatedGroupFinder(new EuclideanColorDistance(), 0xFF0000, 100,
+                new DfsBinaryGroupFinder(), 3);
+        BufferedImage first = frameWithSquare(2, 2, 5);
+        BufferedImage noisy = frameWithSquare(2, 2, 5);
+        noisy.setRGB(20, 20, 0x020202);
+
+        List<Group> expected = finder.findConnectedGroups(first);
+
+        assertEquals(expected, finder.findConnectedGroups(noisy));
+        assertEquals(1, finder.getFramesReused());
+    }
+
+    @Test
+    void testFrameSizeChangeRecomputesEverything() {
+        MotionGatedGroupFinder finder = new MotionGatedGroupFinder(new EuclideanColorDistance(), 0xFF0000, 100,
+                new DfsBinaryGroupFinder(), 0);
+        finder.findConnectedGroups(frameWithSquare(2, 2, 5));
+
+        BufferedImage small = new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB);
+        small.setRGB(1, 1, 0xFF0000);
+
+        assertEquals(fullResult(small), finder.findConnectedGroups(small));
+    }
+
+    @Test
+    void testLargestGroupsUseTopKSearchAndReusePerK() {
+        int[] topKCalls = new int[1];
+        BinaryGroupFinder counting = new BinaryGroupFinder() {
+            private final DfsBinaryGroupFinder dfs = new DfsBinaryGroupFinder();
+
+            @Override
+            public List<Group> findConnectedGroups(int[][] image) {
+                return dfs.findConnectedGroups(image);
+            }
+
+            @Override
+            public List<Group> findLargestGroups(int[][] image, int k) {
+                topKCalls[0]++;
+                return dfs.findLargestGroups(image, k);
+            }
+        };
+        MotionGatedGroupFinder finder = new MotionGatedGroupFinder(new EuclideanColorDistance(), 0xFF0000, 100,
+                counting, 0);
+        BufferedImage frame = frameWithSquare(2, 2, 5);
+        frame.setRGB(30, 30, 0xFF0000);
+
+        assertEquals(fullResult(frame).subList(0, 1), finder.findLargestGroups(frame, 1));
+        assertEquals(fullResult(frame).subList(0, 1), finder.findLargestGroups(frame, 1));
+        assertEquals(1, topKCalls[0], "An unchanged frame should reuse the top-k groups");
+        assertEquals(1, finder.getFramesReused());
+
+        assertEquals(fullResult(frame), finder.findLargestGroups(frame, 2));
+        assertEquals(2, topKCalls[0], "A different k should label again");
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Unit tests for OccupancyGrid
+public class OccupancyGridTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAddCountsCellsAndDwell() {
+        OccupancyGrid grid = new OccupancyGrid(20, 10, 8);
+        grid.add(new Coordinate(0, 0), 0.5);
+        grid.add(new Coordinate(7, 7), 0.5);
+        grid.add(new Coordinate(19, 9), 0.25);
+        grid.add(new Coordinate(-1, -1), 1);
+        grid.add(new Coordinate(20, 0), 1);
+
+        assertEquals(3, grid.getColumns());
+        assertEquals(2, grid.getRows());
+        assertEquals(2, grid.getFrames(0, 0));
+        assertEquals(1.0, grid.getSeconds(0, 0), 1e-9);
+        assertEquals(1, grid.getFrames(2, 1));
+        assertEquals(3, grid.getTotalFrames());
+    }
+
+    @Test
+    void testAddRowsSkipsMissingAndAbortedFrames() throws IOException {
+        Path csv = tempDir.resolve("out.csv");
+        Files.writeString(csv, "0.00,3,4\n0.03,-1,-1\n0.07,-2,-2\n0.10,5,5,12,12\n");
+        OccupancyGrid grid = new OccupancyGrid(16, 16, 8);
+        grid.addRows(csv, 0.1);
+
+        assertEquals(2, grid.getFrames(0, 0));
+        assertEquals(0.2, grid.getSeconds(0, 0), 1e-9);
+        assertEquals(0, grid.getFrames(1, 1));
+    }
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        OccupancyGrid grid = new OccupancyGrid(20, 10, 8);
+        grid.add(new Coordinate(12, 9), 0.5);
+        Path path = tempDir.resolve("grid.bin");
+        grid.write(path);
+
+        OccupancyGrid read = OccupancyGrid.read(path);
+        assertEquals(1, read.getFrames(1, 1));
+        assertEquals(0.5, read.getSeconds(1, 1), 1e-6);
+        assertEquals(1, read.getTotalFrames());
+        assertEquals(8, read.getCellSize());
+
+        Files.writeString(path, "not a grid");
+        assertThrows(IOException.class, () -> OccupancyGrid.read(path));
+    }
+
+    @Test
+    void testImageIsHottestWhereDwellIsLongest() {
+        OccupancyGrid grid = new OccupancyGrid(16, 8, 8);
+        grid.add(new Coordinate(1, 1), 4);
+        BufferedImage image = grid.toImage();
+
+        assertEquals(16, image.getWidth());
+        assertEquals(0xFFFFFF, image.getRGB(7, 7) & 0xFFFFFF);
+        assertEquals(0, image.getRGB(8, 0) & 0xFFFFFF);
+    }
+}
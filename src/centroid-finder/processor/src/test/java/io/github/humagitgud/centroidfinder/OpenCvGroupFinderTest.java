@@ -0,0 +1,124 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+// Unit tests for OpenCvGroupFinder, checked against the Java engine
+public class OpenCvGroupFinderTest {
+
+    private static final int TARGET = 0xC83214;
+
+    // blobs of colors near the target on a noisy background
+    private static BufferedImage randomImage(int width, int height, int type, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean near = random.nextInt(3) == 0;
+                int r = near ? 0xC8 + random.nextInt(41) - 20 : random.nextInt(256);
+                int g = near ? 0x32 + random.nextInt(41) - 20 : random.nextInt(256);
+                int b = near ? 0x14 + random.nextInt(41) - 20 : random.nextInt(256);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static ImageGroupFinder javaEngine(int threshold, MorphologyGroupFinder.Operation morphology,
+                                               BinaryGroupFinder labeler) {
+        BinaryGroupFinder binary = morphology == null ? labeler : new MorphologyGroupFinder(morphology, labeler);
+        return new BinarizingImageGroupFinder(
+                new DistanceImageBinarizer(new EuclideanColorDistance(), TARGET, threshold), binary);
+    }
+
+    @Test
+    void testMatchesJavaEngine() {
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30);
+        for (long seed = 0; seed < 5; seed++) {
+            BufferedImage image = randomImage(97, 61, BufferedImage.TYPE_3BYTE_BGR, seed);
+            assertEquals(javaEngine(30, null, new DfsBinaryGroupFinder()).findConnectedGroups(image),
+                    finder.findConnectedGroups(image));
+        }
+    }
+
+    @Test
+    void testMatchesJavaEngineForOtherImageTypes() {
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30);
+        BufferedImage image = randomImage(64, 48, BufferedImage.TYPE_INT_RGB, 7);
+        assertEquals(javaEngine(30, null, new DfsBinaryGroupFinder()).findConnectedGroups(image),
+                finder.findConnectedGroups(image));
+    }
+
+    @Test
+    void testMomentsMatchJavaEngine() {
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30);
+        finder.setMoments(true);
+        for (long seed = 0; seed < 3; seed++) {
+            BufferedImage image = randomImage(97, 61, BufferedImage.TYPE_3BYTE_BGR, seed);
+            List<Group> expected = javaEngine(30, null, new DfsBinaryGroupFinder()).findConnectedGroups(image);
+            List<Group> groups = finder.findConnectedGroups(image);
+            assertEquals(expected, groups);
+            for (int i = 0; i < groups.size(); i++) {
+                assertEquals(expected.get(i).moments(), groups.get(i).moments());
+            }
+        }
+    }
+
+    @Test
+    void testThresholdIsExclusive() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(0, 0, TARGET + (3 << 16) + (4 << 8));  // distance exactly 5
+        image.setRGB(1, 0, 0x000000);
+
+        assertEquals(List.of(), new OpenCvGroupFinder(TARGET, 5).findConnectedGroups(image));
+        assertEquals(List.of(new Group(1, new Coordinate(0, 0))),
+                new OpenCvGroupFinder(TARGET, 6).findConnectedGroups(image));
+    }
+
+    @Test
+    void testMorphologyMatchesJavaEngine() {
+        BufferedImage image = randomImage(80, 50, BufferedImage.TYPE_3BYTE_BGR, 11);
+        for (MorphologyGroupFinder.Operation operation : MorphologyGroupFinder.Operation.values()) {
+            OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 60, operation, 1, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+            assertEquals(javaEngine(60, operation, new DfsBinaryGroupFinder()).findConnectedGroups(image),
+                    finder.findConnectedGroups(image), operation.getName());
+        }
+    }
+
+    @Test
+    void testLabelingLimitsMatchJavaEngine() {
+        BufferedImage image = randomImage(80, 50, BufferedImage.TYPE_3BYTE_BGR, 3);
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30, null, 3, Integer.MAX_VALUE, Long.MAX_VALUE, null);
+        assertEquals(javaEngine(30, null, new DfsBinaryGroupFinder(3, Integer.MAX_VALUE, Long.MAX_VALUE))
+                .findConnectedGroups(image), finder.findConnectedGroups(image));
+
+        assertThrows(LabelingAbortedException.class,
+                () -> new OpenCvGroupFinder(TARGET, 30, null, 1, 2, Long.MAX_VALUE, null).findConnectedGroups(image));
+        assertThrows(LabelingAbortedException.class,
+                () -> new OpenCvGroupFinder(TARGET, 30, null, 1, Integer.MAX_VALUE, 10, null).findConnectedGroups(image));
+    }
+
+    @Test
+    void testReusesBuffersAcrossFrameSizes() {
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30);
+        for (int size = 10; size <= 40; size += 15) {
+            BufferedImage image = randomImage(size, size + 3, BufferedImage.TYPE_3BYTE_BGR, size);
+            assertEquals(javaEngine(30, null, new DfsBinaryGroupFinder()).findConnectedGroups(image),
+                    finder.findConnectedGroups(image));
+        }
+    }
+
+    @Test
+    void testZonesMatchJavaEngine() {
+        BufferedImage image = randomImage(90, 40, BufferedImage.TYPE_3BYTE_BGR, 13);
+        Zones zones = Zones.parse(List.of("exclude rect 10 5 30 20", "exclude polygon 50 0 89 39 50 39"));
+        ImageGroupFinder java = new BinarizingImageGroupFinder(
+                new ZonedImageBinarizer(new EuclideanColorDistance(), TARGET, 30, zones), new DfsBinaryGroupFinder());
+        OpenCvGroupFinder finder = new OpenCvGroupFinder(TARGET, 30, null, 1, Integer.MAX_VALUE, Long.MAX_VALUE, zones);
+
+        assertEquals(java.findConnectedGroups(image), finder.findConnectedGroups(image));
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Unit tests for OverlayRecorder
+public class OverlayRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage gray() {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) image.setRGB(x, y, 0x808080);
+        }
+        return image;
+    }
+
+    @Test
+    void testFramesAreAnnotatedAndEncoded() throws Exception {
+        Path video = tempDir.resolve("overlay.mp4");
+        Group group = Group.of(new Moments(1, 20, 20, 400, 400, 400, 10, 10, 40, 30));
+        BufferedImage frame = gray();
+        try (OverlayRecorder overlay = new OverlayRecorder(video, 10, null, 2)) {
+            for (int i = 0; i < 10; i++) {
+                overlay.add(frame, i / 10.0, i == 5 ? null : List.of(group));
+            }
+            overlay.finish();
+        }
+
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(video.toFile());
+             Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            grabber.start();
+            assertEquals(64, grabber.getImageWidth());
+            int frames = 0;
+            Frame decoded;
+            while ((decoded = grabber.grabImage()) != null) {
+                if (frames == 0) {
+                    BufferedImage first = converter.convert(decoded);
+                    // the box edge is green, the inside keeps the frame
+                    int edge = first.getRGB(25, 10);
+                    assertTrue(((edge >> 8) & 0xFF) > 180 && ((edge >> 16) & 0xFF) < 120, Integer.toHexString(edge));
+                    int inside = first.getRGB(15, 25);
+                    assertTrue(Math.abs(((inside >> 8) & 0xFF) - 0x80) < 24, Integer.toHexString(inside));
+                }
+                frames++;
+            }
+            assertEquals(10, frames);
+        }
+    }
+
+    @Test
+    void testMaskIsTinted() throws Exception {
+        Path video = tempDir.resolve("overlay.mp4");
+        BufferedImage frame = gray();
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 32; x++) frame.setRGB(x, y, 0x00FF00);
+        }
+        ImageBinarizer binarizer = new DistanceImageBinarizer(new EuclideanColorDistance(), 0x00FF00, 10);
+        try (OverlayRecorder overlay = new OverlayRecorder(video, 10, binarizer, 1)) {
+            overlay.add(frame, 0, List.of());
+            overlay.finish();
+        }
+
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(video.toFile());
+             Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            grabber.start();
+            BufferedImage decoded = converter.convert(grabber.grabImage());
+            // green under magenta at half strength is gray, the unmasked half stays gray too
+            int masked = decoded.getRGB(8, 24);
+            assertTrue(((masked >> 16) & 0xFF) > 96 && (masked & 0xFF) > 96, Integer.toHexString(masked));
+        }
+    }
+
+    @Test
+    void testFinishReportsEncodingFailure() {
+        Path video = tempDir.resolve("missing").resolve("overlay.mp4");
+        OverlayRecorder overlay = new OverlayRecorder(video, 10, null, 1);
+        try (overlay) {
+            assertThrows(IOException.class, () -> {
+                for (int i = 0; i < 5; i++) overlay.add(gray(), i / 10.0, List.of());
+                overlay.finish();
+            });
+        }
+        assertFalse(Files.exists(video));
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+// Unit tests for PackedMask
+public class PackedMaskTest {
+
+    // pixel-by-pixel 3x3 erosion or dilation with background outside the image
+    private static int[][] reference(int[][] image, boolean erode) {
+        int height = image.length;
+        int width = image[0].length;
+        int[][] result = new int[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean all = true;
+                boolean any = false;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        boolean set = nx >= 0 && ny >= 0 && nx < width && ny < height && image[ny][nx] == 1;
+                        all &= set;
+                        any |= set;
+                    }
+                }
+                result[y][x] = (erode ? all : any) ? 1 : 0;
+            }
+        }
+        return result;
+    }
+
+    private static int[][] randomImage(Random random, int width, int height, double density) {
+        int[][] image = new int[height][width];
+        for (int[] row : image) {
+            for (int x = 0; x < width; x++) row[x] = random.nextDouble() < density ? 1 : 0;
+        }
+        return image;
+    }
+
+    @Test
+    void testPackRoundTrip() {
+        int[][] image = randomImage(new Random(5), 130, 9, 0.5);
+        PackedMask mask = PackedMask.of(image);
+        assertArrayEquals(image, mask.toArray());
+        assertEquals(image[3][129] == 1, mask.get(129, 3));
+    }
+
+    @Test
+    void testErodeAndDilateMatchPixelLoop() {
+        Random random = new Random(6);
+        // widths around word boundaries
+        for (int width : new int[] {1, 3, 63, 64, 65, 128, 150}) {
+            int[][] image = randomImage(random, width, 1 + random.nextInt(20), 0.7);
+            assertArrayEquals(reference(image, true), PackedMask.of(image).erode().toArray(), "erode, width " + width);
+            assertArrayEquals(reference(image, false), PackedMask.of(image).dilate().toArray(), "dilate, width " + width);
+        }
+    }
+
+    @Test
+    void testOpenRemovesSpecksAndKeepsBlocks() {
+        int[][] image = new int[10][10];
+        image[1][1] = 1; // speck
+        for (int y = 4; y < 8; y++) {
+            for (int x = 4; x < 8; x++) image[y][x] = 1;
+        }
+        PackedMask opened = PackedMask.of(image).open();
+        assertFalse(opened.get(1, 1));
+        assertEquals(16, opened.cardinality());
+    }
+
+    @Test
+    void testCloseFillsHoles() {
+        int[][] image = new int[7][7];
+        for (int y = 1; y < 6; y++) {
+            for (int x = 1; x < 6; x++) image[y][x] = 1;
+        }
+        image[3][3] = 0;
+        assertTrue(PackedMask.of(image).close().get(3, 3));
+    }
+
+    @Test
+    void testRunsMatchPixels() {
+        Random random = new Random(5);
+        for (int width : new int[] {1, 63, 64, 65, 130, 200}) {
+            for (double density : new double[] {0.1, 0.5, 0.95, 1.0}) {
+                int[][] image = randomImage(random, width, 1, density);
+                int[] expected = new int[width];
+                int[] runs = PackedMask.of(image).runs(0);
+                for (int i = 0; i < runs.length; i += 2) {
+                    assertTrue(runs[i] < runs[i + 1], "runs are not empty");
+                    if (i > 0) assertTrue(runs[i - 1] < runs[i], "runs are separated");
+                    for (int x = runs[i]; x < runs[i + 1]; x++) expected[x] = 1;
+                }
+                assertArrayEquals(image[0], expected, "width " + width + ", density " + density);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.humagitgud.centroidfinder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRestore_MissReturnsFalse() throws IOException {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 1024);
+
+        assertFalse(cache.restore("missing", tempDir.resolve("out.csv")));
+        assertFalse(Files.exists(tempDir.resolve("out.csv")));
+    }
+
+    @Test
+    public void testStoreThenRestore_CopiesResult() throws IOException {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 1024);
+        Path result = tempDir.resolve("result.csv");
+        Files.writeString(result, "0.00,1,2\n");
+
+        cache.store("abc", result);
+        Path output = tempDir.resolve("out.csv");
+
+        assertTrue(cache.restore("abc", output));
+        assertEquals("0.00,1,2\n", Files.readString(output));
+    }
+
+    @Test
+    public void testStore_EvictsLeastRecentlyUsed() throws IOException {
+        Path cacheDir = tempDir.resolve("cache");
+        ResultCache cache = new ResultCache(cacheDir, 20);
+        Path result = tempDir.resolve("result.csv");
+        Files.writeString(result, "0123456789");
+
+        cache.store("old", result);
+        cache.store("recent", result);
+        Files.setLastModifiedTime(cacheDir.resolve("old.csv"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(cacheDir.resolve("recent.csv"), FileTime.fromMillis(2000));
+
+        cache.store("new", result);
+
+        assertFalse(Files.exists(cacheDir.resolve("old.csv")), "Least recently used entry should be evicted");
+        assertTrue(Files.exists(cacheDir.resolve("recent.csv")));
+        assertTrue(Files.exists(cacheDir.resolve("new.csv")));
+    }
+
+    @Test
+    public void testStore_ConcurrentStoresOfSameKeySucceed() throws Exception {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 10 * 1024 * 1024);
+        Path result = tempDir.resolve("result.csv");
+        Files.writeString(result, "0.00,1,2\n".repeat(10000));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> stores = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                stores.add(pool.submit(() -> {
+                    cache.store("samekey", result);
+                    return null;
+                }));
+            }
+            for (Future<?> store : stores) store.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        Path restored = tempDir.resolve("restored.csv");
+        assertTrue(cache.restore("samekey", restored));
+        assertEquals(Files.readString(result), Files.readString(restored));
+        try (Stream<Path> files = Files.list(tempDir.resolve("cache"))) {
+            assertTrue(files.noneMatch(p -> p.getFileName().toString().endsWith(".tmp")), "No temp files should remain");
+        }
+    }
+
+    @Test
+    public void testRestore_EntryDeletedByAnotherProcessIsMiss() throws IOException {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 1024);
+        Path result = tempDir.resolve("result.csv");
+        Files.writeString(result, "0.00,1,2\n");
+        cache.store("key", result);
+
+        // another process evicts the entry
+        try (Stream<Path> files = Files.list(tempDir.resolve("cache"))) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+
+        assertFalse(cache.restore("key", tempDir.resolve("out.csv")));
+    }
+
+    @Test
+    public void testRestore_MissingOutputDirectoryStillFails() throws IOException {
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 1024);
+        Path result = tempDir.resolve("result.csv");
+        Files.writeString(result, "0.00,1,2\n");
+        cache.store("key", result);
+
+        assertThrows(IOException.class, () -> cache.restore("key", tempDir.resolve("missing/out.csv")));
+    }
+
+    @Test
+    public void testKey_DependsOnParameters() {
+        assertEquals(ResultCache.key("hash", "threshold=100"), ResultCache.key("hash", "threshold=100"));
+        assertNotEquals(ResultCache.key("hash", "threshold=100"), ResultCache.key("hash", "threshold=101"));
+        assertNotEquals(ResultCache.key("hash", "threshold=100"), ResultCache.key("other", "threshold=100"));
+    }
+
+    @Test
+    public void testVideoHash_ChangesWithContent() throws IOException {
+        Path video = tempDir.resolve("video.bin");
+        Files.write(video, new byte[200_000]);
+        Files.setLastModifiedTime(video, FileTime.fromMillis(5000));
+        String original = VideoHash.of(video);
+
+        assertEquals(original, VideoHash.of(video), "Hash should be stable for unchanged files");
+
+        byte[] changed = new byte[200_000];
+        changed[199_999] = 1;
+        Files.write(video, changed);
+        Files.setLastModifiedTime(video, FileTime.fromMillis(5000));
+
+        assertNotEquals(original, VideoHash.of(video), "Hash should cover the end of the file");
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Unit tests for SeekIndex
+public class SeekIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeIndexed(String name) throws IOException {
+        Path csv = tempDir.resolve(name);
+        try (CsvWriter writer = new CsvWriter(csv.toString())) {
+            writer.setSeekIndex(SeekIndex.create(csv.toString()));
+            writer.writeRow(0.5, new Coordinate(1, 1));
+            writer.writeRow(1.0, null);
+            writer.writeAbortedRow(1.5, 1);
+            // seconds 2 to 4 have no rows
+            writer.writeRow(5.25, new Coordinate(2, 2));
+            writer.writeRow(6.0, new Coordinate(3, 3));
+            writer.finish();
+        }
+        return csv;
+    }
+
+    @Test
+    void testIndexHasOneEntryPerSecond() throws IOException {
+        Path csv = writeIndexed("out.csv");
+
+        // header of 16 bytes, then seconds 0 to 6
+        assertEquals(16 + 7 * Long.BYTES, Files.size(SeekIndex.pathFor(csv.toString())));
+    }
+
+    @Test
+    void testReadRange() throws IOException {
+        Path csv = writeIndexed("out.csv");
+
+        assertEquals(List.of("1.00,-1,-1", "1.50,-2,-2"), SeekIndex.readRange(csv, 1.0, 2.0));
+        assertEquals(List.of("5.25,2,2"), SeekIndex.readRange(csv, 2.0, 6.0));
+        assertEquals(List.of("6.00,3,3"), SeekIndex.readRange(csv, 6.0, 100));
+        assertEquals(List.of(), SeekIndex.readRange(csv, 7.0, 100));
+        assertEquals(5, SeekIndex.readRange(csv, -10, 100).size());
+    }
+
+    @Test
+    void testReadRangeWithoutIndex() throws IOException {
+        Path csv = tempDir.resolve("plain.csv");
+        Files.writeString(csv, "0.50,1,1\n1.00,-1,-1\n2.00,3,3\n");
+
+        assertEquals(List.of("1.00,-1,-1"), SeekIndex.readRange(csv, 0.75, 2.0));
+    }
+
+    @Test
+    void testReadRangeStopsAtCommittedBytes() throws IOException {
+        Path csv = writeIndexed("out.csv");
+        long committed = "0.50,1,1\n1.00,-1,-1\n".length();
+        new CommitMarker(2, committed, CommitMarker.Status.RUNNING).write(CommitMarker.pathFor(csv.toString()));
+
+        assertEquals(List.of("0.50,1,1", "1.00,-1,-1"), SeekIndex.readRange(csv, 0, 100));
+        assertEquals(List.of(), SeekIndex.readRange(csv, 5.0, 100));
+    }
+
+    @Test
+    void testRebuildMatchesIncrementalIndex() throws IOException {
+        Path csv = writeIndexed("out.csv");
+        byte[] incremental = Files.readAllBytes(SeekIndex.pathFor(csv.toString()));
+
+        SeekIndex.rebuild(csv.toString(), Files.size(csv)).close();
+
+        assertArrayEquals(incremental, Files.readAllBytes(SeekIndex.pathFor(csv.toString())));
+    }
+}
@@ -0,0 +1,82 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Unit tests for StreamingLabeler
+public class StreamingLabelerTest {
+
+    // labels an image row by row and returns its groups sorted like DfsBinaryGroupFinder
+    private static List<Group> label(int[][] image, int minGroupSize) {
+        List<Group> groups = new ArrayList<>();
+        StreamingLabeler labeler = new StreamingLabeler(image[0].length, minGroupSize, groups::add);
+        for (int[] row : image) labeler.addRow(row);
+        labeler.finish();
+        Collections.sort(groups, Collections.reverseOrder());
+        return groups;
+    }
+
+    @Test
+    void testUShapeMergesIntoOneGroup() {
+        int[][] image = {
+            {1, 0, 1},
+            {1, 0, 1},
+            {1, 1, 1}
+        };
+        List<Group> groups = label(image, 1);
+
+        assertEquals(1, groups.size());
+        assertEquals(7, groups.get(0).size());
+        assertEquals(new Coordinate(1, 1), groups.get(0).centroid());
+    }
+
+    @Test
+    void testDiagonalPixelsAreSeparate() {
+        int[][] image = {
+            {1, 0},
+            {0, 1}
+        };
+        assertEquals(2, label(image, 1).size());
+    }
+
+    @Test
+    void testMatchesDfsOnRandomImages() {
+        Random random = new Random(3);
+        DfsBinaryGroupFinder dfs = new DfsBinaryGroupFinder();
+        for (int trial = 0; trial < 50; trial++) {
+            int height = 1 + random.nextInt(40);
+            int width = 1 + random.nextInt(40);
+            double density = random.nextDouble();
+            int[][] image = new int[height][width];
+            for (int[] row : image) {
+                for (int x = 0; x < width; x++) row[x] = random.nextDouble() < density ? 1 : 0;
+            }
+
+            List<Group> expected = dfs.findConnectedGroups(image);
+            List<Group> actual = label(image, 1);
+            assertEquals(expected, actual);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).moments(), actual.get(i).moments());
+            }
+        }
+    }
+
+    @Test
+    void testMinGroupSize() {
+        int[][] image = {
+            {1, 0, 1, 1},
+            {0, 0, 1, 1}
+        };
+        assertEquals(List.of(new Group(4, new Coordinate(2, 0))), label(image, 2));
+    }
+
+    @Test
+    void testRejectsRowOfWrongWidth() {
+        StreamingLabeler labeler = new StreamingLabeler(3, 1, group -> { });
+        assertThrows(IllegalArgumentException.class, () -> labeler.addRow(new int[] {1, 0}));
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Unit tests for TrackPyramid
+public class TrackPyramidTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBucketsSummarizeEachLevel() throws IOException {
+        String output = tempDir.resolve("out.csv").toString();
+        try (TrackPyramid pyramid = new TrackPyramid(output, new int[] {1, 10})) {
+            pyramid.add(0.0, new Coordinate(10, 20));
+            pyramid.add(0.5, new Coordinate(30, 40));
+            pyramid.add(0.99, null);
+            pyramid.add(1.0, null);
+            pyramid.add(12.0, new Coordinate(5, 5));
+            pyramid.finish();
+        }
+
+        assertEquals(List.of(
+                "0.00,3,0.667,10,30,20.0,20,40,30.0",
+                "1.00,1,0.000,-1,-1,-1,-1,-1,-1",
+                "12.00,1,1.000,5,5,5.0,5,5,5.0"), Files.readAllLines(TrackPyramid.pathFor(output, 1)));
+        assertEquals(List.of(
+                "0.00,4,0.500,10,30,20.0,20,40,30.0",
+                "10.00,1,1.000,5,5,5.0,5,5,5.0"), Files.readAllLines(TrackPyramid.pathFor(output, 10)));
+    }
+
+    @Test
+    void testRowsUseWrittenTimestamps() throws IOException {
+        // 0.999 is written as 1.00, so it belongs to the second bucket either way
+        Path csv = tempDir.resolve("out.csv");
+        Files.writeString(csv, "0.50,1,1\n1.00,-1,-1\n1.50,-2,-2\n2.00,3,3,7,7\n");
+        String live = tempDir.resolve("live.csv").toString();
+        try (TrackPyramid pyramid = new TrackPyramid(live, new int[] {1})) {
+            pyramid.add(0.5, new Coordinate(1, 1));
+            pyramid.add(0.999, null);
+            pyramid.add(1.5, null);
+            pyramid.add(2.0, new Coordinate(3, 3));
+            pyramid.finish();
+        }
+        try (TrackPyramid pyramid = new TrackPyramid(csv.toString(), new int[] {1})) {
+            pyramid.addRows(csv);
+            pyramid.finish();
+        }
+
+        assertEquals(Files.readAllLines(TrackPyramid.pathFor(live, 1)),
+                Files.readAllLines(TrackPyramid.pathFor(csv.toString(), 1)));
+        assertEquals(3, Files.readAllLines(TrackPyramid.pathFor(live, 1)).size());
+    }
+
+    @Test
+    void testParseLevels() {
+        assertArrayEquals(new int[] {1, 30, 300}, TrackPyramid.parseLevels("1, 30,300"));
+        assertThrows(IllegalArgumentException.class, () -> TrackPyramid.parseLevels("1,0"));
+        assertThrows(IllegalArgumentException.class, () -> TrackPyramid.parseLevels("1,x"));
+    }
+}
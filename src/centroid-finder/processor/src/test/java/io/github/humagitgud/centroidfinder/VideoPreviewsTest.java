@@ -0,0 +1,77 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+
+// Unit tests for VideoPreviews
+public class VideoPreviewsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage solid(int rgb) {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 40; x++) image.setRGB(x, y, rgb);
+        }
+        return image;
+    }
+
+    @Test
+    void testThumbnailAndSpriteFromSampledFrames() throws IOException {
+        Path directory = tempDir.resolve("hash");
+        int[] colors = {0xFF0000, 0x00FF00, 0x0000FF, 0xFFFFFF, 0x000000, 0xFF00FF};
+        try (VideoPreviews previews = new VideoPreviews(directory, 20, 3, 6)) {
+            for (int frame = 0; frame < 6; frame++) {
+                assertEquals(frame % 2 == 0, previews.wants(frame));
+                previews.add(frame, frame / 2.0, solid(colors[frame]));
+            }
+            previews.finish();
+        }
+
+        assertTrue(VideoPreviews.isComplete(directory));
+        BufferedImage thumbnail = ImageIO.read(directory.resolve(VideoPreviews.THUMBNAIL_FILE).toFile());
+        assertEquals(20, thumbnail.getWidth());
+        assertEquals(10, thumbnail.getHeight());
+        assertTrue(((thumbnail.getRGB(10, 5) >> 16) & 0xFF) > 200);
+
+        // 3 tiles are laid out in 2 columns and 2 rows: frames 0, 2 and 4
+        BufferedImage sprite = ImageIO.read(directory.resolve(VideoPreviews.SPRITE_FILE).toFile());
+        assertEquals(40, sprite.getWidth());
+        assertEquals(20, sprite.getHeight());
+        assertTrue(((sprite.getRGB(30, 5) >> 0) & 0xFF) > 200, "second tile is blue");
+        assertTrue((sprite.getRGB(10, 15) & 0xFFFFFF) < 0x202020, "third tile is black");
+        assertEquals("{\"columns\":2,\"rows\":2,\"tileWidth\":20,\"tileHeight\":10,\"timestamps\":[0.00,1.00,2.00]}",
+                Files.readString(directory.resolve(VideoPreviews.LAYOUT_FILE)).trim());
+    }
+
+    @Test
+    void testLateFrameFillsSkippedTiles() throws IOException {
+        Path directory = tempDir.resolve("hash");
+        try (VideoPreviews previews = new VideoPreviews(directory, 20, 4, 8)) {
+            previews.add(0, 0.0, solid(0xFF0000));
+            previews.add(5, 2.5, solid(0x0000FF));
+            previews.finish();
+        }
+
+        assertEquals("{\"columns\":2,\"rows\":2,\"tileWidth\":20,\"tileHeight\":10,\"timestamps\":[0.00,2.50,2.50]}",
+                Files.readString(directory.resolve(VideoPreviews.LAYOUT_FILE)).trim());
+    }
+
+    @Test
+    void testNoFramesWritesNothing() throws IOException {
+        Path directory = tempDir.resolve("hash");
+        try (VideoPreviews previews = new VideoPreviews(directory, 20, 4, 8)) {
+            previews.finish();
+        }
+
+        assertFalse(VideoPreviews.isComplete(directory));
+        assertFalse(Files.exists(directory.resolve(VideoPreviews.THUMBNAIL_FILE)));
+    }
+}
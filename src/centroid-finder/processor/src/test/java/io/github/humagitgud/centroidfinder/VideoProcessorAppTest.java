@@ -31,7 +31,7 @@ class VideoProcessorAppTest {
     @Test
     void testMissingArgsPrintsUsage() {
         String[] args = {};  // no args
-        VideoProcessorApp.main(args);
+        assertEquals(1, VideoProcessorApp.run(args));
         String output = outContent.toString();
         assertTrue(output.contains("Usage"), "Should print usage instructions");
     }
@@ -39,7 +39,7 @@ class VideoProcessorAppTest {
     @Test
     void testInvalidInputFilePrintsError() {
         String[] args = {"nonexistent.mp4", "out.csv", "FF0000", "50"};
-        VideoProcessorApp.main(args);
+        assertEquals(1, VideoProcessorApp.run(args));
         String error = errContent.toString();
         assertTrue(error.contains("Input video file not found"), "Should report missing input file");
     }
@@ -50,7 +50,7 @@ class VideoProcessorAppTest {
         File fakeInput = new File("input.mp4");
         try {
             fakeInput.createNewFile(); // create empty dummy video file
-            VideoProcessorApp.main(args);
+            assertEquals(1, VideoProcessorApp.run(args));
             String error = errContent.toString();
             assertTrue(error.contains("Threshold must be an integer"), "Should reject non-integer threshold");
         } catch (IOException e) {
@@ -72,8 +72,46 @@ class VideoProcessorAppTest {
             "50"
         };
 
-        VideoProcessorApp.main(args);
+        assertEquals(1, VideoProcessorApp.run(args));
         String error = errContent.toString();
         assertTrue(error.contains("Invalid hex target color"), "Should detect bad hex input");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUnknownMetricPrintsError(@TempDir File tempDir) throws IOException {
+        File fakeInput = new File(tempDir, "input.mp4");
+        fakeInput.createNewFile();
+
+        String[] args = {
+            fakeInput.getAbsolutePath(),
+            new File(tempDir, "output.csv").getAbsolutePath(),
+            "FF0000",
+            "50",
+            "--metric",
+            "cmyk"
+        };
+
+        assertEquals(1, VideoProcessorApp.run(args));
+        String error = errContent.toString();
+        assertTrue(error.contains("Unknown color metric"), "Should reject an unknown metric");
+    }
+
+    @Test
+    void testIncompatibleOptionsReportProcessorError(@TempDir File tempDir) {
+        String[] args = {
+            "sampleInput/sampleVideo.mp4",
+            new File(tempDir, "output.csv").getAbsolutePath(),
+            "FF0000",
+            "50",
+            "--no-cache",
+            "--yuv",
+            "--distance-maps",
+            new File(tempDir, "maps").getAbsolutePath()
+        };
+
+        assertEquals(1, VideoProcessorApp.run(args));
+        String error = errContent.toString();
+        assertTrue(error.contains("Error: YUV frames cannot be combined"), error);
+        assertFalse(new File(tempDir, "output.csv").exists(), "Should fail before writing output");
+    }
+}
@@ -4,11 +4,13 @@ import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import javax.imageio.ImageIO;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -99,4 +101,658 @@ public class VideoProcessorTest {
             assertEquals(3, parts.length, "CSV line should have two parts (timestamp, centroid (x, y))");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProcessVideo_ResumeMatchesUninterruptedRun() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path fullCsvPath = tempDir.resolve("full.csv");
+        Path resumedCsvPath = tempDir.resolve("resumed.csv");
+
+        new VideoProcessor(inputVideoPath.toString(), fullCsvPath.toString(), 0xFF0000, 100).process();
+        assertFalse(Files.exists(Checkpoint.pathFor(fullCsvPath.toString())), "Checkpoint should be removed after completion");
+        List<String> fullLines = Files.readAllLines(fullCsvPath);
+
+        // Simulate a run killed after frame 149: committed rows plus a half-written tail
+        StringBuilder committed = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            committed.append(fullLines.get(i)).append(System.lineSeparator());
+        }
+        Files.writeString(resumedCsvPath, committed + "9.99,12");
+        new Checkpoint(149, 4.97, committed.length()).write(Checkpoint.pathFor(resumedCsvPath.toString()));
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), resumedCsvPath.toString(), 0xFF0000, 100);
+        processor.setResume(true);
+        processor.process();
+
+        assertEquals(fullLines, Files.readAllLines(resumedCsvPath), "Resumed output should match an uninterrupted run");
+    }
+
+    @Test
+    public void testProcessVideo_CommitMarkersReportDone() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path outputCsvPath = tempDir.resolve("output.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), outputCsvPath.toString(), 0xFF0000, 100);
+        processor.setCommitMarkers(true);
+        processor.process();
+
+        CommitMarker marker = CommitMarker.read(CommitMarker.pathFor(outputCsvPath.toString()));
+        assertNotNull(marker, "Commit marker should be written");
+        assertEquals(CommitMarker.Status.DONE, marker.status());
+        assertEquals(Files.readAllLines(outputCsvPath).size(), marker.rows());
+        assertEquals(Files.size(outputCsvPath), marker.bytes());
+    }
+
+    @Test
+    public void testProcessVideo_ResultCacheRestoresIdenticalOutput() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path firstCsvPath = tempDir.resolve("first.csv");
+        Path secondCsvPath = tempDir.resolve("second.csv");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 10 * 1024 * 1024);
+
+        VideoProcessor first = new VideoProcessor(inputVideoPath.toString(), firstCsvPath.toString(), 0xFF0000, 100);
+        first.setResultCache(cache);
+        first.process();
+
+        VideoProcessor second = new VideoProcessor(inputVideoPath.toString(), secondCsvPath.toString(), 0xFF0000, 100);
+        second.setResultCache(cache);
+        second.process();
+
+        assertEquals(Files.readAllLines(firstCsvPath), Files.readAllLines(secondCsvPath));
+        try (var entries = Files.list(tempDir.resolve("cache"))) {
+            assertEquals(1, entries.count(), "Identical jobs should share one cache entry");
+        }
+    }
+
+    @Test
+    public void testProcessVideo_FrameStoreMatchesDecoding() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path decodedCsvPath = tempDir.resolve("decoded.csv");
+        Path recordedCsvPath = tempDir.resolve("recorded.csv");
+        Path storedCsvPath = tempDir.resolve("stored.csv");
+        FrameStore store = new FrameStore(tempDir.resolve("frames"), 1024L * 1024 * 1024, 1, false);
+
+        new VideoProcessor(inputVideoPath.toString(), decodedCsvPath.toString(), 0xFF0000, 100).process();
+
+        VideoProcessor recording = new VideoProcessor(inputVideoPath.toString(), recordedCsvPath.toString(), 0xFF0000, 100);
+        recording.setFrameStore(store);
+        recording.process();
+
+        try (StoredFrameSource stored = store.open(VideoHash.of(inputVideoPath))) {
+            assertNotNull(stored, "Decoded frames should be in the store after the first run");
+        }
+
+        VideoProcessor reading = new VideoProcessor(inputVideoPath.toString(), storedCsvPath.toString(), 0xFF0000, 100);
+        reading.setFrameStore(store);
+        reading.process();
+
+        List<String> expected = Files.readAllLines(decodedCsvPath);
+        assertEquals(expected, Files.readAllLines(recordedCsvPath));
+        assertEquals(expected, Files.readAllLines(storedCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_DistanceMapsMatchFullProcessing() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path recordedCsvPath = tempDir.resolve("recorded.csv");
+        Path fullCsvPath = tempDir.resolve("full.csv");
+        Path replayedCsvPath = tempDir.resolve("replayed.csv");
+        DistanceMapCache maps = new DistanceMapCache(tempDir.resolve("maps"));
+
+        // Record maps at one threshold, then answer a different threshold from them
+        VideoProcessor recording = new VideoProcessor(inputVideoPath.toString(), recordedCsvPath.toString(), 0xFF0000, 100);
+        recording.setDistanceMaps(maps);
+        recording.process();
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(recordedCsvPath));
+
+        new VideoProcessor(inputVideoPath.toString(), fullCsvPath.toString(), 0xFF0000, 150).process();
+
+        VideoProcessor replaying = new VideoProcessor(inputVideoPath.toString(), replayedCsvPath.toString(), 0xFF0000, 150);
+        replaying.setDistanceMaps(maps);
+        replaying.process();
+
+        assertEquals(Files.readAllLines(fullCsvPath), Files.readAllLines(replayedCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_MotionGatingMatchesFullProcessing() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path gatedCsvPath = tempDir.resolve("gated.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), gatedCsvPath.toString(), 0xFF0000, 100);
+        processor.setMotionGating(true, 0);
+        processor.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(gatedCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_TopKLeadsWithLargestCentroid() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path topCsvPath = tempDir.resolve("top3.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), topCsvPath.toString(), 0xFF0000, 100);
+        processor.setTopK(3);
+        processor.process();
+
+        // The first pair of every row is the single-group output
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(topCsvPath);
+        assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String[] columns = rows.get(i).split(",");
+            assertEquals(7, columns.length);
+            assertEquals(expected.get(i), String.join(",", columns[0], columns[1], columns[2]));
+        }
+    }
+
+    @Test
+    public void testProcessVideo_ForegroundLimitFlagsAbortedFrames() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path limitedCsvPath = tempDir.resolve("limited.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), limitedCsvPath.toString(), 0xFF0000, 100);
+        processor.setLabelingLimits(1, Integer.MAX_VALUE, 1);
+        processor.process();
+
+        // Frames with more than one matching pixel are flagged; the rest are unchanged
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(limitedCsvPath);
+        assertEquals(expected.size(), rows.size());
+        int aborted = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).endsWith(",-2,-2")) {
+                aborted++;
+                assertFalse(expected.get(i).endsWith(",-1,-1"), "Frame " + i + " has no match to abort on");
+            } else {
+                assertEquals(expected.get(i), rows.get(i));
+            }
+        }
+        assertTrue(aborted > 0);
+    }
+
+    @Test
+    public void testProcessVideo_PerceptualMetricWritesEveryFrame() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path csvPath = tempDir.resolve("de2000.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 30);
+        processor.setColorMetric(ColorMetric.DELTA_E2000);
+        processor.process();
+
+        List<String> rows = Files.readAllLines(csvPath);
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")).size(), rows.size());
+        assertTrue(rows.stream().anyMatch(row -> !row.endsWith(",-1,-1")), "Red should be found with CIEDE2000");
+    }
+
+    @Test
+    public void testProcessVideo_YuvFramesCloseToRgb() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path yuvCsvPath = tempDir.resolve("yuv.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), yuvCsvPath.toString(), 0xFF0000, 100);
+        processor.setYuvFrames(true);
+        processor.process();
+
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(yuvCsvPath);
+        assertEquals(expected.size(), rows.size());
+        int far = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            String[] a = expected.get(i).split(",");
+            String[] b = rows.get(i).split(",");
+            assertEquals(a[0], b[0]);
+            int dx = Math.abs(Integer.parseInt(a[1]) - Integer.parseInt(b[1]));
+            int dy = Math.abs(Integer.parseInt(a[2]) - Integer.parseInt(b[2]));
+            if (dx > 3 || dy > 3) far++;
+        }
+        assertTrue(far <= rows.size() / 20, far + " rows differ by more than 3 pixels");
+    }
+
+    @Test
+    public void testProcessVideo_YuvFramesRejectFrameStore() throws IOException {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4",
+                tempDir.resolve("out.csv").toString(), 0xFF0000, 100);
+        processor.setYuvFrames(true);
+        processor.setFrameStore(new FrameStore(tempDir.resolve("frames"), 1 << 20, 1, false));
+        assertThrows(IllegalStateException.class, processor::process);
+    }
+
+    @Test
+    public void testProcessVideo_OpenCvEngineMatchesJavaEngine() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path openCvCsvPath = tempDir.resolve("opencv.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), openCvCsvPath.toString(), 0xFF0000, 100);
+        processor.setEngine(DetectionEngine.OPENCV);
+        processor.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(openCvCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_OpenCvEngineRejectsOtherMetrics() {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4",
+                tempDir.resolve("out.csv").toString(), 0xFF0000, 10);
+        processor.setColorMetric(ColorMetric.DELTA_E2000);
+        processor.setEngine(DetectionEngine.OPENCV);
+        assertThrows(IllegalStateException.class, processor::process);
+    }
+
+    @Test
+    public void testProcessVideo_CalibratedEngineMatchesAndIsRecorded() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path csvPath = tempDir.resolve("auto.csv");
+        Path profilePath = tempDir.resolve("engines");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 100);
+        DetectionEngine selected = processor.calibrateEngine(5, EngineProfile.read(profilePath));
+        processor.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(csvPath));
+        assertTrue(Files.readString(profilePath).contains("360x640;targetColor=FF0000;threshold=100"));
+
+        VideoProcessor reusing = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 100);
+        assertEquals(selected, reusing.calibrateEngine(5, EngineProfile.read(profilePath)));
+    }
+
+    @Test
+    public void testProcessVideo_CalibrationOnlyTimesUsableEngines() throws IOException {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4",
+                tempDir.resolve("out.csv").toString(), 0xFF0000, 10);
+        processor.setColorMetric(ColorMetric.HUE);
+        assertEquals(DetectionEngine.JAVA, processor.calibrateEngine(3, null));
+    }
+
+    @Test
+    public void testProcessVideo_FrameRangeKeepsAbsoluteTimestamps() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path windowCsvPath = tempDir.resolve("window.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), windowCsvPath.toString(), 0xFF0000, 100);
+        processor.setFrameRange(150, 250);
+        processor.process();
+
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        assertEquals(expected.subList(150, 250), Files.readAllLines(windowCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_TimeRangeWithCommitMarkers() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path windowCsvPath = tempDir.resolve("window.csv");
+
+        // 30 fps: from 5 s up to 6 s is frames 150 to 179
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), windowCsvPath.toString(), 0xFF0000, 100);
+        processor.setTimeRange(5, 6);
+        processor.setCommitMarkers(true);
+        processor.process();
+
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        assertEquals(expected.subList(150, 180), Files.readAllLines(windowCsvPath));
+        assertEquals(30, CommitMarker.read(CommitMarker.pathFor(windowCsvPath.toString())).rows());
+    }
+
+    @Test
+    public void testProcessVideo_ResumeWithinFrameRange() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path resumedCsvPath = tempDir.resolve("resumed.csv");
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+
+        // Simulate a run over frames 50 to 299 killed after frame 199
+        StringBuilder committed = new StringBuilder();
+        for (int i = 50; i < 200; i++) {
+            committed.append(expected.get(i)).append(System.lineSeparator());
+        }
+        Files.writeString(resumedCsvPath, committed.toString());
+        new Checkpoint(199, 199 / 30.0, committed.length()).write(Checkpoint.pathFor(resumedCsvPath.toString()));
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), resumedCsvPath.toString(), 0xFF0000, 100);
+        processor.setFrameRange(50, 300);
+        processor.setResume(true);
+        processor.process();
+
+        assertEquals(expected.subList(50, 300), Files.readAllLines(resumedCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_LiveModeWritesWallClockRows() throws IOException {
+        Path liveCsvPath = tempDir.resolve("live.csv");
+        double start = System.currentTimeMillis() / 1000.0;
+
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4", liveCsvPath.toString(), 0xFF0000, 100);
+        processor.setLive(500);
+        processor.process();
+
+        // A file decodes faster than detection runs, so some frames are dropped
+        List<String> rows = Files.readAllLines(liveCsvPath);
+        assertFalse(rows.isEmpty());
+        assertTrue(rows.size() <= 340);
+        double previous = 0;
+        for (String row : rows) {
+            double timestamp = Double.parseDouble(row.split(",")[0]);
+            assertTrue(timestamp >= start - 0.01 && timestamp >= previous, "Rows should carry increasing wall-clock times");
+            previous = timestamp;
+        }
+    }
+
+    @Test
+    public void testProcessVideo_LiveModeRejectsResultCache() throws IOException {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4",
+                tempDir.resolve("out.csv").toString(), 0xFF0000, 100);
+        processor.setLive(500);
+        processor.setResultCache(new ResultCache(tempDir.resolve("cache"), 1 << 20));
+        assertThrows(IllegalStateException.class, processor::process);
+    }
+
+    @Test
+    public void testProcessVideo_KeyframeScanRefinesSpans() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path scannedCsvPath = tempDir.resolve("scanned.csv");
+
+        // Only keyframe 273 of the sample shows the target, so the scan keeps the intervals on
+        // either side of it and the tail, and skips the frames before keyframe 213
+        ImageGroupFinder finder = new BinarizingImageGroupFinder(
+                new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 100), new DfsBinaryGroupFinder());
+        List<KeyframeScanner.Span> spans = new KeyframeScanner(finder).scan(inputVideoPath.toString());
+        assertEquals(List.of(new KeyframeScanner.Span(213, Long.MAX_VALUE)), spans);
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), scannedCsvPath.toString(), 0xFF0000, 100);
+        processor.setKeyframeScan(true);
+        processor.process();
+
+        // Skipped frames are written as not found, even where the full run finds the target;
+        // refined frames match the full run
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(scannedCsvPath);
+        assertEquals(expected.size(), rows.size());
+        int missed = 0;
+        for (int i = 0; i < 213; i++) {
+            assertEquals(expected.get(i).split(",")[0] + ",-1,-1", rows.get(i));
+            if (!rows.get(i).equals(expected.get(i))) missed++;
+        }
+        assertTrue(missed > 0, "The skipped interval should hide matches of the full run");
+        assertEquals(expected.subList(213, expected.size()), rows.subList(213, rows.size()));
+    }
+
+    @Test
+    public void testProcessVideo_ZonesExcludeMatches() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path zonedCsvPath = tempDir.resolve("zoned.csv");
+        Path everywhereCsvPath = tempDir.resolve("everywhere.csv");
+
+        // Excluding the bottom half of the 360x640 frames drops every centroid found there
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), zonedCsvPath.toString(), 0xFF0000, 100);
+        processor.setZones(Zones.parse(List.of("exclude rect 0 320 360 320")));
+        processor.process();
+
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(zonedCsvPath);
+        assertEquals(expected.size(), rows.size());
+        for (String row : rows) {
+            assertTrue(Integer.parseInt(row.split(",")[2]) < 320, row);
+        }
+
+        // A zone covering the whole frame changes nothing
+        VideoProcessor everywhere = new VideoProcessor(inputVideoPath.toString(), everywhereCsvPath.toString(), 0xFF0000, 100);
+        everywhere.setZones(Zones.parse(List.of("include rect 0 0 360 640")));
+        everywhere.setEngine(DetectionEngine.OPENCV);
+        everywhere.process();
+        assertEquals(expected, Files.readAllLines(everywhereCsvPath));
+    }
+
+    @Test
+    public void testProcessVideo_DecodeFilterCropMapsBackToOriginal() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path croppedCsvPath = tempDir.resolve("cropped.csv");
+        Path scaledCsvPath = tempDir.resolve("scaled.csv");
+
+        // Every match in the sample video lies inside this crop, so the output is unchanged
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), croppedCsvPath.toString(), 0xFF0000, 100);
+        processor.setDecodeFilter(new DecodeFilter(100, 480, 200, 120, 1, 0));
+        processor.process();
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        assertEquals(expected, Files.readAllLines(croppedCsvPath));
+
+        // Downscaled frames give centroids close to the full-size ones
+        VideoProcessor scaled = new VideoProcessor(inputVideoPath.toString(), scaledCsvPath.toString(), 0xFF0000, 100);
+        scaled.setDecodeFilter(new DecodeFilter(100, 480, 200, 120, 2, 0));
+        scaled.setEngine(DetectionEngine.OPENCV);
+        scaled.process();
+        List<String> rows = Files.readAllLines(scaledCsvPath);
+        assertEquals(expected.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            String[] a = expected.get(i).split(",");
+            String[] b = rows.get(i).split(",");
+            assertEquals(a[0], b[0]);
+            if (!a[1].equals("-1") && !b[1].equals("-1")) {
+                assertTrue(Math.abs(Integer.parseInt(a[1]) - Integer.parseInt(b[1])) <= 2, rows.get(i));
+                assertTrue(Math.abs(Integer.parseInt(a[2]) - Integer.parseInt(b[2])) <= 2, rows.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testProcessVideo_DecodeFilterFrameRateSetsRows() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path csvPath = tempDir.resolve("fps.csv");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 100);
+        processor.setDecodeFilter(new DecodeFilter(0, 0, 0, 0, 1, 15));
+        processor.process();
+
+        List<String> expected = Files.readAllLines(Path.of("sampleOutput/output.csv"));
+        List<String> rows = Files.readAllLines(csvPath);
+        // 341 frames at 30 fps last 11.37 s, which is 170.5 frames at 15 fps; the fps filter only
+        // puts out the last one once the end of the stream is signalled
+        assertEquals((expected.size() + 1) / 2, rows.size());
+        assertEquals("2.00", rows.get(30).split(",")[0]);
+        assertEquals("11.33", rows.get(rows.size() - 1).split(",")[0]);
+    }
+
+    @Test
+    public void testProcessVideo_DecodeFilterRejectsFrameStore() throws IOException {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4",
+                tempDir.resolve("out.csv").toString(), 0xFF0000, 100);
+        processor.setDecodeFilter(new DecodeFilter(0, 0, 0, 0, 2, 0));
+        processor.setFrameStore(new FrameStore(tempDir.resolve("frames"), 1 << 20, 1, false));
+        assertThrows(IllegalStateException.class, processor::process);
+    }
+
+    @Test
+    public void testProcessVideo_OccupancyGridMatchesOutputRows() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path csvPath = tempDir.resolve("occupancy.csv");
+        Path gridPath = tempDir.resolve("occupancy.bin");
+        Path imagePath = tempDir.resolve("occupancy.png");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 10 * 1024 * 1024);
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 100);
+        processor.setOccupancy(16, gridPath, imagePath);
+        processor.setResultCache(cache);
+        processor.process();
+
+        OccupancyGrid expected = new OccupancyGrid(360, 640, 16);
+        expected.addRows(Path.of("sampleOutput/output.csv"), 1.0 / 30);
+        OccupancyGrid grid = OccupancyGrid.read(gridPath);
+        assertTrue(grid.getTotalFrames() > 0);
+        assertEquals(expected.getTotalFrames(), grid.getTotalFrames());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int column = 0; column < expected.getColumns(); column++) {
+                assertEquals(expected.getFrames(column, row), grid.getFrames(column, row));
+            }
+        }
+        assertTrue(Files.size(imagePath) > 0);
+
+        // A restored cached result gives the same grid without processing
+        VideoProcessor restored = new VideoProcessor(inputVideoPath.toString(), csvPath.toString(), 0xFF0000, 100);
+        restored.setOccupancy(16, null, null);
+        restored.setResultCache(cache);
+        restored.process();
+        assertEquals(expected.getTotalFrames(), restored.getOccupancy().getTotalFrames());
+        assertEquals(expected.getSeconds(13, 33), restored.getOccupancy().getSeconds(13, 33), 1e-9);
+    }
+
+    @Test
+    public void testProcessVideo_SummaryMatchesOutputRowsAfterResume() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path fullCsvPath = tempDir.resolve("full.csv");
+        Path resumedCsvPath = tempDir.resolve("resumed.csv");
+        int[] levels = {1, 10};
+
+        VideoProcessor full = new VideoProcessor(inputVideoPath.toString(), fullCsvPath.toString(), 0xFF0000, 100);
+        full.setSummaryLevels(levels);
+        full.process();
+        List<String> perSecond = Files.readAllLines(TrackPyramid.pathFor(fullCsvPath.toString(), 1));
+        assertEquals(12, perSecond.size());
+        assertEquals(2, Files.readAllLines(TrackPyramid.pathFor(fullCsvPath.toString(), 10)).size());
+        assertTrue(perSecond.get(0).startsWith("0.00,30,"), perSecond.get(0));
+
+        // A run resumed from a checkpoint rebuilds the summary from the rows it keeps
+        List<String> fullLines = Files.readAllLines(fullCsvPath);
+        StringBuilder committed = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            committed.append(fullLines.get(i)).append(System.lineSeparator());
+        }
+        Files.writeString(resumedCsvPath, committed.toString());
+        new Checkpoint(99, 3.3, committed.length()).write(Checkpoint.pathFor(resumedCsvPath.toString()));
+
+        VideoProcessor resumed = new VideoProcessor(inputVideoPath.toString(), resumedCsvPath.toString(), 0xFF0000, 100);
+        resumed.setSummaryLevels(levels);
+        resumed.setResume(true);
+        resumed.process();
+        assertEquals(perSecond, Files.readAllLines(TrackPyramid.pathFor(resumedCsvPath.toString(), 1)));
+    }
+
+    @Test
+    public void testProcessVideo_SeekIndexReadsTimeRangesAfterResume() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path fullCsvPath = tempDir.resolve("full.csv");
+        Path resumedCsvPath = tempDir.resolve("resumed.csv");
+
+        VideoProcessor full = new VideoProcessor(inputVideoPath.toString(), fullCsvPath.toString(), 0xFF0000, 100);
+        full.setSeekIndex(true);
+        full.process();
+        List<String> fullLines = Files.readAllLines(fullCsvPath);
+        assertEquals(fullLines.subList(90, 150), SeekIndex.readRange(fullCsvPath, 3.0, 5.0));
+        assertEquals(fullLines.subList(330, fullLines.size()), SeekIndex.readRange(fullCsvPath, 11.0, 60.0));
+
+        // A run resumed from a checkpoint indexes the rows it keeps from the output file
+        StringBuilder committed = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            committed.append(fullLines.get(i)).append(System.lineSeparator());
+        }
+        Files.writeString(resumedCsvPath, committed.toString());
+        new Checkpoint(99, 3.3, committed.length()).write(Checkpoint.pathFor(resumedCsvPath.toString()));
+
+        VideoProcessor resumed = new VideoProcessor(inputVideoPath.toString(), resumedCsvPath.toString(), 0xFF0000, 100);
+        resumed.setSeekIndex(true);
+        resumed.setResume(true);
+        resumed.process();
+        assertArrayEquals(Files.readAllBytes(SeekIndex.pathFor(fullCsvPath.toString())),
+                Files.readAllBytes(SeekIndex.pathFor(resumedCsvPath.toString())));
+    }
+
+    @Test
+    public void testProcessVideo_PreviewsWrittenOncePerVideo() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path outputCsvPath = tempDir.resolve("output.csv");
+        Path previewDir = tempDir.resolve("previews");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), outputCsvPath.toString(), 0xFF0000, 100);
+        processor.setPreviews(previewDir, 180, 9);
+        processor.process();
+
+        Path directory = previewDir.resolve(VideoHash.of(inputVideoPath));
+        BufferedImage thumbnail = ImageIO.read(directory.resolve(VideoPreviews.THUMBNAIL_FILE).toFile());
+        assertEquals(180, thumbnail.getWidth());
+        assertEquals(320, thumbnail.getHeight());
+        BufferedImage sprite = ImageIO.read(directory.resolve(VideoPreviews.SPRITE_FILE).toFile());
+        assertEquals(3 * 180, sprite.getWidth());
+        assertEquals(3 * 320, sprite.getHeight());
+        String layout = Files.readString(directory.resolve(VideoPreviews.LAYOUT_FILE));
+        assertTrue(layout.contains("\"timestamps\":[0.00,"), layout);
+        assertEquals(9, layout.substring(layout.indexOf('[')).split(",").length, layout);
+
+        // Complete previews are not made again
+        Files.delete(directory.resolve(VideoPreviews.SPRITE_FILE));
+        processor.process();
+        assertFalse(Files.exists(directory.resolve(VideoPreviews.SPRITE_FILE)));
+    }
+
+    @Test
+    public void testProcessVideo_PreviewsMadeDespiteCachedResult() throws IOException {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 10 * 1024 * 1024);
+        Path previewDir = tempDir.resolve("previews");
+
+        VideoProcessor first = new VideoProcessor(inputVideoPath.toString(), tempDir.resolve("first.csv").toString(), 0xFF0000, 100);
+        first.setResultCache(cache);
+        first.process();
+
+        // The result is cached now, but the previews do not exist yet
+        Path outputCsvPath = tempDir.resolve("second.csv");
+        VideoProcessor second = new VideoProcessor(inputVideoPath.toString(), outputCsvPath.toString(), 0xFF0000, 100);
+        second.setResultCache(cache);
+        second.setPreviews(previewDir, 180, 9);
+        second.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(outputCsvPath));
+        assertTrue(VideoPreviews.isComplete(previewDir.resolve(VideoHash.of(inputVideoPath))));
+    }
+
+    @Test
+    public void testProcessVideo_OverlayVideoHasEveryFrame() throws Exception {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        Path outputCsvPath = tempDir.resolve("output.csv");
+        Path overlayPath = tempDir.resolve("overlay.mp4");
+
+        VideoProcessor processor = new VideoProcessor(inputVideoPath.toString(), outputCsvPath.toString(), 0xFF0000, 100);
+        processor.setOverlay(overlayPath, true);
+        processor.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(outputCsvPath));
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(overlayPath.toFile())) {
+            grabber.start();
+            assertEquals(360, grabber.getImageWidth());
+            assertEquals(640, grabber.getImageHeight());
+            int frames = 0;
+            while (grabber.grabImage() != null) frames++;
+            assertEquals(Files.readAllLines(outputCsvPath).size(), frames);
+        }
+    }
+
+    @Test
+    public void testProcessVideo_OverlayIsWrittenDespiteCachedResult() throws Exception {
+        Path inputVideoPath = Path.of("sampleInput/sampleVideo.mp4");
+        ResultCache cache = new ResultCache(tempDir.resolve("cache"), 10 * 1024 * 1024);
+        Path overlayPath = tempDir.resolve("overlay.mp4");
+
+        VideoProcessor first = new VideoProcessor(inputVideoPath.toString(), tempDir.resolve("first.csv").toString(), 0xFF0000, 100);
+        first.setResultCache(cache);
+        first.process();
+
+        // The result is cached now, but an overlay needs the frames processed again
+        Path outputCsvPath = tempDir.resolve("second.csv");
+        VideoProcessor second = new VideoProcessor(inputVideoPath.toString(), outputCsvPath.toString(), 0xFF0000, 100);
+        second.setResultCache(cache);
+        second.setOverlay(overlayPath, true);
+        second.process();
+
+        assertEquals(Files.readAllLines(Path.of("sampleOutput/output.csv")), Files.readAllLines(outputCsvPath));
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(overlayPath.toFile())) {
+            grabber.start();
+            int frames = 0;
+            while (grabber.grabImage() != null) frames++;
+            assertEquals(Files.readAllLines(outputCsvPath).size(), frames);
+        }
+    }
+
+    @Test
+    public void testProcessVideo_OverlayRejectsDistanceMaps() throws IOException {
+        VideoProcessor processor = new VideoProcessor("sampleInput/sampleVideo.mp4", tempDir.resolve("output.csv").toString(), 0xFF0000, 100);
+        processor.setOverlay(tempDir.resolve("overlay.mp4"), false);
+        processor.setDistanceMaps(new DistanceMapCache(tempDir.resolve("maps")));
+        assertThrows(IllegalStateException.class, processor::process);
+    }
+}
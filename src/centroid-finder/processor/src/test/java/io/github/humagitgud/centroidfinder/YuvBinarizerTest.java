@@ -0,0 +1,54 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// Unit tests for YuvBinarizer
+public class YuvBinarizerTest {
+
+    @Test
+    void testLimitedRangeConversion() {
+        assertEquals(0xFFFFFF, YuvBinarizer.toRgb(235, 128, 128));
+        assertEquals(0x000000, YuvBinarizer.toRgb(16, 128, 128));
+        // BT.601 red
+        int red = YuvBinarizer.toRgb(81, 90, 240);
+        assertTrue(((red >> 16) & 0xFF) > 250 && ((red >> 8) & 0xFF) < 5 && (red & 0xFF) < 5);
+    }
+
+    @Test
+    void testMatchesBinarizingConvertedImage() {
+        int width = 37;
+        int height = 21;
+        int yStride = 40;
+        int chromaStride = 20;
+        int chromaHeight = (height + 1) / 2;
+        Random random = new Random(7);
+        ByteBuffer y = ByteBuffer.allocate(yStride * height);
+        ByteBuffer u = ByteBuffer.allocate(chromaStride * chromaHeight);
+        ByteBuffer v = ByteBuffer.allocate(chromaStride * chromaHeight);
+        random.nextBytes(y.array());
+        random.nextBytes(u.array());
+        random.nextBytes(v.array());
+        YuvFrame frame = new YuvFrame(width, height, y, yStride, u, chromaStride, v, chromaStride);
+
+        // the same frame converted pixel by pixel, sharing chroma across 2x2 blocks
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                int luma = y.get(row * yStride + x) & 0xFF;
+                int cb = u.get((row / 2) * chromaStride + x / 2) & 0xFF;
+                int cr = v.get((row / 2) * chromaStride + x / 2) & 0xFF;
+                image.setRGB(x, row, YuvBinarizer.toRgb(luma, cb, cr));
+            }
+        }
+
+        for (int threshold : new int[] {50, 150, 300}) {
+            int[][] expected = new DistanceImageBinarizer(new EuclideanColorDistance(), 0xC03020, threshold).toBinaryArray(image);
+            int[][] actual = new YuvBinarizer(new EuclideanColorDistance(), 0xC03020, threshold).toBinaryArray(frame);
+            assertArrayEquals(expected, actual, "threshold " + threshold);
+        }
+    }
+}
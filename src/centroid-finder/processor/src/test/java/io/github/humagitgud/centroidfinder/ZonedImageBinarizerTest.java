@@ -0,0 +1,62 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+// Unit tests for ZonedImageBinarizer and ZonedGroupFinder
+public class ZonedImageBinarizerTest {
+
+    private static final Zones ZONES = Zones.parse(List.of("exclude rect 0 0 30 6", "exclude polygon 40 10 70 10 55 30"));
+
+    private static BufferedImage randomImage(long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(80, 40, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextBoolean() ? 0xF01010 : random.nextInt(1 << 24));
+            }
+        }
+        return image;
+    }
+
+    @Test
+    void testMatchesMaskedFullBinarization() {
+        BufferedImage image = randomImage(1);
+        ImageBinarizer full = new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 60);
+        ImageBinarizer zoned = new ZonedImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 60, ZONES);
+
+        int[][] expected = full.toBinaryArray(image);
+        ZONES.mask(80, 40).apply(expected);
+
+        assertArrayEquals(expected, zoned.toBinaryArray(image));
+    }
+
+    @Test
+    void testZonedGroupFinderMatchesZonedBinarizer() {
+        BufferedImage image = randomImage(2);
+        ImageGroupFinder binarized = new BinarizingImageGroupFinder(
+                new ZonedImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 60, ZONES), new DfsBinaryGroupFinder());
+        ImageGroupFinder masked = new BinarizingImageGroupFinder(
+                new DistanceImageBinarizer(new EuclideanColorDistance(), 0xFF0000, 60),
+                new ZonedGroupFinder(ZONES, new DfsBinaryGroupFinder()));
+
+        assertEquals(binarized.findConnectedGroups(image), masked.findConnectedGroups(image));
+        assertEquals(binarized.findLargestGroups(image, 3), masked.findLargestGroups(image, 3));
+    }
+
+    @Test
+    void testExcludedTargetIsNotFound() {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) image.setRGB(x, y, 0xFF0000);
+        }
+        image.setRGB(8, 8, 0xFF0000);
+        ImageGroupFinder finder = new BinarizingImageGroupFinder(new ZonedImageBinarizer(new EuclideanColorDistance(),
+                0xFF0000, 10, Zones.parse(List.of("exclude rect 0 0 5 5"))), new DfsBinaryGroupFinder());
+
+        assertEquals(List.of(new Group(1, new Coordinate(8, 8))), finder.findConnectedGroups(image));
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.humagitgud.centroidfinder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+// Unit tests for Zones and ZoneMask
+public class ZonesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testExcludeRectangle() {
+        ZoneMask mask = Zones.parse(List.of("# burned-in timestamp", "exclude rect 0 0 4 2")).mask(10, 5);
+
+        assertFalse(mask.contains(0, 0));
+        assertFalse(mask.contains(3, 1));
+        assertTrue(mask.contains(4, 1));
+        assertTrue(mask.contains(0, 2));
+        assertEquals(50 - 8, mask.area());
+        assertArrayEquals(new int[] {4, 10}, mask.runs(0));
+        assertArrayEquals(new int[] {0, 10}, mask.runs(2));
+    }
+
+    @Test
+    void testIncludeFirstStartsExcluded() {
+        ZoneMask mask = Zones.parse(List.of("include rect 2 2 6 6", "exclude rect 4 4 2 2")).mask(10, 10);
+
+        assertEquals(36 - 4, mask.area());
+        assertFalse(mask.contains(1, 1));
+        assertFalse(mask.contains(4, 4));
+        assertArrayEquals(new int[] {2, 4, 6, 8}, mask.runs(4));
+    }
+
+    @Test
+    void testPolygonUsesPixelCenters() {
+        // a right triangle with legs of 8 pixels along the top and left edges
+        ZoneMask mask = Zones.parse(List.of("include polygon 0 0 8 0 0 8")).mask(10, 10);
+
+        assertTrue(mask.contains(0, 0));
+        assertTrue(mask.contains(6, 0));
+        assertFalse(mask.contains(8, 0));
+        assertFalse(mask.contains(7, 7));
+        assertFalse(mask.contains(9, 9));
+    }
+
+    @Test
+    void testDownscaledZones() {
+        Zones zones = Zones.parse(List.of("exclude rect 0 0 8 8"));
+        ZoneMask mask = zones.downscaled(2).mask(10, 10);
+
+        assertEquals(100 - 16, mask.area());
+        assertEquals(zones.getDigest(), zones.downscaled(2).getDigest());
+    }
+
+    @Test
+    void testCroppedZones() {
+        Zones zones = Zones.parse(List.of("exclude rect 0 0 8 8"));
+        // frames cropped at (4, 4) and downscaled by 2: the rect covers frame pixels 0 to 1
+        ZoneMask mask = zones.forFrames(4, 4, 2).mask(5, 5);
+
+        assertFalse(mask.contains(1, 1));
+        assertTrue(mask.contains(2, 1));
+        assertEquals(25 - 4, mask.area());
+    }
+
+    @Test
+    void testMaskImageIsStretched() throws IOException {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(1, 0, 0xFFFFFF);
+        Path path = tempDir.resolve("mask.png");
+        ImageIO.write(image, "png", path.toFile());
+
+        ZoneMask mask = Zones.read(path).mask(8, 4);
+
+        assertFalse(mask.contains(3, 2));
+        assertTrue(mask.contains(4, 2));
+        assertEquals(16, mask.area());
+    }
+
+    @Test
+    void testReadZoneFile() throws IOException {
+        Path path = tempDir.resolve("zones.txt");
+        Files.writeString(path, "include rect 0 0 5 5\n\n");
+
+        assertEquals(25, Zones.read(path).mask(10, 10).area());
+        assertEquals(Zones.read(path).getDigest(), Zones.parse(List.of("include  rect 0 0 5 5")).getDigest());
+    }
+
+    @Test
+    void testMaskIsReusedForSameSize() {
+        Zones zones = Zones.parse(List.of("exclude rect 0 0 1 1"));
+
+        assertSame(zones.mask(4, 4), zones.mask(4, 4));
+        assertNotSame(zones.mask(4, 4), zones.mask(5, 4));
+    }
+
+    @Test
+    void testApplyClearsExcludedPixels() {
+        ZoneMask mask = Zones.parse(List.of("exclude rect 1 0 2 1")).mask(4, 2);
+        int[][] image = {{1, 1, 1, 1}, {1, 1, 1, 1}};
+
+        mask.apply(image);
+
+        assertArrayEquals(new int[][] {{1, 0, 0, 1}, {1, 1, 1, 1}}, image);
+    }
+
+    @Test
+    void testMalformedZonesThrow() {
+        assertThrows(IllegalArgumentException.class, () -> Zones.parse(List.of("hide rect 0 0 1 1")));
+        assertThrows(IllegalArgumentException.class, () -> Zones.parse(List.of("exclude circle 0 0 1")));
+        assertThrows(IllegalArgumentException.class, () -> Zones.parse(List.of("exclude rect 0 0 1")));
+        assertThrows(IllegalArgumentException.class, () -> Zones.parse(List.of("exclude polygon 0 0 1 1")));
+        assertThrows(IllegalArgumentException.class, () -> Zones.parse(List.of("exclude rect a b c d")));
+    }
+}
@@ -3,6 +3,7 @@ import fs from 'fs';
 import path from 'path';
 import ffmpegPath from 'ffmpeg-static';
 import { spawn } from 'child_process';
+import crypto from 'crypto';
 import { v4 as uuidv4 } from 'uuid';
 
 dotenv.config({ path: '../.env' });
@@ -41,6 +42,12 @@ const getThumbnail = (req, res) => {
         return res.status(404).json({ error: "Video not found" });
     }
 
+    // serve the thumbnail the processor made while decoding the video, if there is one
+    const cached = previewFile(videoPath, 'thumbnail.jpg');
+    if (cached) {
+        return res.type('image/jpeg').sendFile(cached);
+    }
+
     try {
         // set response content-type to jpeg
         res.setHeader('Content-Type', 'image/jpeg');
@@ -86,6 +93,32 @@ const getThumbnail = (req, res) => {
     }
 };
 
+// Sprite sheet of evenly spaced frames, made by the processor while decoding the video
+const getSprite = (req, res) => {
+    const videoPath = path.join(process.env.VIDEO_DIR, req.params.filename);
+    if (!fs.existsSync(videoPath)) {
+        return res.status(404).json({ error: "Video not found" });
+    }
+    const sprite = previewFile(videoPath, 'sprite.jpg');
+    if (!sprite) {
+        return res.status(404).json({ error: "Sprite not generated yet, process the video first" });
+    }
+    res.type('image/jpeg').sendFile(sprite);
+};
+
+// Layout of the sprite sheet: columns, rows, tile size and the timestamp of each tile
+const getSpriteLayout = (req, res) => {
+    const videoPath = path.join(process.env.VIDEO_DIR, req.params.filename);
+    if (!fs.existsSync(videoPath)) {
+        return res.status(404).json({ error: "Video not found" });
+    }
+    const layout = previewFile(videoPath, 'sprite.json');
+    if (!layout) {
+        return res.status(404).json({ error: "Sprite not generated yet, process the video first" });
+    }
+    res.json(JSON.parse(fs.readFileSync(layout, 'utf-8')));
+};
+
 const processVideo = async (req, res) => {
     const { filename } = req.params;
     const { targetColor, threshold } = req.query;
@@ -125,8 +158,13 @@ const processVideo = async (req, res) => {
         videoPath,
         resultFile,
         targetColor,
-        threshold
+        threshold,
+        '--commit-markers',
+        '--seek-index'
     ];
+    if (process.env.THUMBNAIL_DIR) {
+        args.push('--preview-dir', path.resolve(process.env.THUMBNAIL_DIR));
+    }
 
     // Run the JAR asynchronously and capture output for debugging
     const javaProcess = spawn('java', args, {
@@ -146,34 +184,46 @@ const processVideo = async (req, res) => {
         });
     }
 
+    // Poll the commit marker the processor keeps next to the result file
+    const markerFile = `${resultFile}.commit`;
+    let finished = false;
+    const finishJob = (status) => {
+        if (finished) return;
+        finished = true;
+        clearInterval(checkInterval);
+        const jobs = readJobs();
+        jobs[jobId] = status === 'done'
+            ? { status: 'done', filename, result: path.basename(resultFile) }
+            : { status: 'error', filename, result: null };
+        writeJobs(jobs);
+    };
+    const checkInterval = setInterval(() => {
+        if (fs.existsSync(markerFile)) {
+            const marker = readCommitMarker(markerFile);
+
+            if (marker.status === 'DONE') {
+                // Processor committed every row and finished
+                finishJob('done');
+            } else if (marker.status === 'FAILED') {
+                // Processor stopped with an error
+                finishJob('error');
+            }
+        }
+    }, 2000);  // Check every 2 seconds
+
     javaProcess.on('error', (err) => {
         console.error('Failed to start java process:', err);
+        finishJob('error');
     });
 
-    javaProcess.on('exit', (code, signal) => {
+    // Runs that end without a final marker (argument errors, a kill or out of memory) must
+    // not stay processing: once the process is gone, only a DONE marker means success
+    javaProcess.on('close', (code, signal) => {
         console.log(`java process exited with code=${code} signal=${signal}`);
+        const marker = fs.existsSync(markerFile) ? readCommitMarker(markerFile) : {};
+        finishJob(marker.status === 'DONE' ? 'done' : 'error');
     });
 
-    // Poll for result file and check file size stability
-    let lastSize = 0;
-    const checkInterval = setInterval(() => {
-        if (fs.existsSync(resultFile)) {
-            const stats = fs.statSync(resultFile);
-            const currentSize = stats.size;
-
-            if (currentSize === lastSize) {
-                // File size is stable, consider it done
-                clearInterval(checkInterval);
-                const jobs = readJobs();
-                jobs[jobId] = { status: 'done', filename, result: path.basename(resultFile) };
-                writeJobs(jobs);
-            } else {
-                // File size has changed, keep polling
-                lastSize = currentSize;
-            }
-        }
-    }, 2000);  // Check every 2 seconds
-
     res.status(202).json({ jobId });
 };
 
@@ -186,6 +236,60 @@ const processJobStatus = (req, res) => {
     res.json(jobs[jobId]);
 }
 
+// Helper to parse the key=value commit marker written by the processor
+const readCommitMarker = (markerFile) => {
+    try {
+        const marker = {};
+        for (const line of fs.readFileSync(markerFile, 'utf-8').split('\n')) {
+            const [key, value] = line.split('=');
+            if (key && value !== undefined) marker[key.trim()] = value.trim();
+        }
+        return marker;
+    } catch (e) {
+        return {};
+    }
+};
+
+// Helper matching the processor's VideoHash: SHA-256 over size, modification time in
+// milliseconds and 16 evenly spaced 64 KiB blocks, which names the video's preview directory
+const videoHash = (videoPath) => {
+    const blockCount = 16n;
+    const blockSize = 64 * 1024;
+    const stat = fs.statSync(videoPath, { bigint: true });
+    const header = Buffer.alloc(16);
+    header.writeBigInt64BE(stat.size, 0);
+    header.writeBigInt64BE(stat.mtimeNs / 1000000n, 8);
+    const hash = crypto.createHash('sha256').update(header);
+
+    const fd = fs.openSync(videoPath, 'r');
+    try {
+        const block = Buffer.alloc(blockSize);
+        const lastStart = stat.size > BigInt(blockSize) ? stat.size - BigInt(blockSize) : 0n;
+        for (let i = 0n; i < blockCount; i++) {
+            const read = fs.readSync(fd, block, 0, blockSize, lastStart * i / (blockCount - 1n));
+            hash.update(block.subarray(0, read));
+        }
+    } finally {
+        fs.closeSync(fd);
+    }
+    return hash.digest('hex');
+};
+
+// Helper to find a preview file of a video in THUMBNAIL_DIR, or null if it was not made yet
+const previewFile = (videoPath, name) => {
+    const previewDir = process.env.THUMBNAIL_DIR;
+    if (!previewDir) return null;
+    try {
+        const directory = path.resolve(previewDir, videoHash(videoPath));
+        // sprite.json is written last, so only a complete directory is used
+        if (!fs.existsSync(path.join(directory, 'sprite.json'))) return null;
+        const file = path.join(directory, name);
+        return fs.existsSync(file) ? file : null;
+    } catch (e) {
+        return null;
+    }
+};
+
 // Helper functions to read and write jobs
 const JOBS_FILE = process.env.JOBS_FILE;
 const readJobs = () => {
@@ -203,6 +307,8 @@ const writeJobs = (jobs) => {
 export default {
     listVideos,
     getThumbnail,
+    getSprite,
+    getSpriteLayout,
     processVideo,
     processJobStatus
 };
@@ -2,10 +2,12 @@ import express from 'express';
 import controller from "../controller/controller.js"
 
 const router = express.Router();
-const { listVideos, getThumbnail, processVideo, processJobStatus } = controller;
+const { listVideos, getThumbnail, getSprite, getSpriteLayout, processVideo, processJobStatus } = controller;
 
 router.get("/videos", listVideos);
 router.get("/thumbnail/:filename", getThumbnail);
+router.get("/sprite/:filename", getSprite);
+router.get("/sprite/:filename/layout", getSpriteLayout);
 router.post('/process/:filename', processVideo);
 router.get('/process/:jobId/status', processJobStatus);
 